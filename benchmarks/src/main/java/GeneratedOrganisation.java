@@ -0,0 +1,209 @@
+import benchmarks.OrgShape;
+import benchmarks.OrganisationDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// builds a synthetic organisation of the requested shape through RosterLoader and forwards the benchmarked calls
+public class GeneratedOrganisation implements OrganisationDriver
+{
+    private static final long CEO_NUMBER = 1L;
+    private static final long LATEST_START = 1_600_000_000_000L;
+    private static final long TWENTY_YEARS = 20L * 365 * 24 * 60 * 60 * 1000;
+
+    private final Organisation organisation;
+    private final long[] managerNumbers;
+    private final long[] managerParents;
+    private final long[] employeeNumbers;
+    private final long[] employeeManagers;
+    private final String[] teamNames;
+    private final long nextFreeNumber;
+
+    public GeneratedOrganisation(final OrgShape shape)
+    {
+        final Random random = new Random(shape.seed);
+        final int leads = (shape.people + shape.teamSize - 1) / shape.teamSize;
+
+        // manager levels from the team leads upwards until the depth cap or a level small enough for the CEO
+        final List<Integer> levelSizes = new ArrayList<>();
+        levelSizes.add(leads);
+        while(levelSizes.size() < shape.depth && levelSizes.get(0) > shape.fanOut){
+            levelSizes.add(0, (levelSizes.get(0) + shape.fanOut - 1) / shape.fanOut);
+        }
+
+        final RosterLoader loader = new RosterLoader();
+        final List<Long> managers = new ArrayList<>();
+        final List<Long> parents = new ArrayList<>();
+        long number = CEO_NUMBER + 1;
+        long[] above = new long[]{CEO_NUMBER};
+        for(int level = 0; level < levelSizes.size(); level++){
+            final boolean teamLeads = level == levelSizes.size() - 1;
+            final long[] current = new long[levelSizes.get(level)];
+            for(int i = 0; i < current.length; i++){
+                current[i] = number++;
+                final long reportsTo = above[Math.min(i / shape.fanOut, above.length - 1)];
+                loader.addManager("Manager", "M" + current[i], teamLeads ? "Manager" : "Director", startDate(random), false, current[i], reportsTo, false);
+                managers.add(current[i]);
+                parents.add(reportsTo);
+            }
+            above = current;
+        }
+
+        final int employeeCount = Math.max(0, shape.people - managers.size());
+        this.employeeNumbers = new long[employeeCount];
+        this.employeeManagers = new long[employeeCount];
+        this.teamNames = new String[above.length];
+        final List<List<Long>> teamMembers = new ArrayList<>(above.length);
+        for(int team = 0; team < above.length; team++){
+            teamNames[team] = "team-" + above[team];
+            final List<Long> members = new ArrayList<>(shape.teamSize);
+            members.add(above[team]);
+            teamMembers.add(members);
+        }
+        for(int i = 0; i < employeeCount; i++){
+            final int team = i % above.length;
+            employeeNumbers[i] = number++;
+            employeeManagers[i] = above[team];
+            loader.addEmployee("Employee", "E" + employeeNumbers[i], "Employee", startDate(random), random.nextDouble() < shape.contractorRatio, employeeNumbers[i], above[team], false);
+            teamMembers.get(team).add(employeeNumbers[i]);
+        }
+        for(int team = 0; team < above.length; team++){
+            loader.addTeam(teamNames[team], above[team], teamMembers.get(team));
+        }
+
+        final RosterLoader.Result result = loader.load(new CEO("Chief", "Executive", "CEO", new Date(0L), false, CEO_NUMBER, null, false));
+        if(!result.isClean()){
+            throw new IllegalStateException("Generated roster was rejected: " + result.getErrors().get(0));
+        }
+        this.organisation = result.getOrganisation();
+        this.managerNumbers = managers.stream().mapToLong(Long::longValue).toArray();
+        this.managerParents = parents.stream().mapToLong(Long::longValue).toArray();
+        this.nextFreeNumber = number;
+    }
+
+    private static Date startDate(final Random random)
+    {
+        return new Date(LATEST_START - (long) (random.nextDouble() * TWENTY_YEARS));
+    }
+
+    @Override
+    public long ceoNumber()
+    {
+        return CEO_NUMBER;
+    }
+
+    @Override
+    public long[] managerNumbers()
+    {
+        return managerNumbers;
+    }
+
+    @Override
+    public long[] managerParents()
+    {
+        return managerParents;
+    }
+
+    @Override
+    public long[] employeeNumbers()
+    {
+        return employeeNumbers;
+    }
+
+    @Override
+    public long[] employeeManagers()
+    {
+        return employeeManagers;
+    }
+
+    @Override
+    public String[] teamNames()
+    {
+        return teamNames;
+    }
+
+    @Override
+    public long nextFreeNumber()
+    {
+        return nextFreeNumber;
+    }
+
+    @Override
+    public String addEmployee(final long employeeNumber, final long managerNumber)
+    {
+        return organisation.addEmployee("New", "Employee", "Employee", new Date(LATEST_START), false, employeeNumber, managerNumber, false);
+    }
+
+    @Override
+    public String addManager(final long employeeNumber, final long managerNumber)
+    {
+        return organisation.addManager("New", "Manager", "Manager", new Date(LATEST_START), false, employeeNumber, managerNumber, false);
+    }
+
+    @Override
+    public String addTeam(final String teamName, final long managerId, final long[] members)
+    {
+        final Long[] boxed = new Long[members.length];
+        for(int i = 0; i < members.length; i++){
+            boxed[i] = members[i];
+        }
+        return organisation.addTeam(teamName, managerId, Arrays.asList(boxed));
+    }
+
+    @Override
+    public String moveTeam(final String oldTeam, final String newTeam, final long employeeNumber)
+    {
+        return organisation.moveTeam(oldTeam, newTeam, employeeNumber, false);
+    }
+
+    @Override
+    public String goOnHoliday(final long employeeNumber)
+    {
+        return organisation.goOnHoliday(employeeNumber);
+    }
+
+    @Override
+    public String returnFromHoliday(final long employeeNumber)
+    {
+        return organisation.returnFromHoliday(employeeNumber);
+    }
+
+    @Override
+    public String promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return organisation.promote(employeeNumber, newManagerNumber, isEmployee, newRole);
+    }
+
+    @Override
+    public Object getTeam(final long employeeNumber)
+    {
+        return organisation.getTeam(employeeNumber);
+    }
+
+    @Override
+    public Object getTeams(final long employeeNumber)
+    {
+        return organisation.getTeams(employeeNumber);
+    }
+
+    @Override
+    public Object getManager(final long employeeNumber)
+    {
+        return organisation.getManager(employeeNumber);
+    }
+
+    @Override
+    public Object getEmployee(final long employeeNumber)
+    {
+        return organisation.getEmployee(employeeNumber);
+    }
+
+    @Override
+    public int getUnitHeadcount(final long employeeNumber)
+    {
+        return organisation.getUnitHeadcount(employeeNumber);
+    }
+}
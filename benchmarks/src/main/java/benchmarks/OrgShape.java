@@ -0,0 +1,32 @@
+package benchmarks;
+
+// what the synthetic organisation looks like; depth caps the number of manager levels under the CEO, fan out is how
+// many managers report to each manager above the team leads
+public final class OrgShape
+{
+    public final int people;
+    public final int depth;
+    public final int fanOut;
+    public final int teamSize;
+    public final double contractorRatio;
+    public final long seed;
+
+    public OrgShape(final int people, final int depth, final int fanOut, final int teamSize, final double contractorRatio, final long seed)
+    {
+        if(people < 1 || depth < 1 || fanOut < 1 || teamSize < 2 || contractorRatio < 0 || contractorRatio > 1){
+            throw new IllegalArgumentException("Invalid organisation shape");
+        }
+        this.people = people;
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.teamSize = teamSize;
+        this.contractorRatio = contractorRatio;
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString()
+    {
+        return people + " people, depth " + depth + ", fan out " + fanOut + ", teams of " + teamSize + ", " + contractorRatio + " contractors";
+    }
+}
@@ -0,0 +1,233 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// every public Organisation operation against generated organisations of 1k, 100k and 1M people; throughput and the
+// sampled latency percentiles come from the two modes, allocation per operation from the gc profiler (BenchmarkMain
+// adds it, or pass -prof gc)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrganisationBenchmark
+{
+    static final int PROMOTIONS_PER_BATCH = 500;
+
+    @State(Scope.Benchmark)
+    public static class Shape
+    {
+        @Param({"1000", "100000", "1000000"})
+        public int people;
+
+        @Param({"4"})
+        public int depth;
+
+        @Param({"8"})
+        public int fanOut;
+
+        @Param({"10"})
+        public int teamSize;
+
+        @Param({"0.1"})
+        public double contractorRatio;
+
+        OrgShape shape()
+        {
+            return new OrgShape(people, depth, fanOut, teamSize, contractorRatio, 42L);
+        }
+    }
+
+    // lookups never change anything, one organisation serves the whole run
+    @State(Scope.Benchmark)
+    public static class ReadOnly
+    {
+        OrganisationDriver organisation;
+        long[] employees;
+        long[] managers;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void generate(final Shape shape)
+        {
+            organisation = OrganisationDriver.generate(shape.shape());
+            employees = organisation.employeeNumbers();
+            managers = organisation.managerNumbers();
+        }
+
+        long nextEmployee()
+        {
+            cursor = cursor + 1 == employees.length ? 0 : cursor + 1;
+            return employees[cursor];
+        }
+
+        long nextManager()
+        {
+            cursor = cursor + 1 >= managers.length ? 0 : cursor + 1;
+            return managers[cursor];
+        }
+    }
+
+    // changes build up during an iteration, so every iteration starts from a freshly generated organisation
+    @State(Scope.Thread)
+    public static class Mutable
+    {
+        OrganisationDriver organisation;
+        long[] employees;
+        long[] teamLeads;
+        long[] upperManagers; // or the team leads when there is only one level
+        long[] upperManagerParents;
+        String[] teamNames;
+        int[] teamOf; // the team each employee currently sits in
+        long nextNumber;
+        int cursor;
+        int managerCursor;
+        int upperCursor;
+
+        @Setup(Level.Iteration)
+        public void generate(final Shape shape)
+        {
+            organisation = OrganisationDriver.generate(shape.shape());
+            employees = organisation.employeeNumbers();
+            teamNames = organisation.teamNames();
+            final long[] managers = organisation.managerNumbers();
+            teamLeads = Arrays.copyOfRange(managers, managers.length - teamNames.length, managers.length);
+            final long[] parents = organisation.managerParents();
+            final int upper = managers.length > teamLeads.length ? managers.length - teamLeads.length : managers.length;
+            upperManagers = Arrays.copyOf(managers, upper);
+            upperManagerParents = Arrays.copyOf(parents, upper);
+            teamOf = new int[employees.length];
+            for(int i = 0; i < employees.length; i++){
+                teamOf[i] = i % teamNames.length; // the generator deals employees out to teams in turn
+            }
+            nextNumber = organisation.nextFreeNumber();
+            cursor = 0;
+            managerCursor = 0;
+            upperCursor = 0;
+        }
+
+        int nextEmployeeIndex()
+        {
+            cursor = cursor + 1 == employees.length ? 0 : cursor + 1;
+            return cursor;
+        }
+
+        int nextTeamLeadIndex()
+        {
+            managerCursor = managerCursor + 1 == teamLeads.length ? 0 : managerCursor + 1;
+            return managerCursor;
+        }
+    }
+
+    @Benchmark
+    public String addEmployee(final Mutable state)
+    {
+        return state.organisation.addEmployee(state.nextNumber++, state.teamLeads[state.nextTeamLeadIndex()]);
+    }
+
+    @Benchmark
+    public String addManager(final Mutable state)
+    {
+        return state.organisation.addManager(state.nextNumber++, state.teamLeads[state.nextTeamLeadIndex()]);
+    }
+
+    @Benchmark
+    public String addTeam(final Mutable state)
+    {
+        final long first = state.nextNumber;
+        state.nextNumber += 3;
+        return state.organisation.addTeam("bench-" + first, state.teamLeads[state.nextTeamLeadIndex()], new long[]{first, first + 1, first + 2});
+    }
+
+    // each call moves one employee on to the next team; teams lose and gain people evenly so none is ever emptied
+    @Benchmark
+    public String moveTeam(final Mutable state)
+    {
+        final int employee = state.nextEmployeeIndex();
+        final int from = state.teamOf[employee];
+        final int to = from + 1 == state.teamNames.length ? 0 : from + 1;
+        state.teamOf[employee] = to;
+        return state.organisation.moveTeam(state.teamNames[from], state.teamNames[to], state.employees[employee]);
+    }
+
+    @Benchmark
+    public String employeeHolidayRoundTrip(final Mutable state)
+    {
+        final long employee = state.employees[state.nextEmployeeIndex()];
+        state.organisation.goOnHoliday(employee);
+        return state.organisation.returnFromHoliday(employee);
+    }
+
+    // a manager's holiday hands their whole team to their own manager and back
+    @Benchmark
+    public String managerHolidayRoundTrip(final Mutable state)
+    {
+        final long manager = state.teamLeads[state.nextTeamLeadIndex()];
+        state.organisation.goOnHoliday(manager);
+        return state.organisation.returnFromHoliday(manager);
+    }
+
+    // a director re-confirmed in place: the eligibility check on cached unit totals plus the role and reporting
+    // line updates, repeatable because nothing actually changes shape
+    @Benchmark
+    public String promoteManager(final Mutable state)
+    {
+        state.upperCursor = state.upperCursor + 1 == state.upperManagers.length ? 0 : state.upperCursor + 1;
+        return state.organisation.promote(state.upperManagers[state.upperCursor], state.upperManagerParents[state.upperCursor], false, "Director");
+    }
+
+    // promoting an employee uses them up, so this runs as fixed batches on a fresh organisation; divide by the batch
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = PROMOTIONS_PER_BATCH)
+    @Measurement(iterations = 20, batchSize = PROMOTIONS_PER_BATCH)
+    public String promoteEmployee(final Mutable state)
+    {
+        final int employee = state.nextEmployeeIndex();
+        return state.organisation.promote(state.employees[employee], state.teamLeads[state.teamOf[employee]], true, "Manager");
+    }
+
+    @Benchmark
+    public Object getTeam(final ReadOnly state)
+    {
+        return state.organisation.getTeam(state.nextEmployee());
+    }
+
+    @Benchmark
+    public Object getTeams(final ReadOnly state)
+    {
+        return state.organisation.getTeams(state.nextEmployee());
+    }
+
+    @Benchmark
+    public Object getEmployee(final ReadOnly state)
+    {
+        return state.organisation.getEmployee(state.nextEmployee());
+    }
+
+    @Benchmark
+    public Object getManager(final ReadOnly state)
+    {
+        return state.organisation.getManager(state.nextManager());
+    }
+
+    @Benchmark
+    public int getUnitHeadcount(final ReadOnly state)
+    {
+        return state.organisation.getUnitHeadcount(state.nextManager());
+    }
+}
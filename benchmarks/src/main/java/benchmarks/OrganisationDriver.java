@@ -0,0 +1,55 @@
+package benchmarks;
+
+// the organisation classes live in the default package, which JMH benchmarks cannot import; GeneratedOrganisation
+// sits in the default package on the benchmark side and calls them directly, the benchmarks reach it through this
+// interface with a single implementation so the calls inline as if they were direct
+public interface OrganisationDriver
+{
+    static OrganisationDriver generate(final OrgShape shape)
+    {
+        try {
+            return (OrganisationDriver) Class.forName("GeneratedOrganisation").getConstructor(OrgShape.class).newInstance(shape);
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("GeneratedOrganisation is missing from the benchmark jar", e);
+        }
+    }
+
+    // the generated population, all arrays are in generation order
+    long ceoNumber();
+
+    long[] managerNumbers(); // team leads last
+
+    long[] managerParents(); // who each of managerNumbers reports to
+
+    long[] employeeNumbers();
+
+    long[] employeeManagers(); // the team lead of each employee
+
+    String[] teamNames(); // teamNames[i] is led by the i-th team lead
+
+    long nextFreeNumber();
+
+    String addEmployee(long employeeNumber, long managerNumber);
+
+    String addManager(long employeeNumber, long managerNumber);
+
+    String addTeam(String teamName, long managerId, long[] members);
+
+    String moveTeam(String oldTeam, String newTeam, long employeeNumber);
+
+    String goOnHoliday(long employeeNumber);
+
+    String returnFromHoliday(long employeeNumber);
+
+    String promote(long employeeNumber, long newManagerNumber, boolean isEmployee, String newRole);
+
+    Object getTeam(long employeeNumber);
+
+    Object getTeams(long employeeNumber);
+
+    Object getManager(long employeeNumber);
+
+    Object getEmployee(long employeeNumber);
+
+    int getUnitHeadcount(long employeeNumber);
+}
@@ -0,0 +1,212 @@
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// the organisation's calls returning futures, for callers that cannot block a thread per request. Calls go into one
+// mailbox per organisation and are run in the order they were made, one at a time; a request waiting in the mailbox
+// holds no thread, and a mailbox with work holds one thread however much is queued. Over a journal the mailbox does not
+// wait for the disk: it applies a change, queues it for the journal and moves on, so the changes it gets through while
+// an fsync runs share the next one, and each future completes once its change is on disk. A read therefore sees the
+// changes asked for before it even if they are not on disk yet. On a runtime with virtual threads the mailbox's
+// thread is virtual, so time spent on listeners does not tie up a platform thread
+public class AsyncOrganisation
+{
+    private static final int RUNS_PER_TURN = 64; // a busy mailbox hands its thread back now and then so others get a turn
+
+    private final Function<Operation, CompletableFuture<String>> changes;
+    private final Function<Reorganisation, CompletableFuture<List<String>>> reorganisations;
+    private final Organisation reads;
+    private final Mailbox mailbox;
+
+    public AsyncOrganisation(final Organisation organisation)
+    {
+        this(organisation, DefaultExecutor.INSTANCE);
+    }
+
+    public AsyncOrganisation(final Organisation organisation, final Executor executor)
+    {
+        this(operation -> CompletableFuture.completedFuture(operation.applyTo(organisation)),
+                reorganisation -> CompletableFuture.completedFuture(organisation.reorganise(reorganisation)), organisation, executor);
+    }
+
+    public AsyncOrganisation(final JournaledOrganisation organisation)
+    {
+        this(organisation, DefaultExecutor.INSTANCE);
+    }
+
+    public AsyncOrganisation(final JournaledOrganisation organisation, final Executor executor)
+    {
+        this(operation -> organisation.applyAsync(operation, executor), reorganisation -> organisation.reorganiseAsync(reorganisation, executor),
+                organisation.getOrganisation(), executor);
+    }
+
+    private AsyncOrganisation(final Function<Operation, CompletableFuture<String>> changes, final Function<Reorganisation, CompletableFuture<List<String>>> reorganisations,
+                              final Organisation reads, final Executor executor)
+    {
+        this.changes = changes;
+        this.reorganisations = reorganisations;
+        this.reads = reads;
+        this.mailbox = new Mailbox(executor);
+    }
+
+    // virtual threads when the runtime has them, otherwise a pool that grows with the number of busy mailboxes
+    public static Executor defaultExecutor()
+    {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    public CompletableFuture<String> addEmployee(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return change(Operation.addEmployee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    public CompletableFuture<String> addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return change(Operation.addManager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    public CompletableFuture<String> addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        return change(Operation.addTeam(teamName, managerId, teamMembers));
+    }
+
+    public CompletableFuture<String> moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager)
+    {
+        return change(Operation.moveTeam(oldTeam, newTeam, employeeNumber, isManager));
+    }
+
+    public CompletableFuture<String> goOnHoliday(final long employeeNumber)
+    {
+        return change(Operation.goOnHoliday(employeeNumber));
+    }
+
+    public CompletableFuture<String> returnFromHoliday(final long employeeNumber)
+    {
+        return change(Operation.returnFromHoliday(employeeNumber));
+    }
+
+    public CompletableFuture<String> promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return change(Operation.promote(employeeNumber, newManagerNumber, isEmployee, newRole));
+    }
+
+    public CompletableFuture<List<String>> reorganise(final Reorganisation reorganisation)
+    {
+        return mailbox.postPending(() -> reorganisations.apply(reorganisation));
+    }
+
+    // reads are queued with the changes, so a read sees every change asked for before it and none after
+    public <T> CompletableFuture<T> read(final Function<Organisation, T> query)
+    {
+        return mailbox.post(() -> query.apply(reads));
+    }
+
+    private CompletableFuture<String> change(final Operation operation)
+    {
+        return mailbox.postPending(() -> changes.apply(operation));
+    }
+
+    private static final class Mailbox
+    {
+        private final Executor executor;
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        Mailbox(final Executor executor)
+        {
+            this.executor = executor;
+        }
+
+        <T> CompletableFuture<T> post(final Supplier<T> call)
+        {
+            return postPending(() -> CompletableFuture.completedFuture(call.get()));
+        }
+
+        // the call's own future may complete after the mailbox has moved on to the next call
+        <T> CompletableFuture<T> postPending(final Supplier<CompletableFuture<T>> call)
+        {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            queue.add(() -> {
+                try {
+                    call.get().whenComplete((value, failure) -> {
+                        if(failure == null){
+                            result.complete(value);
+                        } else {
+                            result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                        }
+                    });
+                } catch(Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            schedule();
+            return result;
+        }
+
+        private void schedule()
+        {
+            if(!queue.isEmpty() && running.compareAndSet(false, true)){
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain()
+        {
+            try {
+                Runnable next;
+                for(int run = 0; run < RUNS_PER_TURN && (next = queue.poll()) != null; run++){
+                    next.run();
+                }
+            } finally {
+                running.set(false);
+                schedule(); // picks up anything posted after the last poll
+            }
+        }
+    }
+
+    // looked up at run time as the code is built for runtimes that predate virtual threads
+    private static final class DefaultExecutor
+    {
+        static final Executor INSTANCE = create();
+
+        private static Executor create()
+        {
+            try {
+                final Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) virtual.invoke(null);
+            } catch(ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(work -> {
+                    final Thread worker = new Thread(work, "organisation-mailbox");
+                    worker.setDaemon(true);
+                    return worker;
+                });
+            }
+        }
+    }
+}
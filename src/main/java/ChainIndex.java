@@ -0,0 +1,210 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// answers reporting chain questions over ReportingTree's nodes without walking the chain. Every node gets an enter and
+// an exit label from a depth first tour, so "is A in B's unit" is two comparisons, and a table of its 1st, 2nd, 4th...
+// manager above, so the k-th manager above and the lowest common manager take O(log depth) steps.
+// Labels are spread out with room between them: when a unit is re-linked only that unit is labelled again, inside
+// the free room of its new manager's range, and only when that room runs out is the smallest enclosing unit with
+// enough room relabelled. The index is built on the first question and kept up to date from then on; ReportingTree
+// calls it under its write lock for changes and its read lock for questions
+final class ChainIndex
+{
+    private static final long LABEL_SPACE = Long.MAX_VALUE / 2;
+    private static final long MIN_SPACING = 1L << 10; // a relabelled unit leaves at least this much room per label
+
+    private volatile boolean ready;
+
+    void invalidate()
+    {
+        ready = false;
+    }
+
+    boolean isReady()
+    {
+        return ready;
+    }
+
+    // called for every question, so once built it costs one volatile read and no lock
+    void ensureBuilt(final Collection<ReportingTree.Node> nodes)
+    {
+        if(!ready){
+            build(nodes);
+        }
+    }
+
+    // readers may race to build, the first one does it and the others wait for it and then find it ready
+    private synchronized void build(final Collection<ReportingTree.Node> nodes)
+    {
+        if(ready){
+            return;
+        }
+        final List<ReportingTree.Node> roots = new ArrayList<>();
+        int count = 0;
+        for(ReportingTree.Node node : nodes){
+            count++;
+            if(node.parent == null){
+                roots.add(node);
+            }
+        }
+        final long step = LABEL_SPACE / (2L * count + 1);
+        long next = step;
+        for(ReportingTree.Node root : roots){
+            next = label(root, next, step, false);
+            tables(root);
+        }
+        ready = true;
+    }
+
+    // after node (and its unit) was linked under a new parent
+    void attached(final ReportingTree.Node node)
+    {
+        if(!ready){
+            return;
+        }
+        final ReportingTree.Node parent = node.parent;
+        if(parent.up == null){ // the new manager was added since the index was built and has no labels yet
+            ready = false;
+            return;
+        }
+        final int size = unitSize(node);
+        final long room = (parent.exit - parent.lastUsed) / 2; // keep the other half for whoever joins next
+        final long step = room / (2L * size + 1);
+        if(step >= 1){
+            parent.lastUsed = label(node, parent.lastUsed + step, step, false) - step;
+        } else if(!relabelEnclosingUnit(parent)){
+            ready = false;
+            return;
+        }
+        tables(node);
+    }
+
+    // whether the manager is the person or anyone above them
+    static boolean isInUnit(final ReportingTree.Node person, final ReportingTree.Node manager)
+    {
+        return manager.enter <= person.enter && person.exit <= manager.exit;
+    }
+
+    static ReportingTree.Node managerAbove(ReportingTree.Node person, final int levels)
+    {
+        if(levels < 0 || levels > person.depth){
+            return null;
+        }
+        for(int bit = 0; (levels >>> bit) != 0; bit++){
+            if((levels & (1 << bit)) != 0){
+                person = person.up[bit];
+            }
+        }
+        return person;
+    }
+
+    static ReportingTree.Node lowestCommonManager(ReportingTree.Node first, ReportingTree.Node second)
+    {
+        if(first.depth < second.depth){
+            final ReportingTree.Node swap = first;
+            first = second;
+            second = swap;
+        }
+        first = managerAbove(first, first.depth - second.depth);
+        if(first == second){
+            return first;
+        }
+        for(int bit = first.up.length - 1; bit >= 0; bit--){
+            if(bit < first.up.length && first.up[bit] != second.up[bit]){ // the tables shrink as the pair climbs
+                first = first.up[bit];
+                second = second.up[bit];
+            }
+        }
+        return first.parent == second.parent ? first.parent : null; // null when they sit under different roots
+    }
+
+    // the smallest unit above that has enough room for everyone in it is labelled again evenly
+    private static boolean relabelEnclosingUnit(final ReportingTree.Node from)
+    {
+        for(ReportingTree.Node unit = from; unit != null; unit = unit.parent){
+            final long tokens = 2L * unitSize(unit);
+            final long step = (unit.exit - unit.enter) / tokens;
+            if(step >= MIN_SPACING){
+                final long exit = unit.exit;
+                label(unit, unit.enter, step, true);
+                unit.exit = exit;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // labels the unit depth first from the given label, spaced by step, and returns the label after its exit; the
+    // children are labelled in list order so the last child's exit is the highest label used inside a node
+    private static long label(final ReportingTree.Node top, final long from, final long step, final boolean keepTopEnter)
+    {
+        long next = from;
+        final ArrayDeque<ReportingTree.Node> path = new ArrayDeque<>();
+        final ArrayDeque<Integer> childIndex = new ArrayDeque<>();
+        top.enter = keepTopEnter ? top.enter : next;
+        top.lastUsed = top.enter;
+        next += step;
+        path.push(top);
+        childIndex.push(0);
+        while(!path.isEmpty()){
+            final ReportingTree.Node node = path.peek();
+            final int index = childIndex.pop();
+            if(index < node.children.size()){
+                childIndex.push(index + 1);
+                final ReportingTree.Node child = node.children.get(index);
+                child.enter = next;
+                child.lastUsed = next;
+                next += step;
+                path.push(child);
+                childIndex.push(0);
+            } else {
+                path.pop();
+                node.exit = next;
+                next += step;
+                if(node != top){
+                    node.parent.lastUsed = node.exit;
+                }
+            }
+        }
+        return next;
+    }
+
+    // depth and the power-of-two managers above, parents are always done before their reports
+    private static void tables(final ReportingTree.Node top)
+    {
+        final ArrayDeque<ReportingTree.Node> stack = new ArrayDeque<>();
+        stack.push(top);
+        while(!stack.isEmpty()){
+            final ReportingTree.Node node = stack.pop();
+            final ReportingTree.Node parent = node.parent;
+            node.depth = parent == null ? 0 : parent.depth + 1;
+            final ReportingTree.Node[] up = new ReportingTree.Node[32 - Integer.numberOfLeadingZeros(node.depth)];
+            if(up.length > 0){
+                up[0] = parent;
+                for(int bit = 1; bit < up.length; bit++){
+                    up[bit] = up[bit - 1].up[bit - 1];
+                }
+            }
+            node.up = up;
+            for(ReportingTree.Node child : node.children){
+                stack.push(child);
+            }
+        }
+    }
+
+    private static int unitSize(final ReportingTree.Node top)
+    {
+        int size = 0;
+        final ArrayDeque<ReportingTree.Node> stack = new ArrayDeque<>();
+        stack.push(top);
+        while(!stack.isEmpty()){
+            size++;
+            for(ReportingTree.Node child : stack.pop().children){
+                stack.push(child);
+            }
+        }
+        return size;
+    }
+}
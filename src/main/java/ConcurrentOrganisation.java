@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ConcurrentOrganisation
+{
+    private static final int DEFAULT_STRIPES = 1024;
+
+    // a call locks only the stripes of the people and teams it touches, reads go straight to the concurrent indexes
+    private final Organisation organisation;
+    private final StripedLocks locks;
+    // held shared by every change that stays within its stripes. A manager's holiday change rewrites the cover of
+    // everyone below them and of the teams run by managers away beneath them, which no set of stripes taken up front
+    // can cover, so it holds this exclusively instead
+    private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+    private final SnapshotPublisher publisher; // optional, null when nobody reads snapshots
+    private final OrganisationEventPublisher events; // optional, null when nobody subscribes to changes
+
+    public ConcurrentOrganisation(final Organisation organisation)
+    {
+        this(organisation, DEFAULT_STRIPES, null);
+    }
+
+    public ConcurrentOrganisation(final Organisation organisation, final int stripes)
+    {
+        this(organisation, stripes, null);
+    }
+
+    public ConcurrentOrganisation(final Organisation organisation, final int stripes, final SnapshotPublisher publisher)
+    {
+        this(organisation, stripes, publisher, null);
+    }
+
+    public ConcurrentOrganisation(final Organisation organisation, final int stripes, final SnapshotPublisher publisher, final OrganisationEventPublisher events)
+    {
+        this.organisation = organisation;
+        this.locks = new StripedLocks(stripes);
+        this.publisher = publisher;
+        this.events = events;
+    }
+
+    public CEO getCeo()
+    {
+        return organisation.getCeo();
+    }
+
+    public String addEmployee(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return locked(new int[]{locks.stripeOf(employeeNumber), locks.stripeOf(managerNumber)},
+                () -> organisation.addEmployee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    public String addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return locked(new int[]{locks.stripeOf(employeeNumber)},
+                () -> organisation.addManager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    // a new team ranks and indexes every member and gives its manager the seats, so it holds all of their stripes
+    public String addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        final int[] wanted = new int[teamMembers.size() + 2];
+        int index = 0;
+        wanted[index++] = locks.stripeOf(teamName);
+        wanted[index++] = managerId == null ? wanted[0] : locks.stripeOf(managerId);
+        for(Long member : teamMembers){
+            wanted[index++] = member == null ? wanted[0] : locks.stripeOf(member);
+        }
+        return locked(wanted, () -> organisation.addTeam(teamName, managerId, teamMembers));
+    }
+
+    // the successor is always a member of the old team, so the two team stripes cover them too
+    public String moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager)
+    {
+        return locked(new int[]{locks.stripeOf(oldTeam), locks.stripeOf(newTeam), locks.stripeOf(employeeNumber)},
+                () -> organisation.moveTeam(oldTeam, newTeam, employeeNumber, isManager));
+    }
+
+    public String goOnHoliday(final long employeeNumber)
+    {
+        return lockedOnPerson(employeeNumber, () -> organisation.goOnHoliday(employeeNumber));
+    }
+
+    public String returnFromHoliday(final long employeeNumber)
+    {
+        return lockedOnPerson(employeeNumber, () -> organisation.returnFromHoliday(employeeNumber));
+    }
+
+    public String promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return lockedOnPerson(employeeNumber, () -> organisation.promote(employeeNumber, newManagerNumber, isEmployee, newRole));
+    }
+
+    // runs several steps as one unit, e.g. a move followed by a promotion; the action must stay within the given
+    // teams and people and must call the plain Organisation it is handed, not this wrapper. With a manager among the
+    // people it runs alone, as it may change their holiday and with it the cover of their whole unit
+    public <T> T atomically(final Collection<String> teamNames, final long[] employeeNumbers, final Function<Organisation, T> action)
+    {
+        final int[] wanted = new int[teamNames.size() + employeeNumbers.length];
+        int index = 0;
+        for(String teamName : teamNames){
+            wanted[index++] = locks.stripeOf(teamName);
+        }
+        for(long employeeNumber : employeeNumbers){
+            wanted[index++] = locks.stripeOf(employeeNumber);
+        }
+        while(true){
+            if(anyManager(employeeNumbers)){
+                return exclusively(() -> action.apply(organisation));
+            }
+            structure.readLock().lock();
+            try {
+                final int[] held = locks.lockAll(wanted);
+                try {
+                    if(!anyManager(employeeNumbers)){
+                        return publishing(() -> action.apply(organisation));
+                    }
+                } finally {
+                    locks.unlockAll(held);
+                }
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+    }
+
+    // teams are handed out as copies taken under their stripes, a writer may be resizing the live member set at any
+    // time; a copy is not ranked by seniority
+    public Team getTeam(final long employeeNumber)
+    {
+        final Team team = organisation.getTeam(employeeNumber);
+        return team == null ? null : reading(new int[]{locks.stripeOf(team.getTeamName())}, () -> copyOf(team));
+    }
+
+    public List<Team> getTeams(final long employeeNumber)
+    {
+        final List<Team> teams = organisation.getTeams(employeeNumber);
+        final int[] wanted = new int[teams.size()];
+        for(int i = 0; i < wanted.length; i++){
+            wanted[i] = locks.stripeOf(teams.get(i).getTeamName());
+        }
+        return reading(wanted, () -> {
+            final List<Team> copies = new ArrayList<>(teams.size());
+            for(Team team : teams){
+                copies.add(copyOf(team));
+            }
+            return copies;
+        });
+    }
+
+    public Optional<Manager> getManager(final Long employeeNumber)
+    {
+        return organisation.getManager(employeeNumber);
+    }
+
+    public Optional<Employee> getEmployee(final long employeeNumber)
+    {
+        return organisation.getEmployee(employeeNumber);
+    }
+
+    public int getUnitHeadcount(final long employeeNumber)
+    {
+        return organisation.getUnitHeadcount(employeeNumber);
+    }
+
+    public int getUnitManagers(final long employeeNumber)
+    {
+        return organisation.getUnitManagers(employeeNumber);
+    }
+
+    public int getUnitDirectors(final long employeeNumber)
+    {
+        return organisation.getUnitDirectors(employeeNumber);
+    }
+
+    public boolean isInUnit(final long employeeNumber, final long managerNumber)
+    {
+        return organisation.isInUnit(employeeNumber, managerNumber);
+    }
+
+    public Long getLowestCommonManager(final long firstNumber, final long secondNumber)
+    {
+        return organisation.getLowestCommonManager(firstNumber, secondNumber);
+    }
+
+    public Long getManagerAbove(final long employeeNumber, final int levels)
+    {
+        return organisation.getManagerAbove(employeeNumber, levels);
+    }
+
+    public long[] getManagementChain(final long employeeNumber)
+    {
+        return organisation.getManagementChain(employeeNumber);
+    }
+
+    public PeopleSearch search()
+    {
+        return organisation.search();
+    }
+
+    // a change to one person can reach the rest of their team (successor promotion), so it takes the stripes of every
+    // team they sit in; membership is re-read once locked and the attempt retried if it moved. A change to a manager
+    // runs alone, as their holiday or their move decides the cover of everyone beneath them; a person's stripe keeps
+    // them from being promoted meanwhile, so one found to be a plain employee once locked stays one
+    private <T> T lockedOnPerson(final long employeeNumber, final Supplier<T> action)
+    {
+        while(true){
+            if(organisation.getManager(employeeNumber).isPresent()){
+                return exclusively(action);
+            }
+            final List<Team> teams = organisation.getTeams(employeeNumber);
+            final int[] wanted = new int[teams.size() + 1];
+            wanted[0] = locks.stripeOf(employeeNumber);
+            for(int i = 0; i < teams.size(); i++){
+                wanted[i + 1] = locks.stripeOf(teams.get(i).getTeamName());
+            }
+            structure.readLock().lock();
+            try {
+                final int[] held = locks.lockAll(wanted);
+                try {
+                    if(teams.equals(organisation.getTeams(employeeNumber)) && !organisation.getManager(employeeNumber).isPresent()){
+                        return publishing(action);
+                    }
+                } finally {
+                    locks.unlockAll(held);
+                }
+            } finally {
+                structure.readLock().unlock();
+            }
+        }
+    }
+
+    private boolean anyManager(final long[] employeeNumbers)
+    {
+        for(long employeeNumber : employeeNumbers){
+            if(organisation.getManager(employeeNumber).isPresent()){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> T locked(final int[] wanted, final Supplier<T> action)
+    {
+        structure.readLock().lock();
+        try {
+            final int[] held = locks.lockAll(wanted);
+            try {
+                return publishing(action);
+            } finally {
+                locks.unlockAll(held);
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // as locked, for reads that change nothing and so publish nothing
+    private <T> T reading(final int[] wanted, final Supplier<T> read)
+    {
+        structure.readLock().lock();
+        try {
+            final int[] held = locks.lockAll(wanted);
+            try {
+                return read.get();
+            } finally {
+                locks.unlockAll(held);
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    private static Team copyOf(final Team team)
+    {
+        final long[] members = team.getTeamMembersIds().toArray();
+        final List<Long> memberIds = new ArrayList<>(members.length);
+        for(long member : members){
+            memberIds.add(member);
+        }
+        return new Team(team.getTeamName(), team.getManagerEmployeeId(), memberIds, team.getCurrentManager());
+    }
+
+    // no other change runs meanwhile, so no stripes are needed
+    private <T> T exclusively(final Supplier<T> action)
+    {
+        structure.writeLock().lock();
+        try {
+            return publishing(action);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    // publishing before the locks are released means the snapshot only ever sees finished changes, and each call's
+    // events go out as one batch in the order the changes were made
+    private <T> T publishing(final Supplier<T> action)
+    {
+        try {
+            return action.get();
+        } finally {
+            if(publisher != null){
+                publisher.publish();
+            }
+            if(events != null){
+                events.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+// planned holidays as day ranges. Each person's ranges sit in a TreeMap keyed on the first day so "is X out on D" is one
+// floor lookup; "who is out on D" goes through an interval tree that is rebuilt once per batch, not per range, along
+// with a sorted array of everyone the calendar has a range for
+public class HolidayCalendar
+{
+    public static final class Absence
+    {
+        private final long employeeNumber;
+        private final LocalDate from;
+        private final LocalDate to;
+
+        // both days are included
+        public Absence(final long employeeNumber, final LocalDate from, final LocalDate to)
+        {
+            this.employeeNumber = employeeNumber;
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getEmployeeNumber()
+        {
+            return employeeNumber;
+        }
+
+        public LocalDate getFrom()
+        {
+            return from;
+        }
+
+        public LocalDate getTo()
+        {
+            return to;
+        }
+    }
+
+    // per person, first day -> last day as epoch days; overlapping and touching ranges are merged on the way in
+    private final Map<Long, TreeMap<Long, Long>> rangesByPerson = new HashMap<>();
+    private volatile Index index; // null until asked for after a batch
+
+    private static final class Index
+    {
+        final IntervalNode whoIsOut;
+        final long[] scheduled;
+
+        Index(final IntervalNode whoIsOut, final long[] scheduled)
+        {
+            this.whoIsOut = whoIsOut;
+            this.scheduled = scheduled;
+        }
+    }
+
+    // the calendar as of its last batch for one day, both lists sorted so each question is a binary search over
+    // primitives with no lock
+    public static final class Day
+    {
+        private final long[] scheduled;
+        private final long[] out;
+
+        private Day(final long[] scheduled, final long[] out)
+        {
+            this.scheduled = scheduled;
+            this.out = out;
+        }
+
+        public boolean isScheduled(final long employeeNumber)
+        {
+            return Arrays.binarySearch(scheduled, employeeNumber) >= 0;
+        }
+
+        public boolean isOut(final long employeeNumber)
+        {
+            return Arrays.binarySearch(out, employeeNumber) >= 0;
+        }
+    }
+
+    public synchronized void schedule(final List<Absence> absences)
+    {
+        for(Absence absence : absences){
+            merge(rangesByPerson.computeIfAbsent(absence.getEmployeeNumber(), number -> new TreeMap<>()),
+                    absence.getFrom().toEpochDay(), absence.getTo().toEpochDay());
+        }
+        index = null;
+    }
+
+    public synchronized boolean isOut(final long employeeNumber, final LocalDate date)
+    {
+        final TreeMap<Long, Long> ranges = rangesByPerson.get(employeeNumber);
+        if(ranges == null){
+            return false;
+        }
+        final Entry<Long, Long> range = ranges.floorEntry(date.toEpochDay());
+        return range != null && range.getValue() >= date.toEpochDay();
+    }
+
+    // whether the calendar has ever had a range for this person, people it does not know keep their own holiday flag
+    public synchronized boolean isScheduled(final long employeeNumber)
+    {
+        return rangesByPerson.containsKey(employeeNumber);
+    }
+
+    public synchronized long[] getScheduledPeople()
+    {
+        final long[] people = new long[rangesByPerson.size()];
+        int index = 0;
+        for(Long employeeNumber : rangesByPerson.keySet()){
+            people[index++] = employeeNumber;
+        }
+        return people;
+    }
+
+    // every range as it is held, touching and overlapping ones already merged; scheduling them again rebuilds the calendar
+    public synchronized List<Absence> getAbsences()
+    {
+        final List<Absence> absences = new ArrayList<>();
+        rangesByPerson.forEach((employeeNumber, byFirstDay) -> byFirstDay.forEach((from, to) ->
+                absences.add(new Absence(employeeNumber, LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to)))));
+        return absences;
+    }
+
+    public long[] whoIsOut(final LocalDate date)
+    {
+        return whoIsOut(index(), date);
+    }
+
+    public Day on(final LocalDate date)
+    {
+        final Index current = index();
+        return new Day(current.scheduled, whoIsOut(current, date));
+    }
+
+    private static long[] whoIsOut(final Index current, final LocalDate date)
+    {
+        IntervalNode tree = current.whoIsOut;
+        final long day = date.toEpochDay();
+        final List<Long> out = new ArrayList<>();
+        while(tree != null){
+            tree = tree.collect(day, out);
+        }
+        final long[] people = new long[out.size()];
+        for(int i = 0; i < people.length; i++){
+            people[i] = out.get(i);
+        }
+        Arrays.sort(people);
+        return people;
+    }
+
+    private Index index()
+    {
+        final Index current = index;
+        return current != null ? current : rebuild();
+    }
+
+    private synchronized Index rebuild()
+    {
+        if(index == null){
+            final List<long[]> ranges = new ArrayList<>();
+            rangesByPerson.forEach((employeeNumber, byFirstDay) -> byFirstDay.forEach((from, to) -> ranges.add(new long[]{from, to, employeeNumber})));
+            final long[] scheduled = getScheduledPeople();
+            Arrays.sort(scheduled);
+            index = new Index(IntervalNode.build(ranges), scheduled);
+        }
+        return index;
+    }
+
+    private static void merge(final TreeMap<Long, Long> ranges, long from, long to)
+    {
+        final Entry<Long, Long> before = ranges.floorEntry(from);
+        if(before != null && before.getValue() >= from - 1){
+            from = before.getKey();
+            to = Math.max(to, before.getValue());
+        }
+        Entry<Long, Long> after = ranges.ceilingEntry(from);
+        while(after != null && after.getKey() <= to + 1){
+            to = Math.max(to, after.getValue());
+            ranges.remove(after.getKey());
+            after = ranges.higherEntry(after.getKey());
+        }
+        ranges.put(from, to);
+    }
+
+    // a centred interval tree: each node keeps the ranges covering its centre day twice, by first day and by last day,
+    // so a lookup reads only the ranges that match plus one step per level
+    private static final class IntervalNode
+    {
+        private static final int FROM = 0;
+        private static final int TO = 1;
+        private static final int PERSON = 2;
+
+        private final long centre;
+        private final long[][] byFirstDay;
+        private final long[][] byLastDayDescending;
+        private final IntervalNode before;
+        private final IntervalNode after;
+
+        private IntervalNode(final long centre, final List<long[]> covering, final IntervalNode before, final IntervalNode after)
+        {
+            this.centre = centre;
+            this.byFirstDay = covering.toArray(new long[0][]);
+            Arrays.sort(byFirstDay, Comparator.comparingLong(range -> range[FROM]));
+            this.byLastDayDescending = covering.toArray(new long[0][]);
+            Arrays.sort(byLastDayDescending, Comparator.comparingLong(range -> -range[TO]));
+            this.before = before;
+            this.after = after;
+        }
+
+        static IntervalNode build(final List<long[]> ranges)
+        {
+            if(ranges.isEmpty()){
+                return null;
+            }
+            final long[] firstDays = new long[ranges.size()];
+            for(int i = 0; i < firstDays.length; i++){
+                firstDays[i] = ranges.get(i)[FROM];
+            }
+            Arrays.sort(firstDays);
+            final long centre = firstDays[firstDays.length / 2];
+            final List<long[]> earlier = new ArrayList<>();
+            final List<long[]> covering = new ArrayList<>();
+            final List<long[]> later = new ArrayList<>();
+            for(long[] range : ranges){
+                if(range[TO] < centre){
+                    earlier.add(range);
+                } else if(range[FROM] > centre){
+                    later.add(range);
+                } else {
+                    covering.add(range);
+                }
+            }
+            return new IntervalNode(centre, covering, build(earlier), build(later));
+        }
+
+        // adds the people out on the day from this node and returns the child to carry on with
+        IntervalNode collect(final long day, final List<Long> out)
+        {
+            if(day < centre){
+                for(long[] range : byFirstDay){
+                    if(range[FROM] > day){
+                        break;
+                    }
+                    out.add(range[PERSON]);
+                }
+                return before;
+            }
+            for(long[] range : byLastDayDescending){
+                if(range[TO] < day){
+                    break;
+                }
+                out.add(range[PERSON]);
+            }
+            return day == centre ? null : after;
+        }
+    }
+}
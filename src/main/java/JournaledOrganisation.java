@@ -0,0 +1,342 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// an Organisation whose changes survive a restart: every change is applied in memory and written to the journal, and
+// the call only returns once it is on disk; a change the journal could not keep is undone again. On open the latest
+// checkpoint is loaded and the journal replayed over it
+public class JournaledOrganisation implements Closeable
+{
+    static final String JOURNAL_FILE = "journal.log";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".snapshot";
+
+    private final Path directory;
+    private final Organisation organisation;
+    private final OperationJournal journal;
+    private final ArrayDeque<InFlight> inFlight = new ArrayDeque<>(); // applied and journaled, oldest first, not yet kept
+    private final Object announcing = new Object(); // held while changes are kept, taken before this and never inside it
+
+    private JournaledOrganisation(final Path directory, final Organisation organisation, final OperationJournal journal)
+    {
+        this.directory = directory;
+        this.organisation = organisation;
+        this.journal = journal;
+    }
+
+    // the CEO is only used when the directory holds no checkpoint yet
+    public static JournaledOrganisation open(final Path directory, final CEO ceo) throws IOException
+    {
+        Files.createDirectories(directory);
+        final Path checkpoint = latestCheckpoint(directory);
+        final Organisation organisation;
+        final long checkpointSequence;
+        if(checkpoint == null){
+            organisation = new Organisation(ceo);
+            checkpointSequence = 0L;
+        } else {
+            organisation = MappedSnapshot.open(checkpoint).toOrganisation();
+            checkpointSequence = checkpointSequence(checkpoint);
+        }
+        final OperationJournal journal = OperationJournal.open(directory.resolve(JOURNAL_FILE), checkpointSequence, (operation, sequence) -> operation.applyTo(organisation));
+        syncDirectory(directory); // the journal file may have just been created
+        return new JournaledOrganisation(directory, organisation, journal);
+    }
+
+    public CEO getCeo()
+    {
+        return organisation.getCeo();
+    }
+
+    public String addEmployee(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return apply(Operation.addEmployee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    public String addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return apply(Operation.addManager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
+
+    public String addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        return apply(Operation.addTeam(teamName, managerId, teamMembers));
+    }
+
+    public String moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager)
+    {
+        return apply(Operation.moveTeam(oldTeam, newTeam, employeeNumber, isManager));
+    }
+
+    public String goOnHoliday(final long employeeNumber)
+    {
+        return apply(Operation.goOnHoliday(employeeNumber));
+    }
+
+    public String returnFromHoliday(final long employeeNumber)
+    {
+        return apply(Operation.returnFromHoliday(employeeNumber));
+    }
+
+    public String promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return apply(Operation.promote(employeeNumber, newManagerNumber, isEmployee, newRole));
+    }
+
+    // journaled as one record, a crash part way through writing it loses the whole batch
+    public List<String> reorganise(final Reorganisation reorganisation)
+    {
+        return apply(Operation.reorganise(reorganisation), reorganisation);
+    }
+
+    public Team getTeam(final long employeeNumber)
+    {
+        return organisation.getTeam(employeeNumber);
+    }
+
+    public List<Team> getTeams(final long employeeNumber)
+    {
+        return organisation.getTeams(employeeNumber);
+    }
+
+    public Optional<Manager> getManager(final Long employeeNumber)
+    {
+        return organisation.getManager(employeeNumber);
+    }
+
+    public Optional<Employee> getEmployee(final long employeeNumber)
+    {
+        return organisation.getEmployee(employeeNumber);
+    }
+
+    public int getUnitHeadcount(final long employeeNumber)
+    {
+        return organisation.getUnitHeadcount(employeeNumber);
+    }
+
+    // for reads that have no method here; changes made through it directly are not journaled
+    Organisation getOrganisation()
+    {
+        return organisation;
+    }
+
+    // writes the whole organisation next to the journal and empties the journal; a crash part way through leaves either
+    // the old checkpoint and the full journal, or the new checkpoint and a journal whose records it already covers
+    public synchronized void checkpoint() throws IOException
+    {
+        journal.awaitFlushed();
+        final long sequence = journal.getLastSequence();
+        final Path target = directory.resolve(checkpointName(sequence));
+        final Path temporary = directory.resolve(CHECKPOINT_PREFIX + "tmp");
+        MappedSnapshot.write(organisation, temporary);
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory); // the journal must not be emptied while the rename could still be lost
+        journal.truncate();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)){
+            for(Path file : files){
+                if(!file.equals(target)){
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        journal.close();
+    }
+
+    String apply(final Operation operation)
+    {
+        final Reorganisation single = new Reorganisation();
+        single.add(operation);
+        return apply(operation, single).get(0);
+    }
+
+    // as apply, but returns once the change is applied and queued for the journal instead of waiting for the disk, so
+    // one thread can hand over many changes that then share an fsync; the future completes once the change is kept,
+    // and the keeping runs on the executor rather than on the journal's writer
+    CompletableFuture<String> applyAsync(final Operation operation, final Executor executor)
+    {
+        final Reorganisation single = new Reorganisation();
+        single.add(operation);
+        return applyAsync(operation, single, executor).thenApply(results -> results.get(0));
+    }
+
+    CompletableFuture<List<String>> reorganiseAsync(final Reorganisation reorganisation, final Executor executor)
+    {
+        return applyAsync(Operation.reorganise(reorganisation), reorganisation, executor);
+    }
+
+    private CompletableFuture<List<String>> applyAsync(final Operation operation, final Reorganisation change, final Executor executor)
+    {
+        final InFlight inFlight = start(operation, change);
+        if(inFlight.durable != null){
+            inFlight.durable.whenCompleteAsync((sequence, failure) -> settle(), executor);
+        }
+        return inFlight.result;
+    }
+
+    // fsyncs done so far, each covering every record that was waiting for it
+    long getFlushCount()
+    {
+        return journal.getFlushCount();
+    }
+
+    // the wait for the disk happens outside the lock so callers waiting at the same time share one fsync
+    private List<String> apply(final Operation operation, final Reorganisation change)
+    {
+        final InFlight inFlight = start(operation, change);
+        if(inFlight.durable != null){
+            inFlight.durable.exceptionally(failure -> null).join();
+            settle();
+        }
+        try {
+            return inFlight.result.join();
+        } catch(CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // changes are applied and queued in the same order under the lock, and only a change that was accepted whole is
+    // journaled; one that throws is put back by the organisation and never reaches the journal
+    private InFlight start(final Operation operation, final Reorganisation change)
+    {
+        synchronized(this){
+            final Organisation.Batch batch = organisation.applyBatch(change);
+            if(!batch.isApplied()){ // rejected, nothing changed and nothing to wait for
+                return new InFlight(batch, null);
+            }
+            final CompletableFuture<Long> durable;
+            try {
+                durable = journal.append(operation);
+            } catch(RuntimeException e) {
+                batch.undo();
+                throw e;
+            }
+            final InFlight inFlight = new InFlight(batch, durable);
+            this.inFlight.addLast(inFlight);
+            return inFlight;
+        }
+    }
+
+    // callers sharing an fsync wake up in any order, so whoever gets here keeps every finished change from the head of
+    // the queue on, and a change's events are only announced once it and every change before it are on disk. If the
+    // journal failed, every change it did not make durable is undone, latest first, so the organisation holds what
+    // recovery will find
+    private void settle()
+    {
+        synchronized(announcing){
+            final List<InFlight> kept = new ArrayList<>();
+            final List<InFlight> lost = new ArrayList<>();
+            Throwable failure = null;
+            synchronized(this){
+                while(!inFlight.isEmpty() && inFlight.peekFirst().durable.isDone() && !inFlight.peekFirst().durable.isCompletedExceptionally()){
+                    kept.add(inFlight.pollFirst());
+                }
+                if(!inFlight.isEmpty() && inFlight.peekFirst().durable.isCompletedExceptionally()){
+                    failure = inFlight.peekFirst().durable.handle((sequence, error) -> error).join();
+                    final Iterator<InFlight> latestFirst = inFlight.descendingIterator(); // nothing is written after a failure
+                    while(latestFirst.hasNext()){
+                        final InFlight change = latestFirst.next();
+                        change.batch.undo();
+                        lost.add(change);
+                        latestFirst.remove();
+                    }
+                }
+            }
+            for(InFlight change : kept){
+                change.batch.keep();
+                change.result.complete(change.batch.getResults());
+            }
+            for(InFlight change : lost){
+                change.result.completeExceptionally(failure instanceof IOException ? new UncheckedIOException((IOException) failure) : failure);
+            }
+        }
+    }
+
+    private static final class InFlight
+    {
+        final Organisation.Batch batch;
+        final CompletableFuture<Long> durable; // null for a rejected change
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+
+        InFlight(final Organisation.Batch batch, final CompletableFuture<Long> durable)
+        {
+            this.batch = batch;
+            this.durable = durable;
+            if(durable == null){
+                result.complete(batch.getResults());
+            }
+        }
+    }
+
+    // a rename or a new file is only durable once the directory holding it is forced too
+    static void syncDirectory(final Path directory) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)){
+            channel.force(true);
+        } catch(AccessDeniedException e) {
+            // some platforms cannot open a directory, a rename there is as durable as they make it
+        }
+    }
+
+    private static String checkpointName(final long sequence)
+    {
+        return CHECKPOINT_PREFIX + String.format("%020d", sequence) + CHECKPOINT_SUFFIX;
+    }
+
+    private static long checkpointSequence(final Path checkpoint)
+    {
+        final String name = checkpoint.getFileName().toString();
+        return Long.parseLong(name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length()));
+    }
+
+    private static Path latestCheckpoint(final Path directory) throws IOException
+    {
+        Path latest = null;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)){
+            for(Path file : files){ // names are zero padded so they sort by sequence
+                if(latest == null || file.getFileName().toString().compareTo(latest.getFileName().toString()) > 0){
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+}
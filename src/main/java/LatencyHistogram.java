@@ -0,0 +1,79 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// counts values in log-linear buckets, HDR style: every power of two is split into SUB_BUCKETS equal buckets, so any
+// value is known to within about 3% whatever its size. Recording is one atomic increment and never locks
+public final class LatencyHistogram
+{
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long value)
+    {
+        final long clamped = Math.max(0L, value); // a clock that stepped back records as zero
+        counts.incrementAndGet(indexOf(clamped));
+        if(clamped > max.get()){
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    public long getCount()
+    {
+        long count = 0L;
+        for(int i = 0; i < BUCKETS; i++){
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    // the highest value in the bucket the percentile falls into, 0 when nothing was recorded
+    public long getValueAtPercentile(final double percentile)
+    {
+        final long[] copy = new long[BUCKETS];
+        long count = 0L;
+        for(int i = 0; i < BUCKETS; i++){
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        if(count == 0L){
+            return 0L;
+        }
+        final long wanted = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0L;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += copy[i];
+            if(seen >= wanted){
+                return Math.min(highestIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(final long value)
+    {
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestIn(final int index)
+    {
+        if(index < SUB_BUCKETS){
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
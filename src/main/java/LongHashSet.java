@@ -0,0 +1,208 @@
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+public class LongHashSet
+{
+    // open addressing with linear probing, slots holding FREE are empty so the FREE value itself is tracked on the side
+    private static final long FREE = 0L;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsFree;
+
+    public LongHashSet()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashSet(final int expectedSize)
+    {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(final long key)
+    {
+        if(key == FREE){
+            return containsFree;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(final long key)
+    {
+        if(key == FREE){
+            if(containsFree){
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if(++size >= resizeAt){
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean remove(final long key)
+    {
+        if(key == FREE){
+            if(!containsFree){
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                shiftKeysBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    public void forEach(final LongConsumer action)
+    {
+        if(containsFree){
+            action.accept(FREE);
+        }
+        for(long key : keys){
+            if(key != FREE){
+                action.accept(key);
+            }
+        }
+    }
+
+    // cursor style iteration that allocates nothing:
+    // for(int slot = set.firstSlot(); slot >= 0; slot = set.nextSlot(slot)) { set.keyAt(slot) }
+    public int firstSlot()
+    {
+        return containsFree ? keys.length : nextSlot(-1);
+    }
+
+    public int nextSlot(final int slot)
+    {
+        if(slot >= keys.length){
+            return nextSlot(-1);
+        }
+        for(int next = slot + 1; next < keys.length; next++){
+            if(keys[next] != FREE){
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    public long keyAt(final int slot)
+    {
+        return slot == keys.length ? FREE : keys[slot];
+    }
+
+    public long[] toArray()
+    {
+        final long[] values = new long[size];
+        int index = 0;
+        for(int slot = firstSlot(); slot >= 0; slot = nextSlot(slot)){
+            values[index++] = keyAt(slot);
+        }
+        return values;
+    }
+
+    private int slotOf(final long key)
+    {
+        final long hash = key * 0x9E3779B97F4A7C15L; // fibonacci hashing spreads sequential employee numbers
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // backward shift deletion keeps probe chains intact without tombstones
+    private void shiftKeysBack(int slot)
+    {
+        while(true){
+            final int freed = slot;
+            long key;
+            while(true){
+                slot = (slot + 1) & mask;
+                key = keys[slot];
+                if(key == FREE){
+                    keys[freed] = FREE;
+                    return;
+                }
+                final int home = slotOf(key);
+                // the key can move into the freed slot unless its home lies cyclically in (freed, slot]
+                if(freed <= slot ? (freed >= home || home > slot) : (freed >= home && home > slot)){
+                    break;
+                }
+            }
+            keys[freed] = key;
+        }
+    }
+
+    private void rehash(final int capacity)
+    {
+        final long[] oldKeys = keys;
+        allocate(capacity);
+        for(long key : oldKeys){
+            if(key != FREE){
+                int slot = slotOf(key);
+                while(keys[slot] != FREE){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(final int capacity)
+    {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int tableSizeFor(final int expectedSize)
+    {
+        final int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+public class LongIntHashMap
+{
+    // same layout as LongHashSet with the values in a parallel array; missing keys read as NO_VALUE
+    public static final int NO_VALUE = -1;
+    private static final long FREE = 0L;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsFree;
+    private int freeValue = NO_VALUE;
+
+    public LongIntHashMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntHashMap(final int expectedSize)
+    {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int get(final long key)
+    {
+        if(key == FREE){
+            return containsFree ? freeValue : NO_VALUE;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    // returns the previous value or NO_VALUE
+    public int put(final long key, final int value)
+    {
+        if(key == FREE){
+            final int previous = containsFree ? freeValue : NO_VALUE;
+            if(!containsFree){
+                containsFree = true;
+                size++;
+            }
+            freeValue = value;
+            return previous;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                final int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size >= resizeAt){
+            rehash(keys.length << 1);
+        }
+        return NO_VALUE;
+    }
+
+    public int remove(final long key)
+    {
+        if(key == FREE){
+            if(!containsFree){
+                return NO_VALUE;
+            }
+            containsFree = false;
+            size--;
+            return freeValue;
+        }
+        int slot = slotOf(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                final int previous = values[slot];
+                shiftKeysBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    private int slotOf(final long key)
+    {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void shiftKeysBack(int slot)
+    {
+        while(true){
+            final int freed = slot;
+            long key;
+            while(true){
+                slot = (slot + 1) & mask;
+                key = keys[slot];
+                if(key == FREE){
+                    keys[freed] = FREE;
+                    return;
+                }
+                final int home = slotOf(key);
+                if(freed <= slot ? (freed >= home || home > slot) : (freed >= home && home > slot)){
+                    break;
+                }
+            }
+            keys[freed] = key;
+            values[freed] = values[slot];
+        }
+    }
+
+    private void rehash(final int capacity)
+    {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        for(int old = 0; old < oldKeys.length; old++){
+            if(oldKeys[old] != FREE){
+                int slot = slotOf(oldKeys[old]);
+                while(keys[slot] != FREE){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[old];
+                values[slot] = oldValues[old];
+            }
+        }
+    }
+
+    private void allocate(final int capacity)
+    {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int tableSizeFor(final int expectedSize)
+    {
+        final int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+}
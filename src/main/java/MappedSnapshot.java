@@ -0,0 +1,554 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+// the whole organisation in one column oriented file that is read through a memory mapping: lookups binary search the
+// mapped columns straight away and Employee, Manager and Team objects are only built when a caller asks for one.
+// The header holds the format version, the row counts and the CEO's row; after it every column is stored back to back,
+// all numbers big endian:
+//   long columns   person number, manager number, reports to, start date (people sorted by number, CEO included),
+//                  team manager, team current manager (teams sorted by name), team members, member numbers (sorted)
+//   int columns    first name, last name (string ids), team name (string id), team member start,
+//                  member team start, member teams (team rows in joining order), role strings, string offsets
+//   byte columns   role (index into the role strings), flags
+//   string bytes   UTF-8, every distinct name stored once
+public final class MappedSnapshot
+{
+    private static final int MAGIC = 0x4F524753; // "ORGS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_INTS = 10;
+    private static final long NONE = Long.MIN_VALUE; // a null number or date
+    private static final int NO_TEXT = -1;
+
+    private static final int CONTRACTOR = 1;
+    private static final int ON_HOLIDAY = 2;
+    private static final int MANAGER = 4;
+    private static final int CEO_FLAG = 8;
+
+    private final ByteBuffer buffer;
+    private final int peopleCount;
+    private final int teamCount;
+    private final int memberCount;
+    private final int membershipCount;
+    private final int roleCount;
+    private final int ceoRow;
+
+    private final int personNumbers;
+    private final int managerNumbers;
+    private final int reportsTo;
+    private final int startDates;
+    private final int teamManagers;
+    private final int teamCurrentManagers;
+    private final int teamMembers;
+    private final int memberNumbers;
+    private final int firstNames;
+    private final int lastNames;
+    private final int teamNames;
+    private final int teamMemberStarts;
+    private final int memberTeamStarts;
+    private final int memberTeams;
+    private final int roles;
+    private final int stringOffsets;
+    private final int personRoles;
+    private final int personFlags;
+    private final int stringBytes;
+
+    // built on first use and then shared; a race only builds the same value twice
+    private final AtomicReferenceArray<String> strings;
+    private final AtomicReferenceArray<Employee> people;
+    private final AtomicReferenceArray<Team> teams;
+
+    private MappedSnapshot(final ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+        if(buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC){
+            throw new IOException("Not an organisation snapshot");
+        }
+        if(buffer.getInt(4) != FORMAT_VERSION){
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        peopleCount = buffer.getInt(8);
+        teamCount = buffer.getInt(12);
+        memberCount = buffer.getInt(16);
+        membershipCount = buffer.getInt(20);
+        final int memberTeamCount = buffer.getInt(24);
+        roleCount = buffer.getInt(28);
+        final int stringCount = buffer.getInt(32);
+        ceoRow = buffer.getInt(36);
+
+        int at = HEADER_INTS * Integer.BYTES;
+        personNumbers = at; at += peopleCount * Long.BYTES;
+        managerNumbers = at; at += peopleCount * Long.BYTES;
+        reportsTo = at; at += peopleCount * Long.BYTES;
+        startDates = at; at += peopleCount * Long.BYTES;
+        teamManagers = at; at += teamCount * Long.BYTES;
+        teamCurrentManagers = at; at += teamCount * Long.BYTES;
+        teamMembers = at; at += memberCount * Long.BYTES;
+        memberNumbers = at; at += membershipCount * Long.BYTES;
+        firstNames = at; at += peopleCount * Integer.BYTES;
+        lastNames = at; at += peopleCount * Integer.BYTES;
+        teamNames = at; at += teamCount * Integer.BYTES;
+        teamMemberStarts = at; at += (teamCount + 1) * Integer.BYTES;
+        memberTeamStarts = at; at += (membershipCount + 1) * Integer.BYTES;
+        memberTeams = at; at += memberTeamCount * Integer.BYTES;
+        roles = at; at += roleCount * Integer.BYTES;
+        stringOffsets = at; at += (stringCount + 1) * Integer.BYTES;
+        personRoles = at; at += peopleCount;
+        personFlags = at; at += peopleCount;
+        stringBytes = at;
+        if(at > buffer.capacity() || stringBytes + buffer.getInt(stringOffsets + stringCount * Integer.BYTES) > buffer.capacity()){
+            throw new IOException("Truncated organisation snapshot");
+        }
+
+        this.strings = new AtomicReferenceArray<>(stringCount);
+        this.people = new AtomicReferenceArray<>(peopleCount);
+        this.teams = new AtomicReferenceArray<>(teamCount);
+    }
+
+    public static MappedSnapshot open(final Path file) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Snapshot too large to map: " + channel.size() + " bytes");
+            }
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+        }
+    }
+
+    // the caller must keep the organisation still while this runs, e.g. hold the lock its changes go through
+    public static void write(final Organisation organisation, final Path file) throws IOException
+    {
+        final List<Employee> everyone = new ArrayList<>(organisation.getPeople());
+        everyone.add(organisation.getCeo());
+        everyone.sort(Comparator.comparingLong(Employee::getEmployeeNumber));
+        final List<Team> sortedTeams = new ArrayList<>(organisation.getAllTeams());
+        sortedTeams.sort(Comparator.comparing(Team::getTeamName));
+
+        final Map<String, Integer> stringIds = new LinkedHashMap<>();
+        final Map<String, Integer> roleIds = new LinkedHashMap<>();
+        final Map<String, Integer> teamRows = new HashMap<>();
+        for(int row = 0; row < sortedTeams.size(); row++){
+            teamRows.put(sortedTeams.get(row).getTeamName(), row);
+        }
+
+        // everyone in any team, sorted, with the rows of their teams in the order they joined them
+        final List<Long> members = new ArrayList<>();
+        int memberSlots = 0;
+        for(Team team : sortedTeams){
+            final LongHashSet ids = team.getTeamMembersIds();
+            memberSlots += ids.size();
+            for(int slot = ids.firstSlot(); slot >= 0; slot = ids.nextSlot(slot)){
+                members.add(ids.keyAt(slot));
+            }
+        }
+        final long[] memberIds = members.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        final int[] memberTeamStart = new int[memberIds.length + 1];
+        final List<Integer> memberTeamRows = new ArrayList<>(memberSlots);
+        for(int i = 0; i < memberIds.length; i++){
+            memberTeamStart[i] = memberTeamRows.size();
+            for(Team team : organisation.getTeams(memberIds[i])){
+                memberTeamRows.add(teamRows.get(team.getTeamName()));
+            }
+        }
+        memberTeamStart[memberIds.length] = memberTeamRows.size();
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            final int[] firstNameIds = new int[everyone.size()];
+            final int[] lastNameIds = new int[everyone.size()];
+            final int[] roleRows = new int[everyone.size()];
+            for(int row = 0; row < everyone.size(); row++){
+                firstNameIds[row] = intern(stringIds, everyone.get(row).getFirstName());
+                lastNameIds[row] = intern(stringIds, everyone.get(row).getLastName());
+                roleRows[row] = roleIds.computeIfAbsent(everyone.get(row).getRole(), role -> roleIds.size());
+            }
+            if(roleIds.size() > 255){
+                throw new IOException("Too many distinct roles for a snapshot: " + roleIds.size());
+            }
+            final int[] teamNameIds = new int[sortedTeams.size()];
+            for(int row = 0; row < sortedTeams.size(); row++){
+                teamNameIds[row] = intern(stringIds, sortedTeams.get(row).getTeamName());
+            }
+            final int[] roleStringIds = new int[roleIds.size()];
+            for(Map.Entry<String, Integer> role : roleIds.entrySet()){
+                roleStringIds[role.getValue()] = intern(stringIds, role.getKey());
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(everyone.size());
+            out.writeInt(sortedTeams.size());
+            out.writeInt(memberSlots);
+            out.writeInt(memberIds.length);
+            out.writeInt(memberTeamRows.size());
+            out.writeInt(roleIds.size());
+            out.writeInt(stringIds.size());
+            out.writeInt(everyone.indexOf(organisation.getCeo()));
+
+            for(Employee person : everyone){
+                out.writeLong(person.getEmployeeNumber());
+            }
+            for(Employee person : everyone){
+                writeNumber(out, person.getManagerNumber());
+            }
+            for(Employee person : everyone){
+                writeNumber(out, person instanceof CEO ? null : organisation.getReportsTo(person.getEmployeeNumber()));
+            }
+            for(Employee person : everyone){
+                out.writeLong(person.getStartDate() == null ? NONE : person.getStartDate().getTime());
+            }
+            for(Team team : sortedTeams){
+                writeNumber(out, team.getManagerEmployeeId());
+            }
+            for(Team team : sortedTeams){
+                writeNumber(out, team.getCurrentManager());
+            }
+            for(Team team : sortedTeams){
+                final LongHashSet ids = team.getTeamMembersIds();
+                for(int slot = ids.firstSlot(); slot >= 0; slot = ids.nextSlot(slot)){
+                    out.writeLong(ids.keyAt(slot));
+                }
+            }
+            for(long memberId : memberIds){
+                out.writeLong(memberId);
+            }
+
+            writeInts(out, firstNameIds);
+            writeInts(out, lastNameIds);
+            writeInts(out, teamNameIds);
+            int start = 0;
+            for(Team team : sortedTeams){
+                out.writeInt(start);
+                start += team.getTeamSize();
+            }
+            out.writeInt(start);
+            writeInts(out, memberTeamStart);
+            for(int teamRow : memberTeamRows){
+                out.writeInt(teamRow);
+            }
+            writeInts(out, roleStringIds);
+            final List<byte[]> encoded = new ArrayList<>(stringIds.size());
+            int offset = 0;
+            for(String text : stringIds.keySet()){
+                final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+
+            for(int roleRow : roleRows){
+                out.writeByte(roleRow);
+            }
+            for(Employee person : everyone){
+                out.writeByte((person.isContractor() ? CONTRACTOR : 0)
+                        | (person.isOnHoliday() ? ON_HOLIDAY : 0)
+                        | (person instanceof Manager ? MANAGER : 0)
+                        | (person instanceof CEO ? CEO_FLAG : 0));
+            }
+            for(byte[] bytes : encoded){
+                out.write(bytes);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    public int getPeopleCount() // employees and managers, not the CEO
+    {
+        return peopleCount - 1;
+    }
+
+    public int getTeamCount()
+    {
+        return teamCount;
+    }
+
+    public CEO getCeo()
+    {
+        return (CEO) person(ceoRow);
+    }
+
+    public Optional<Manager> getManager(final Long employeeNumber)
+    {
+        final int row = employeeNumber == null ? -1 : personRow(employeeNumber);
+        return row < 0 || (flags(row) & (MANAGER | CEO_FLAG)) != MANAGER ? Optional.empty() : Optional.of((Manager) person(row));
+    }
+
+    public Optional<Employee> getEmployee(final long employeeNumber)
+    { // plain employees only, as Organisation.getEmployee
+        final int row = personRow(employeeNumber);
+        return row < 0 || (flags(row) & (MANAGER | CEO_FLAG)) != 0 ? Optional.empty() : Optional.of(person(row));
+    }
+
+    // answered from the columns alone, no objects are built
+    public Long getManagerNumber(final long employeeNumber)
+    {
+        final int row = personRow(employeeNumber);
+        return row < 0 ? null : number(managerNumbers, row);
+    }
+
+    public Long getReportsTo(final long employeeNumber)
+    {
+        final int row = personRow(employeeNumber);
+        return row < 0 ? null : number(reportsTo, row);
+    }
+
+    public String getTeamName(final long employeeNumber)
+    {
+        final int memberRow = memberRow(employeeNumber);
+        if(memberRow < 0){
+            return null;
+        }
+        final int last = buffer.getInt(memberTeamStarts + (memberRow + 1) * Integer.BYTES) - 1;
+        return text(buffer.getInt(teamNames + buffer.getInt(memberTeams + last * Integer.BYTES) * Integer.BYTES));
+    }
+
+    public Team getTeam(final long employeeNumber) // the team most recently joined, as Organisation.getTeam
+    {
+        final List<Team> memberOf = getTeams(employeeNumber);
+        return memberOf.isEmpty() ? null : memberOf.get(memberOf.size() - 1);
+    }
+
+    public List<Team> getTeams(final long employeeNumber)
+    {
+        final int memberRow = memberRow(employeeNumber);
+        if(memberRow < 0){
+            return Collections.emptyList();
+        }
+        final int from = buffer.getInt(memberTeamStarts + memberRow * Integer.BYTES);
+        final int to = buffer.getInt(memberTeamStarts + (memberRow + 1) * Integer.BYTES);
+        final List<Team> memberOf = new ArrayList<>(to - from);
+        for(int i = from; i < to; i++){
+            memberOf.add(team(buffer.getInt(memberTeams + i * Integer.BYTES)));
+        }
+        return memberOf;
+    }
+
+    // rows in employee number order, the CEO's included, read straight from the columns for walking everyone
+    int getRowCount()
+    {
+        return peopleCount;
+    }
+
+    long numberAt(final int row)
+    {
+        return buffer.getLong(personNumbers + row * Long.BYTES);
+    }
+
+    Long reportsToAt(final int row)
+    {
+        return number(reportsTo, row);
+    }
+
+    String roleAt(final int row)
+    {
+        return text(buffer.getInt(roles + (buffer.get(personRoles + row) & 0xFF) * Integer.BYTES));
+    }
+
+    boolean isOnHolidayAt(final int row)
+    {
+        return (flags(row) & ON_HOLIDAY) != 0;
+    }
+
+    // in joining order, without building the teams
+    List<String> getTeamNames(final long employeeNumber)
+    {
+        final int memberRow = memberRow(employeeNumber);
+        if(memberRow < 0){
+            return Collections.emptyList();
+        }
+        final int from = buffer.getInt(memberTeamStarts + memberRow * Integer.BYTES);
+        final int to = buffer.getInt(memberTeamStarts + (memberRow + 1) * Integer.BYTES);
+        final List<String> names = new ArrayList<>(to - from);
+        for(int i = from; i < to; i++){
+            names.add(text(buffer.getInt(teamNames + buffer.getInt(memberTeams + i * Integer.BYTES) * Integer.BYTES)));
+        }
+        return names;
+    }
+
+    // builds a live, independent Organisation from the file, for when the service has to start taking changes again
+    public Organisation toOrganisation()
+    {
+        return toOrganisation(UnaryOperator.identity());
+    }
+
+    // as above with every name and role passed through shared first, and those of people added or promoted later, so
+    // organisations loaded with the same pool hold one copy of each distinct string between them
+    public Organisation toOrganisation(final UnaryOperator<String> shared)
+    {
+        for(int id = 0; id < strings.length(); id++){
+            strings.set(id, shared.apply(text(id)));
+        }
+        final CEO ceo = (CEO) build(ceoRow);
+        final List<Employee> everyone = new ArrayList<>(peopleCount);
+        final Map<Long, Long> reportingLines = new HashMap<>(Math.max(16, (int) (peopleCount / 0.75f) + 1));
+        for(int row = 0; row < peopleCount; row++){
+            if(row != ceoRow){
+                final Employee person = build(row);
+                everyone.add(person);
+                reportingLines.put(person.getEmployeeNumber(), number(reportsTo, row));
+            }
+        }
+        final List<Team> allTeams = new ArrayList<>(teamCount);
+        for(int row = 0; row < teamCount; row++){
+            allTeams.add(buildTeam(row));
+        }
+        final Map<Long, List<String>> memberships = new LinkedHashMap<>(Math.max(16, (int) (membershipCount / 0.75f) + 1));
+        for(int memberRow = 0; memberRow < membershipCount; memberRow++){
+            final int from = buffer.getInt(memberTeamStarts + memberRow * Integer.BYTES);
+            final int to = buffer.getInt(memberTeamStarts + (memberRow + 1) * Integer.BYTES);
+            final List<String> joined = new ArrayList<>(to - from);
+            for(int i = from; i < to; i++){
+                joined.add(allTeams.get(buffer.getInt(memberTeams + i * Integer.BYTES)).getTeamName());
+            }
+            memberships.put(buffer.getLong(memberNumbers + memberRow * Long.BYTES), joined);
+        }
+        final Organisation organisation = new Organisation(ceo, everyone.size(), allTeams.size());
+        organisation.loadSnapshot(everyone, allTeams, person -> reportingLines.get(person.getEmployeeNumber()), memberships);
+        organisation.shareStrings(shared); // and everyone added from now on
+        return organisation;
+    }
+
+    private Employee person(final int row)
+    {
+        final Employee cached = people.get(row);
+        if(cached != null){
+            return cached;
+        }
+        final Employee built = build(row);
+        return people.compareAndSet(row, null, built) ? built : people.get(row);
+    }
+
+    private Team team(final int row)
+    {
+        final Team cached = teams.get(row);
+        if(cached != null){
+            return cached;
+        }
+        final Team built = buildTeam(row);
+        return teams.compareAndSet(row, null, built) ? built : teams.get(row);
+    }
+
+    private Employee build(final int row)
+    {
+        final String firstName = text(buffer.getInt(firstNames + row * Integer.BYTES));
+        final String lastName = text(buffer.getInt(lastNames + row * Integer.BYTES));
+        final String role = text(buffer.getInt(roles + (buffer.get(personRoles + row) & 0xFF) * Integer.BYTES));
+        final long start = buffer.getLong(startDates + row * Long.BYTES);
+        final Date startDate = start == NONE ? null : new Date(start);
+        final int flags = flags(row);
+        final long employeeNumber = buffer.getLong(personNumbers + row * Long.BYTES);
+        final Long managerNumber = number(managerNumbers, row);
+        if((flags & CEO_FLAG) != 0){
+            return new CEO(firstName, lastName, role, startDate, false, employeeNumber, null, (flags & ON_HOLIDAY) != 0);
+        }
+        if((flags & MANAGER) != 0){
+            return new Manager(firstName, lastName, role, startDate, (flags & CONTRACTOR) != 0, employeeNumber, managerNumber, (flags & ON_HOLIDAY) != 0);
+        }
+        return new Employee(firstName, lastName, role, startDate, (flags & CONTRACTOR) != 0, employeeNumber, managerNumber, (flags & ON_HOLIDAY) != 0);
+    }
+
+    private Team buildTeam(final int row)
+    {
+        final int from = buffer.getInt(teamMemberStarts + row * Integer.BYTES);
+        final int to = buffer.getInt(teamMemberStarts + (row + 1) * Integer.BYTES);
+        final Long[] members = new Long[to - from];
+        for(int i = from; i < to; i++){
+            members[i - from] = buffer.getLong(teamMembers + i * Long.BYTES);
+        }
+        return new Team(text(buffer.getInt(teamNames + row * Integer.BYTES)), number(teamManagers, row), Arrays.asList(members), number(teamCurrentManagers, row));
+    }
+
+    private int personRow(final long employeeNumber)
+    {
+        return search(personNumbers, peopleCount, employeeNumber);
+    }
+
+    private int memberRow(final long employeeNumber)
+    {
+        return search(memberNumbers, membershipCount, employeeNumber);
+    }
+
+    private int search(final int column, final int count, final long key)
+    {
+        int low = 0;
+        int high = count - 1;
+        while(low <= high){
+            final int middle = (low + high) >>> 1;
+            final long value = buffer.getLong(column + middle * Long.BYTES);
+            if(value < key){
+                low = middle + 1;
+            } else if(value > key){
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int flags(final int row)
+    {
+        return buffer.get(personFlags + row);
+    }
+
+    private Long number(final int column, final int row)
+    {
+        final long value = buffer.getLong(column + row * Long.BYTES);
+        return value == NONE ? null : value;
+    }
+
+    private String text(final int id)
+    {
+        if(id == NO_TEXT){
+            return null;
+        }
+        final String cached = strings.get(id);
+        if(cached != null){
+            return cached;
+        }
+        final int from = buffer.getInt(stringOffsets + id * Integer.BYTES);
+        final int to = buffer.getInt(stringOffsets + (id + 1) * Integer.BYTES);
+        final byte[] bytes = new byte[to - from];
+        buffer.get(stringBytes + from, bytes);
+        final String decoded = new String(bytes, StandardCharsets.UTF_8);
+        strings.compareAndSet(id, null, decoded);
+        return decoded;
+    }
+
+    private static int intern(final Map<String, Integer> stringIds, final String text)
+    {
+        return text == null ? NO_TEXT : stringIds.computeIfAbsent(text, added -> stringIds.size());
+    }
+
+    private static void writeNumber(final DataOutputStream out, final Long value) throws IOException
+    {
+        out.writeLong(value == null ? NONE : value);
+    }
+
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException
+    {
+        for(int value : values){
+            out.writeInt(value);
+        }
+    }
+}
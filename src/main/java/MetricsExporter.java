@@ -0,0 +1,28 @@
+import java.io.PrintStream;
+
+// where OrganisationMetrics.exportTo sends what has been recorded so far
+public interface MetricsExporter
+{
+    void export(OrganisationMetrics.Snapshot snapshot);
+
+    // a line per call type that has been made and per scan, for logs
+    static MetricsExporter printingTo(final PrintStream out)
+    {
+        return snapshot -> {
+            for(OrganisationMetrics.Call call : OrganisationMetrics.Call.values()){
+                if(snapshot.getCalls(call) > 0){
+                    out.println(call + " calls=" + snapshot.getCalls(call)
+                            + " p50=" + snapshot.getLatencyAtPercentile(call, 50.0) + "ns"
+                            + " p99=" + snapshot.getLatencyAtPercentile(call, 99.0) + "ns"
+                            + " max=" + snapshot.getMaxLatency(call) + "ns"
+                            + " rejected=" + snapshot.getRejections(call));
+                }
+            }
+            for(OrganisationMetrics.Scan scan : OrganisationMetrics.Scan.values()){
+                if(snapshot.getScans(scan) > 0){
+                    out.println(scan + " scans=" + snapshot.getScans(scan) + " visited=" + snapshot.getScanned(scan));
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// one public mutation of an Organisation with its arguments, so it can be written down and applied again later
+public final class Operation
+{
+    public enum Type
+    {
+        ADD_EMPLOYEE,
+        ADD_MANAGER,
+        ADD_TEAM,
+        MOVE_TEAM,
+        GO_ON_HOLIDAY,
+        RETURN_FROM_HOLIDAY,
+        PROMOTE,
+        REORGANISE
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final String firstName;
+    private final String lastName;
+    private final String role; // the new role for PROMOTE
+    private final long startDate;
+    private final boolean isContractor;
+    private final long employeeNumber;
+    private final long managerNumber; // the new manager for PROMOTE
+    private final boolean flag; // isOnHoliday, isManager for MOVE_TEAM, isEmployee for PROMOTE
+    private final String teamName; // the old team for MOVE_TEAM
+    private final String newTeam;
+    private final Long managerId;
+    private final long[] members;
+    private final List<Operation> steps; // for REORGANISE
+
+    private Operation(
+            final Type type,
+            final String firstName,
+            final String lastName,
+            final String role,
+            final long startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean flag,
+            final String teamName,
+            final String newTeam,
+            final Long managerId,
+            final long[] members
+    )
+    {
+        this.type = type;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.role = role;
+        this.startDate = startDate;
+        this.isContractor = isContractor;
+        this.employeeNumber = employeeNumber;
+        this.managerNumber = managerNumber;
+        this.flag = flag;
+        this.teamName = teamName;
+        this.newTeam = newTeam;
+        this.managerId = managerId;
+        this.members = members;
+        this.steps = null;
+    }
+
+    private Operation(final List<Operation> steps)
+    {
+        this.type = Type.REORGANISE;
+        this.firstName = null;
+        this.lastName = null;
+        this.role = null;
+        this.startDate = 0L;
+        this.isContractor = false;
+        this.employeeNumber = 0L;
+        this.managerNumber = 0L;
+        this.flag = false;
+        this.teamName = null;
+        this.newTeam = null;
+        this.managerId = null;
+        this.members = null;
+        this.steps = List.copyOf(steps);
+    }
+
+    public static Operation addEmployee(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return new Operation(Type.ADD_EMPLOYEE, firstName, lastName, role, startDate.getTime(), isContractor, employeeNumber, managerNumber, isOnHoliday, null, null, null, null);
+    }
+
+    public static Operation addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        return new Operation(Type.ADD_MANAGER, firstName, lastName, role, startDate.getTime(), isContractor, employeeNumber, managerNumber, isOnHoliday, null, null, null, null);
+    }
+
+    public static Operation addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        final long[] members = new long[teamMembers.size()];
+        for(int i = 0; i < members.length; i++){
+            members[i] = teamMembers.get(i);
+        }
+        return new Operation(Type.ADD_TEAM, null, null, null, 0L, false, 0L, 0L, false, teamName, null, managerId, members);
+    }
+
+    public static Operation moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager)
+    {
+        return new Operation(Type.MOVE_TEAM, null, null, null, 0L, false, employeeNumber, 0L, isManager, oldTeam, newTeam, null, null);
+    }
+
+    public static Operation goOnHoliday(final long employeeNumber)
+    {
+        return new Operation(Type.GO_ON_HOLIDAY, null, null, null, 0L, false, employeeNumber, 0L, false, null, null, null, null);
+    }
+
+    public static Operation returnFromHoliday(final long employeeNumber)
+    {
+        return new Operation(Type.RETURN_FROM_HOLIDAY, null, null, null, 0L, false, employeeNumber, 0L, false, null, null, null, null);
+    }
+
+    public static Operation promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return new Operation(Type.PROMOTE, null, null, newRole, 0L, false, employeeNumber, newManagerNumber, isEmployee, null, null, null, null);
+    }
+
+    // the whole batch as one record, so it is replayed all together or not at all like it was first applied
+    public static Operation reorganise(final Reorganisation reorganisation)
+    {
+        return new Operation(reorganisation.getOperations());
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public long getEmployeeNumber()
+    {
+        return employeeNumber;
+    }
+
+    public String getTeamName()
+    {
+        return teamName;
+    }
+
+    public String getNewTeam()
+    {
+        return newTeam;
+    }
+
+    public String applyTo(final Organisation organisation)
+    {
+        switch(type){
+            case ADD_EMPLOYEE:
+                return organisation.addEmployee(firstName, lastName, role, new Date(startDate), isContractor, employeeNumber, managerNumber, flag);
+            case ADD_MANAGER:
+                return organisation.addManager(firstName, lastName, role, new Date(startDate), isContractor, employeeNumber, managerNumber, flag);
+            case ADD_TEAM:
+                final List<Long> teamMembers = new ArrayList<>(members.length);
+                for(long member : members){
+                    teamMembers.add(member);
+                }
+                return organisation.addTeam(teamName, managerId, teamMembers);
+            case MOVE_TEAM:
+                return organisation.moveTeam(teamName, newTeam, employeeNumber, flag);
+            case GO_ON_HOLIDAY:
+                return organisation.goOnHoliday(employeeNumber);
+            case RETURN_FROM_HOLIDAY:
+                return organisation.returnFromHoliday(employeeNumber);
+            case PROMOTE:
+                return organisation.promote(employeeNumber, managerNumber, flag, role);
+            case REORGANISE:
+                final Reorganisation reorganisation = new Reorganisation();
+                for(Operation step : steps){
+                    reorganisation.add(step);
+                }
+                for(String result : organisation.reorganise(reorganisation)){
+                    if(!result.equals(Organisation.SUCCESS) && !result.equals(Organisation.ROLLED_BACK)){
+                        return result;
+                    }
+                }
+                return Organisation.SUCCESS;
+            default:
+                throw new IllegalStateException("Unknown operation " + type);
+        }
+    }
+
+    // a type byte followed by only the fields that type uses
+    public void writeTo(final DataOutput out) throws IOException
+    {
+        out.writeByte(type.ordinal());
+        switch(type){
+            case ADD_EMPLOYEE:
+            case ADD_MANAGER:
+                writeText(out, firstName);
+                writeText(out, lastName);
+                writeText(out, role);
+                out.writeLong(startDate);
+                out.writeBoolean(isContractor);
+                out.writeLong(employeeNumber);
+                out.writeLong(managerNumber);
+                out.writeBoolean(flag);
+                break;
+            case ADD_TEAM:
+                writeText(out, teamName);
+                out.writeBoolean(managerId != null);
+                if(managerId != null){
+                    out.writeLong(managerId);
+                }
+                out.writeInt(members.length);
+                for(long member : members){
+                    out.writeLong(member);
+                }
+                break;
+            case MOVE_TEAM:
+                writeText(out, teamName);
+                writeText(out, newTeam);
+                out.writeLong(employeeNumber);
+                out.writeBoolean(flag);
+                break;
+            case GO_ON_HOLIDAY:
+            case RETURN_FROM_HOLIDAY:
+                out.writeLong(employeeNumber);
+                break;
+            case PROMOTE:
+                out.writeLong(employeeNumber);
+                out.writeLong(managerNumber);
+                out.writeBoolean(flag);
+                writeText(out, role);
+                break;
+            case REORGANISE:
+                out.writeInt(steps.size());
+                for(Operation step : steps){
+                    step.writeTo(out);
+                }
+                break;
+        }
+    }
+
+    public static Operation readFrom(final DataInput in) throws IOException
+    {
+        final int ordinal = in.readUnsignedByte();
+        if(ordinal >= TYPES.length){
+            throw new IOException("Unknown operation type " + ordinal);
+        }
+        switch(TYPES[ordinal]){
+            case ADD_EMPLOYEE:
+            case ADD_MANAGER:
+                return new Operation(TYPES[ordinal], readText(in), readText(in), readText(in), in.readLong(), in.readBoolean(),
+                        in.readLong(), in.readLong(), in.readBoolean(), null, null, null, null);
+            case ADD_TEAM:
+                final String teamName = readText(in);
+                final Long managerId = in.readBoolean() ? (Long) in.readLong() : null;
+                final int size = in.readInt();
+                if(size < 0){
+                    throw new IOException("Invalid team size " + size);
+                }
+                final long[] members = new long[size];
+                for(int i = 0; i < size; i++){
+                    members[i] = in.readLong();
+                }
+                return new Operation(Type.ADD_TEAM, null, null, null, 0L, false, 0L, 0L, false, teamName, null, managerId, members);
+            case MOVE_TEAM:
+                final String oldTeam = readText(in);
+                final String newTeam = readText(in);
+                return moveTeam(oldTeam, newTeam, in.readLong(), in.readBoolean());
+            case GO_ON_HOLIDAY:
+                return goOnHoliday(in.readLong());
+            case RETURN_FROM_HOLIDAY:
+                return returnFromHoliday(in.readLong());
+            case PROMOTE:
+                final long employeeNumber = in.readLong();
+                final long newManagerNumber = in.readLong();
+                final boolean isEmployee = in.readBoolean();
+                return promote(employeeNumber, newManagerNumber, isEmployee, readText(in));
+            default:
+                final int count = in.readInt();
+                if(count < 0){
+                    throw new IOException("Invalid reorganisation size " + count);
+                }
+                final List<Operation> steps = new ArrayList<>(count);
+                for(int i = 0; i < count; i++){
+                    steps.add(readFrom(in));
+                }
+                return new Operation(steps);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        if(steps != null){
+            return type + " " + steps;
+        }
+        return type + " " + (teamName != null ? teamName : String.valueOf(employeeNumber));
+    }
+
+    private static void writeText(final DataOutput out, final String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if(value != null){
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readText(final DataInput in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
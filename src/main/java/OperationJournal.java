@@ -0,0 +1,277 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+// append only log of operations; each record is [int payload length][long sequence][payload][int crc32 of sequence
+// and payload]. Appends are queued and a single writer thread writes whatever has built up and forces it to disk
+// once, so callers arriving while an fsync is running share the next one
+public class OperationJournal implements Closeable
+{
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private static final class Pending
+    {
+        final long sequence;
+        final byte[] payload;
+        final CompletableFuture<Long> durable = new CompletableFuture<>();
+
+        Pending(final long sequence, final byte[] payload)
+        {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Thread writer;
+    private List<Pending> queue = new ArrayList<>();
+    private long lastSequence;
+    private long flushedSequence;
+    private long flushCount;
+    private boolean closed;
+    private IOException failure; // once a write fails nothing more is accepted
+
+    // reads every intact record into replay, cuts off a record torn by a crash and leaves the file ready for appends
+    public static OperationJournal open(final Path file, final long lastSequence, final ObjLongConsumer<Operation> replay) throws IOException
+    {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final long[] end = new long[]{0L, lastSequence};
+            scan(channel, end, replay);
+            if(end[0] < channel.size()){
+                channel.truncate(end[0]);
+                channel.force(true);
+            }
+            channel.position(end[0]);
+            return new OperationJournal(channel, end[1]);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private OperationJournal(final FileChannel channel, final long lastSequence)
+    {
+        this.channel = channel;
+        this.lastSequence = lastSequence;
+        this.flushedSequence = lastSequence;
+        this.writer = new Thread(this::writeLoop, "operation-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // the future completes with the operation's sequence number once it is on disk
+    public CompletableFuture<Long> append(final Operation operation)
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            operation.writeTo(new DataOutputStream(bytes));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final Pending pending;
+        synchronized(this){
+            if(closed || failure != null){
+                return CompletableFuture.failedFuture(failure != null ? failure : new IOException("Journal is closed"));
+            }
+            pending = new Pending(++lastSequence, bytes.toByteArray());
+            queue.add(pending);
+            notifyAll();
+        }
+        return pending.durable;
+    }
+
+    public synchronized long getLastSequence()
+    {
+        return lastSequence;
+    }
+
+    public synchronized long getFlushCount()
+    {
+        return flushCount;
+    }
+
+    // waits until everything appended so far is on disk
+    public synchronized void awaitFlushed() throws IOException
+    {
+        boolean interrupted = false;
+        while(flushedSequence < lastSequence && failure == null){
+            try {
+                wait();
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    // drops every record, used once a checkpoint covers them; sequence numbers carry on from where they were
+    public synchronized void truncate() throws IOException
+    {
+        awaitFlushed();
+        channel.truncate(0L);
+        channel.position(0L);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        synchronized(this){
+            if(closed){
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while(writer.isAlive()){
+            try {
+                writer.join();
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeLoop()
+    {
+        final CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while(true){
+            final List<Pending> batch;
+            synchronized(this){
+                while(queue.isEmpty() && !closed){
+                    try {
+                        wait();
+                    } catch(InterruptedException e) {
+                        // only close stops the writer
+                    }
+                }
+                if(queue.isEmpty()){
+                    return;
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+            }
+            IOException error = null;
+            try {
+                int needed = 0;
+                for(Pending pending : batch){
+                    needed += HEADER_BYTES + pending.payload.length + Integer.BYTES;
+                }
+                if(buffer.capacity() < needed){
+                    buffer = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+                }
+                buffer.clear();
+                for(Pending pending : batch){
+                    crc.reset();
+                    buffer.putInt(pending.payload.length);
+                    final int sequenceAt = buffer.position();
+                    buffer.putLong(pending.sequence);
+                    buffer.put(pending.payload);
+                    crc.update(buffer.array(), sequenceAt, Long.BYTES + pending.payload.length);
+                    buffer.putInt((int) crc.getValue());
+                }
+                buffer.flip();
+                while(buffer.hasRemaining()){
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch(IOException e) {
+                error = e;
+            }
+            synchronized(this){
+                if(error == null){
+                    flushedSequence = batch.get(batch.size() - 1).sequence;
+                    flushCount++;
+                } else {
+                    failure = error;
+                    batch.addAll(queue);
+                    queue.clear();
+                }
+                notifyAll();
+            }
+            for(Pending pending : batch){
+                if(error == null){
+                    pending.durable.complete(pending.sequence);
+                } else {
+                    pending.durable.completeExceptionally(error);
+                }
+            }
+            if(error != null){
+                return;
+            }
+        }
+    }
+
+    // end[0] is set to the end of the last intact record and end[1] to the highest sequence seen; records at or below
+    // the sequence passed in were already covered by a checkpoint and are skipped
+    private static void scan(final FileChannel channel, final long[] end, final ObjLongConsumer<Operation> replay) throws IOException
+    {
+        final long coveredUpTo = end[1];
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        final CRC32 crc = new CRC32();
+        long position = 0L;
+        while(position + HEADER_BYTES + Integer.BYTES <= size){
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            final int length = header.getInt();
+            final long sequence = header.getLong();
+            if(length < 0 || length > MAX_PAYLOAD_BYTES || position + HEADER_BYTES + length + Integer.BYTES > size){
+                break;
+            }
+            final ByteBuffer body = ByteBuffer.allocate(length + Integer.BYTES);
+            readFully(channel, body, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(header.array(), Integer.BYTES, Long.BYTES);
+            crc.update(body.array(), 0, length);
+            if(body.getInt(length) != (int) crc.getValue()){
+                break;
+            }
+            if(sequence > coveredUpTo){
+                replay.accept(Operation.readFrom(new DataInputStream(new ByteArrayInputStream(body.array(), 0, length))), sequence);
+            }
+            end[1] = Math.max(end[1], sequence);
+            position += HEADER_BYTES + length + Integer.BYTES;
+        }
+        end[0] = position;
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException
+    {
+        long at = position;
+        while(buffer.hasRemaining()){
+            final int read = channel.read(buffer, at);
+            if(read < 0){
+                throw new IOException("Unexpected end of journal");
+            }
+            at += read;
+        }
+    }
+}
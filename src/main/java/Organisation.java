@@ -1,16 +1,47 @@
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class Organisation
 {
 
-    private static final String SUCCESS = "Success";
-    private static final String EMPLOYEE_NON_UNIQUE_ID_ERROR = "Employee with that employee number already exists, please enter a unique value";
+    static final String SUCCESS = "Success";
+    static final String EMPLOYEE_NON_UNIQUE_ID_ERROR = "Employee with that employee number already exists, please enter a unique value";
+    static final String INVALID_ROLE_ERROR = "Invalid role - enter correct role";
+    static final String INVALID_MANAGER_ERROR = "Invalid Manager - Manager id must be valid";
+    static final String CONTRACTOR_MANAGER_ERROR = "Contractors cannot be managers";
+    static final String TEAM_NAME_NOT_UNIQUE_ERROR = "Invalid team name - team name must be unique";
+    static final String ROLLED_BACK = "Not applied - another change in the batch failed";
+    static final String REPORTING_LOOP_ERROR = "Invalid Manager - cannot report to someone in their own unit";
     // making this final means we can only have one instance
     private final CEO ceo;
-    private final List<Employee> employees = new ArrayList<>();
-    private final List<Manager> managers = new ArrayList<>();
-    private final List<Team> teams = new ArrayList<>();
+    // employees and managers share one index keyed by employee number, managers are told apart by type
+    private final Map<Long, Employee> employeesByNumber;
+    private final Map<String, Team> teamsByName;
+    // reverse membership index, a person's teams are kept in the order they joined them; the lists are replaced
+    // rather than changed so they can be read while another thread updates them
+    private final Map<Long, List<Team>> teamsByMember;
+    // the teams each manager runs, kept the same way, so holiday cover only touches the teams it changes
+    private final Map<Long, List<Team>> teamsByManager;
+    // reporting lines with cached unit totals, used for promotion eligibility
+    private final ReportingTree reportingTree;
+    // planned holidays, the isOnHoliday flags follow it when applyHolidays is called for a day
+    private final HolidayCalendar holidayCalendar = new HolidayCalendar();
+    private final List<OrganisationListener> listeners = new CopyOnWriteArrayList<>();
+    // built by the first search and kept up to date from then on, organisations nobody searches do not pay for it
+    private volatile PeopleSearch peopleSearch;
+    private volatile OrganisationMetrics metrics = OrganisationMetrics.DISABLED;
+    // set while a reorganisation runs on a thread, each thread records only into its own
+    private final ThreadLocal<Rollback> rollback = new ThreadLocal<>();
+    // how deep in calls to this organisation each thread is
+    private final ThreadLocal<int[]> callDepth = ThreadLocal.withInitial(() -> new int[1]);
+    // names and roles of people added or promoted go through this, e.g. a pool shared with other organisations
+    private volatile UnaryOperator<String> strings = UnaryOperator.identity();
 
     enum ROLE_NAMES_ENUM
     {
@@ -21,13 +52,87 @@ public class Organisation
     }
 
     public Organisation(final CEO ceo) {
+        this(ceo, 16, 16);
+    }
+
+    Organisation(final CEO ceo, final int expectedPeople, final int expectedTeams) { // presized for bulk loading
+        // concurrent maps so ConcurrentOrganisation can let changes on unrelated people and teams run side by side
+        this(ceo, expectedPeople, expectedTeams, new ConcurrentHashMap<>(Math.max(16, expectedPeople)));
+    }
+
+    private Organisation(final CEO ceo, final int expectedPeople, final int expectedTeams, final Map<Long, Employee> employeesByNumber) {
         this.ceo = ceo;
+        this.employeesByNumber = employeesByNumber;
+        this.teamsByName = new ConcurrentHashMap<>(Math.max(16, expectedTeams));
+        this.teamsByMember = new ConcurrentHashMap<>(Math.max(16, expectedPeople));
+        this.teamsByManager = new ConcurrentHashMap<>(Math.max(16, expectedTeams));
+        this.reportingTree = new ReportingTree(expectedPeople);
+        reportingTree.addPerson(ceo.getEmployeeNumber(), null, true, false);
+    }
+
+    // keeps people in primitive columns rather than one object each, for very large organisations; the Employee and
+    // Manager objects handed out are views over the columns and are built on every lookup. Only the employee records
+    // are columnar, the reporting tree and team indexes cost the same either way, so this saves a bit under half of
+    // the heap a person takes rather than nearly all of it
+    public static Organisation withColumnarStore(final CEO ceo, final int expectedPeople) {
+        return new Organisation(ceo, expectedPeople, 16, new ColumnarEmployeeStore(expectedPeople));
     }
 
     public CEO getCeo() {
         return ceo;
     }
 
+    void shareStrings(final UnaryOperator<String> shared) {
+        this.strings = shared;
+    }
+
+    // null switches recording off again
+    public void setMetrics(final OrganisationMetrics metrics) {
+        this.metrics = metrics == null ? OrganisationMetrics.DISABLED : metrics;
+    }
+
+    public OrganisationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void addListener(final OrganisationListener listener) {
+        listeners.add(listener);
+    }
+
+    // calls nest, a reorganisation runs its steps through the public methods; listeners hear that a call finished only
+    // when the outermost one on the thread does
+    private int[] enterCall() {
+        final int[] depth = callDepth.get();
+        depth[0]++;
+        return depth;
+    }
+
+    private void exitCall(final int[] depth) {
+        if(--depth[0] == 0){
+            for(OrganisationListener listener : listeners){
+                listener.callFinished();
+            }
+        }
+    }
+
+    // times a public call and counts it as one call for the listeners
+    private String measured(final OrganisationMetrics.Call call, final Supplier<String> change) {
+        return measured(call, change, status -> status);
+    }
+
+    private <T> T measured(final OrganisationMetrics.Call call, final Supplier<T> change, final Function<T, String> statusOf) {
+        final OrganisationMetrics recorder = metrics;
+        final long started = recorder.start();
+        final int[] depth = enterCall();
+        try {
+            final T result = change.get();
+            recorder.finish(call, started, statusOf.apply(result));
+            return result;
+        } finally {
+            exitCall(depth);
+        }
+    }
+
     public String addEmployee( // make params final so they cannot be manipulated
                                final String firstName,
                                final String lastName,
@@ -38,19 +143,32 @@ public class Organisation
                                final long managerNumber,
                                final boolean isOnHoliday
     ) {
-        if (!checkEmployeeNumberIsUnique(employeeNumber)) {
-            return EMPLOYEE_NON_UNIQUE_ID_ERROR;
-        }
-
-        if(!checkIfEmployeeRoleIsCorrect(role)){
-            return "Invalid role - enter correct role";
-        }
+        return measured(OrganisationMetrics.Call.ADD_EMPLOYEE, () -> addEmployeeUnmeasured(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+    }
 
-        if (!checkManagerNumber(managerNumber)) {
-            return "Invalid Manager - Manager id must be valid";
+    private String addEmployeeUnmeasured(
+                               final String firstName,
+                               final String lastName,
+                               final String role,
+                               final Date startDate,
+                               final boolean isContractor,
+                               final long employeeNumber,
+                               final long managerNumber,
+                               final boolean isOnHoliday
+    ) {
+        final String invalid = checkNewPerson(false, role, isContractor, !checkEmployeeNumberIsUnique(employeeNumber), managerNumber, this::checkManagerNumber);
+        if (invalid != null) {
+            return invalid;
         }
 
-        employees.add(new Employee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        rememberPerson(employeeNumber);
+        final UnaryOperator<String> shared = strings;
+        employeesByNumber.put(employeeNumber, new Employee(shared.apply(firstName), shared.apply(lastName), shared.apply(role), startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        reportingTree.addPerson(employeeNumber, managerNumber, false, false);
+        reportingTree.setOnHoliday(employeeNumber, isOnHoliday);
+        rankInTeams(employeeNumber, startDate);
+        firePersonChanged(employeeNumber);
+        fireEvent(OrganisationEvent.person(OrganisationEvent.Type.EMPLOYEE_ADDED, employeeNumber, managerNumber, role));
 
         return SUCCESS;
     }
@@ -65,34 +183,75 @@ public class Organisation
             final long managerNumber,
             final boolean isOnHoliday
     ) {
-        if (!checkEmployeeNumberIsUnique(employeeNumber)) {
-            return EMPLOYEE_NON_UNIQUE_ID_ERROR;
-        }
+        return measured(OrganisationMetrics.Call.ADD_MANAGER, () -> addManager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday, true));
+    }
 
-        if(!checkIfManagerRoleIsCorrect(role)){
-            return "Invalid role - enter correct role";
+    // promotions add managers too, they announce themselves as a promotion instead
+    private String addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday,
+            final boolean announce
+    ) {
+        final String invalid = checkNewPerson(true, role, isContractor, !checkEmployeeNumberIsUnique(employeeNumber), managerNumber, this::checkManagerNumber);
+        if (invalid != null) {
+            return invalid;
         }
 
-        if(isContractor){
-            return "Contractors cannot be managers";
+        if(managerNumber == employeeNumber || reportingTree.isInUnit(managerNumber, employeeNumber)){ // people may already be added under this number
+            return REPORTING_LOOP_ERROR;
         }
 
-        managers.add(new Manager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        rememberPerson(employeeNumber);
+        final UnaryOperator<String> shared = strings;
+        employeesByNumber.put(employeeNumber, new Manager(shared.apply(firstName), shared.apply(lastName), shared.apply(role), startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        reportingTree.addPerson(employeeNumber, managerNumber, true, isDirector(role));
+        reportingTree.setOnHoliday(employeeNumber, isOnHoliday);
+        unrankInTeams(employeeNumber);
+        firePersonChanged(employeeNumber);
+        if(announce){
+            fireEvent(OrganisationEvent.person(OrganisationEvent.Type.MANAGER_ADDED, employeeNumber, managerNumber, role));
+        }
 
         return SUCCESS;
     }
 
     public String addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        return measured(OrganisationMetrics.Call.ADD_TEAM, () -> addTeamUnmeasured(teamName, managerId, teamMembers));
+    }
+
+    private String addTeamUnmeasured(final String teamName, final Long managerId, final List<Long> teamMembers)
     {
         if (!checkTeamNameIsUnique(teamName)) {
-            return "Invalid team name - team name must be unique";
+            return TEAM_NAME_NOT_UNIQUE_ERROR;
         }
-        teams.add(new Team(teamName, managerId, teamMembers, managerId));
+        final Team team = new Team(teamName, managerId, teamMembers, managerId);
+        rememberTeam(teamName);
+        teamsByName.put(teamName, team);
+        addToManagedIndex(managerId, team);
+        for(Long memberNumber : teamMembers){
+            addToMembershipIndex(memberNumber, team);
+            rankIfEmployee(team, memberNumber);
+        }
+        rememberNode(managerId);
+        reportingTree.addSeats(managerId, team.getTeamSize());
+        fireTeamChanged(teamName);
+        fireEvent(OrganisationEvent.team(OrganisationEvent.Type.TEAM_ADDED, teamName, managerId));
 
         return SUCCESS;
     }
 
     public String moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager) {
+        return measured(OrganisationMetrics.Call.MOVE_TEAM, () -> moveTeamUnmeasured(oldTeam, newTeam, employeeNumber));
+    }
+
+    private String moveTeamUnmeasured(final String oldTeam, final String newTeam, final long employeeNumber) {
         if(!checkTeamExists(oldTeam) || !checkTeamExists(newTeam)){
             return "Invalid team - team does not exist";
         }
@@ -101,109 +260,258 @@ public class Organisation
             return "Error - employee not part of old team";
         }
 
-        Team previousTeam = null;
-        Team nextTeam = null;
+        final Team previousTeam = teamsByName.get(oldTeam);
+        final Team nextTeam = teamsByName.get(newTeam);
 
-        for(Team team : teams){
-            if(team.getTeamName().equals(oldTeam)){
-                previousTeam = team;
-            }else if(team.getTeamName().equals(newTeam)){
-                nextTeam = team;
-            }
+        rememberTeam(newTeam);
+        rememberNode(nextTeam.getManagerEmployeeId());
+        if(nextTeam.addMember(employeeNumber)){
+            reportingTree.addSeats(nextTeam.getManagerEmployeeId(), 1);
         }
+        rankIfEmployee(nextTeam, employeeNumber);
+        addToMembershipIndex(employeeNumber, nextTeam);
+        reportToNewTeamManager(employeeNumber, nextTeam);
+        assignTeamManager(previousTeam, ReportingTree.NO_MANAGER);
+        rememberTeam(oldTeam);
+        if(previousTeam.removeMember(employeeNumber)){
+            removeFromMembershipIndex(employeeNumber, previousTeam);
+        }
+        fireTeamChanged(newTeam);
+        fireTeamChanged(oldTeam);
+        fireEvent(OrganisationEvent.moved(employeeNumber, oldTeam, newTeam));
 
-        assert nextTeam != null;
-        assert previousTeam != null;
-
-        nextTeam.addMember(employeeNumber);
-        previousTeam.setManagerEmployeeId(-1L);
-        previousTeam.removeMember(employeeNumber);
+        return promoteOldestTeamMateToManager(previousTeam);
+    }
 
-        return promoteOldestTeamMateToManager(previousTeam.getTeamMembersIds(), previousTeam);
+    public Team getTeam(final long employeeNumber){ // the team most recently joined when someone sits in several
+        final List<Team> memberOf = teamsByMember.get(employeeNumber);
+        return memberOf == null ? null : memberOf.get(memberOf.size() - 1);
     }
 
-    public Team getTeam(final long employeeNumber){
-        final Optional<Team> maybeTeam = teams.stream().filter(team -> team.getTeamMembersIds().contains(employeeNumber)).findFirst();
-        return maybeTeam.orElse(null);
+    public List<Team> getTeams(final long employeeNumber){
+        final List<Team> memberOf = teamsByMember.get(employeeNumber);
+        return memberOf == null ? Collections.emptyList() : Collections.unmodifiableList(memberOf);
     }
 
     public String goOnHoliday(final long employeeNumber) {
-        if(checkIfOnHoliday(employeeNumber)){
+        return measured(OrganisationMetrics.Call.GO_ON_HOLIDAY, () -> goOnHolidayUnmeasured(employeeNumber));
+    }
+
+    private String goOnHolidayUnmeasured(final long employeeNumber) {
+        final Employee person = employeesByNumber.get(employeeNumber);
+        if(person != null && person.isOnHoliday()){
             return "Invalid - employee already on holiday";
         }
 
-        // is manager
-        if(managers.stream().anyMatch(manager -> manager.getEmployeeNumber() == employeeNumber)){
-            final Optional<Manager> managerToGoOnHoliday = managers.stream().filter(manager -> manager.getEmployeeNumber() == employeeNumber).findFirst();
-            if(managerToGoOnHoliday.isPresent()){
-                final Team team = getTeam(employeeNumber);
-                managerToGoOnHoliday.get().goingOnHoliday(team);
-                final List<Long> teamToUpdateCurrentManagerOf = team.getTeamMembersIds();
-
-                employees
-                        .stream()
-                        .filter(
-                                employee -> teamToUpdateCurrentManagerOf.contains(employee.getEmployeeNumber())
-                        )
-                        .forEach(employee -> employee.setManagerNumber(team.getCurrentManager()));
-
+        if(person != null){
+            rememberPerson(employeeNumber);
+            person.setOnHoliday(true);
+            reportingTree.setOnHoliday(employeeNumber, true);
+            if(person instanceof Manager){ // their reports are covered by the nearest manager above who is not away
+                coverReports(employeeNumber, reportingTree.coverFor(employeeNumber));
             }
-        } else {
-            setEmployeeHoliday(employeeNumber, true);
+            fireEvent(OrganisationEvent.person(OrganisationEvent.Type.WENT_ON_HOLIDAY, employeeNumber, null, null));
         }
+        firePersonChanged(employeeNumber);
 
         return SUCCESS;
     }
 
     public String returnFromHoliday(final long employeeNumber) {
-        if(!checkIfOnHoliday(employeeNumber)){
+        return measured(OrganisationMetrics.Call.RETURN_FROM_HOLIDAY, () -> returnFromHolidayUnmeasured(employeeNumber));
+    }
+
+    private String returnFromHolidayUnmeasured(final long employeeNumber) {
+        final Employee person = employeesByNumber.get(employeeNumber);
+        if(person == null || !person.isOnHoliday()){
             return "Invalid - employee not on holiday";
         }
 
-        if(managers.stream().anyMatch(manager -> manager.getEmployeeNumber() == employeeNumber)){
-            final Optional<Manager> managerReturningFromHoliday = managers.stream().filter(managers -> managers.getEmployeeNumber() == employeeNumber).findFirst();
-            if(managerReturningFromHoliday.isPresent()){
-                final Team team = getTeam(employeeNumber);
-                managerReturningFromHoliday.get().returningFromHoliday(team);
-                final List<Long> teamToUpdateCurrentManagerOf = team.getTeamMembersIds();
+        rememberPerson(employeeNumber);
+        person.setOnHoliday(false);
+        reportingTree.setOnHoliday(employeeNumber, false);
+        if(person instanceof Manager){ // takes back everyone who was covered for them, including the reports of managers below who are still away
+            coverReports(employeeNumber, employeeNumber);
+        }
+        firePersonChanged(employeeNumber);
+        fireEvent(OrganisationEvent.person(OrganisationEvent.Type.RETURNED_FROM_HOLIDAY, employeeNumber, null, null));
+
+        return SUCCESS;
+    }
+
+    // a batch of planned holidays, taken whole or not at all
+    public String scheduleHolidays(final List<HolidayCalendar.Absence> absences) {
+        return measured(OrganisationMetrics.Call.SCHEDULE_HOLIDAYS, () -> scheduleHolidaysUnmeasured(absences));
+    }
+
+    private String scheduleHolidaysUnmeasured(final List<HolidayCalendar.Absence> absences) {
+        for(HolidayCalendar.Absence absence : absences){
+            if(!employeesByNumber.containsKey(absence.getEmployeeNumber())){
+                return "Invalid - employee does not exist";
+            }
+            if(absence.getTo().isBefore(absence.getFrom())){
+                return "Invalid - holiday ends before it starts";
+            }
+        }
+        holidayCalendar.schedule(absences);
+        for(HolidayCalendar.Absence absence : absences){
+            fireEvent(OrganisationEvent.person(OrganisationEvent.Type.HOLIDAY_SCHEDULED, absence.getEmployeeNumber(), null, null));
+        }
+
+        return SUCCESS;
+    }
+
+    public List<HolidayCalendar.Absence> getScheduledHolidays() {
+        return holidayCalendar.getAbsences();
+    }
 
-                employees
-                        .stream()
-                        .filter(
-                                employee -> teamToUpdateCurrentManagerOf.contains(employee.getEmployeeNumber())
-                        )
-                        .forEach(employee -> employee.setManagerNumber(team.getCurrentManager()));
+    // sets the holiday flag of everyone on the calendar for the given day, then works out cover once for each manager
+    // whose flag changed; cover only depends on the final flags so the order they are handled in does not matter
+    public String applyHolidays(final LocalDate date) {
+        return measured(OrganisationMetrics.Call.APPLY_HOLIDAYS, () -> applyHolidaysUnmeasured(date));
+    }
+
+    private String applyHolidaysUnmeasured(final LocalDate date) {
+        final List<Long> changedManagers = new ArrayList<>();
+        final long[] scheduled = holidayCalendar.getScheduledPeople();
+        metrics.scanned(OrganisationMetrics.Scan.SCHEDULED_PEOPLE, scheduled.length);
+        for(long employeeNumber : scheduled){
+            final Employee person = employeesByNumber.get(employeeNumber);
+            final boolean out = holidayCalendar.isOut(employeeNumber, date);
+            if(person == null || person.isOnHoliday() == out){
+                continue;
+            }
+            rememberPerson(employeeNumber);
+            person.setOnHoliday(out);
+            reportingTree.setOnHoliday(employeeNumber, out);
+            if(person instanceof Manager){
+                changedManagers.add(employeeNumber);
             }
-        } else { setEmployeeHoliday(employeeNumber, false); }
+            firePersonChanged(employeeNumber);
+            fireEvent(OrganisationEvent.person(out ? OrganisationEvent.Type.WENT_ON_HOLIDAY : OrganisationEvent.Type.RETURNED_FROM_HOLIDAY, employeeNumber, null, null));
+        }
+        for(Long managerNumber : changedManagers){
+            final Employee manager = employeesByNumber.get(managerNumber);
+            coverReports(managerNumber, manager.isOnHoliday() ? reportingTree.coverFor(managerNumber) : managerNumber);
+        }
 
         return SUCCESS;
     }
 
+    // who the person reports to on that day, skipping managers who are away; people not on the calendar are taken as
+    // away if they are on holiday now. This walks up the chain one manager at a time, so it is O(depth) steps, each two
+    // binary searches over the day's sorted lists and a flag on the tree node, after one O(log n + k) calendar lookup
+    public Long getEffectiveManager(final long employeeNumber, final LocalDate date) {
+        final HolidayCalendar.Day day = holidayCalendar.on(date);
+        return reportingTree.coverFor(employeeNumber, day::isScheduled, day::isOut);
+    }
+
+    public long[] getPeopleOnHoliday(final LocalDate date) {
+        return holidayCalendar.whoIsOut(date);
+    }
+
+    // applies the changes in order, each one seeing the ones before it. If one is rejected or throws, everything the
+    // batch changed is put back; the rejected change keeps its message and the others report ROLLED_BACK
+    public List<String> reorganise(final Reorganisation reorganisation) {
+        return measured(OrganisationMetrics.Call.REORGANISE, () -> reorganiseUnmeasured(reorganisation), results -> {
+            String status = SUCCESS;
+            for(String result : results){
+                if(!SUCCESS.equals(result) && !ROLLED_BACK.equals(result)){
+                    status = result;
+                }
+            }
+            return status;
+        });
+    }
+
+    private List<String> reorganiseUnmeasured(final Reorganisation reorganisation) {
+        final Batch batch = applyBatch(reorganisation);
+        batch.keep();
+        return batch.getResults();
+    }
+
+    // applies a reorganisation as reorganise does, but leaves it to the caller to keep it or undo it later, e.g. once
+    // it is known whether it reached the disk; its events are held back until it is kept. A rejected batch is put back
+    // before it is handed out, one that throws is put back and the exception passed on
+    Batch applyBatch(final Reorganisation reorganisation) {
+        if(rollback.get() != null){
+            throw new IllegalStateException("A reorganisation is already running on this thread");
+        }
+        final List<Operation> operations = reorganisation.getOperations();
+        final String[] results = new String[operations.size()];
+        final Rollback undo = new Rollback();
+        int rejected = -1;
+        rollback.set(undo);
+        try {
+            for(int i = 0; i < results.length && rejected < 0; i++){
+                results[i] = operations.get(i).applyTo(this);
+                if(!SUCCESS.equals(results[i])){
+                    rejected = i;
+                }
+            }
+        } catch(RuntimeException e) {
+            rollback.remove();
+            undo.restore();
+            throw e;
+        } finally {
+            rollback.remove();
+        }
+        if(rejected >= 0){
+            undo.restore();
+            for(int i = 0; i < results.length; i++){
+                if(i != rejected){
+                    results[i] = ROLLED_BACK;
+                }
+            }
+            return new Batch(Arrays.asList(results), null);
+        }
+        return new Batch(Arrays.asList(results), undo);
+    }
+
     public String promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        return measured(OrganisationMetrics.Call.PROMOTE, () -> promoteUnmeasured(employeeNumber, newManagerNumber, isEmployee, newRole));
+    }
+
+    private String promoteUnmeasured(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
     {
         if(isEmployee)
         {
             // Optional is null safe
-            final Optional<Employee> employeeToPromote = employees.stream().filter(employee -> employee.getEmployeeNumber() == employeeNumber).findFirst();
+            final Optional<Employee> employeeToPromote = getEmployee(employeeNumber);
             if(employeeToPromote.isPresent())
             {
-                employees.remove(employeeToPromote.get());
+                // the columnar store hands back a copy on removal, its views stop working once the row is gone
+                rememberPerson(employeeNumber);
+                final Employee employee = employeesByNumber.remove(employeeNumber);
+                unrankInTeams(employeeNumber);
 
-                return addManager(
-                        employeeToPromote.get().getFirstName(),
-                        employeeToPromote.get().getLastName(),
+                final String response = addManager(
+                        employee.getFirstName(),
+                        employee.getLastName(),
                         newRole,
-                        employeeToPromote.get().getStartDate(),
-                        employeeToPromote.get().isContractor(),
-                        employeeToPromote.get().getEmployeeNumber(),
+                        employee.getStartDate(),
+                        employee.isContractor(),
+                        employee.getEmployeeNumber(),
                         newManagerNumber,
-                        employeeToPromote.get().isOnHoliday()
+                        employee.isOnHoliday(),
+                        false
                 );
+                if(!response.equals(SUCCESS))
+                { // a rejected promotion must not lose the employee
+                    employeesByNumber.put(employeeNumber, employee);
+                    rankInTeams(employeeNumber, employee.getStartDate());
+                }
+                else
+                {
+                    fireEvent(OrganisationEvent.person(OrganisationEvent.Type.PROMOTED, employeeNumber, newManagerNumber, newRole));
+                }
+                return response;
             }
         }
         else
         {
-            final Optional<Manager> managerToPromote = managers.stream().filter(manager -> manager.getEmployeeNumber() == employeeNumber).findFirst();
+            final Optional<Manager> managerToPromote = getManager(employeeNumber);
             if(managerToPromote.isPresent())
             {
                 if(managerToPromote.get().getRole().equals(ROLE_NAMES_ENUM.VicePresident.name()))
@@ -212,126 +520,610 @@ public class Organisation
                 }
                 else if(managerToPromote.get().getRole().equals(ROLE_NAMES_ENUM.Manager.name()))
                 {
-                    final List<Long> managerList = getNoOfSubordinateManagers(managerToPromote.get().getEmployeeNumber());
-                    if(!(managerList.size() >= 2) ||!(getNoOfSubordinateEmployees(managerList) >= 20))
+                    if(reportingTree.getUnitManagers(employeeNumber) < 2 || reportingTree.getUnitHeadcount(employeeNumber) < 20)
                     {
                         return "Manager is not able to be promoted to Director";
                     }
                 }
                 else if(managerToPromote.get().getRole().equals(ROLE_NAMES_ENUM.Director.name()))
                 {
-                    final List<Long> managerList = getNoOfSubordinateManagers(managerToPromote.get().getEmployeeNumber());
-                    if(!(managerList.size() >= 4) ||!(getNoOfSubordinateEmployees(managerList) >= 40))
+                    if(reportingTree.getUnitManagers(employeeNumber) < 4 || reportingTree.getUnitHeadcount(employeeNumber) < 40)
                     {
                         return "Director is not able to be promoted to Vice President";
                     }
                 }
 
-                managerToPromote.get().setRole(newRole);
+                if(reportingTree.isInUnit(newManagerNumber, employeeNumber))
+                {
+                    return REPORTING_LOOP_ERROR;
+                }
+
+                rememberPerson(employeeNumber);
+                if(!reportingTree.setManager(employeeNumber, newManagerNumber))
+                { // the unit was re-linked since the check, nothing has changed yet
+                    return REPORTING_LOOP_ERROR;
+                }
+                managerToPromote.get().setRole(strings.apply(newRole));
                 managerToPromote.get().setManagerNumber(newManagerNumber);
+                reportingTree.setRole(employeeNumber, true, isDirector(newRole));
+                firePersonChanged(employeeNumber);
+                fireEvent(OrganisationEvent.person(OrganisationEvent.Type.PROMOTED, employeeNumber, newManagerNumber, newRole));
             }
         }
 
         return SUCCESS;
     }
 
+    // skips per call validation, the caller (RosterLoader) has already checked every row against the whole roster
+    void loadValidated(final List<Employee> people, final List<Team> teams)
+    {
+        loadSnapshot(people, teams, Employee::getManagerNumber, null);
+        // a roster holds reporting lines, the cover of anyone whose manager is away follows from them
+        for(Employee person : people){
+            final Long reportsTo = person.getManagerNumber();
+            final Employee manager = reportsTo == null ? null : employeesByNumber.get(reportsTo);
+            if(manager != null && manager.isOnHoliday()){
+                employeesByNumber.get(person.getEmployeeNumber()).setManagerNumber(reportingTree.coverFor(person.getEmployeeNumber()));
+            }
+        }
+    }
+
+    // as loadValidated, but reporting lines and the order people joined their teams come from a saved copy, where
+    // holiday cover means a person's manager number is not always their place in the reporting tree
+    void loadSnapshot(final List<Employee> people, final List<Team> teams, final Function<Employee, Long> reportsTo, final Map<Long, List<String>> memberships)
+    {
+        reportingTree.beginBulkLoad();
+        for(Employee person : people){
+            employeesByNumber.put(person.getEmployeeNumber(), person);
+            reportingTree.addPerson(person.getEmployeeNumber(), reportsTo.apply(person), person instanceof Manager, isDirector(person.getRole()));
+            reportingTree.setOnHoliday(person.getEmployeeNumber(), person.isOnHoliday());
+        }
+        for(Team team : teams){
+            teamsByName.put(team.getTeamName(), team);
+            addToManagedIndex(team.getManagerEmployeeId(), team);
+            if(memberships == null){
+                final LongHashSet members = team.getTeamMembersIds();
+                for(int slot = members.firstSlot(); slot >= 0; slot = members.nextSlot(slot)){
+                    addToMembershipIndex(members.keyAt(slot), team);
+                }
+            }
+            rankEmployees(team);
+            reportingTree.addSeats(team.getManagerEmployeeId(), team.getTeamSize());
+        }
+        if(memberships != null){
+            memberships.forEach((employeeNumber, teamNames) -> {
+                for(String teamName : teamNames){
+                    addToMembershipIndex(employeeNumber, teamsByName.get(teamName));
+                }
+            });
+        }
+        reportingTree.endBulkLoad();
+        final PeopleSearch search = peopleSearch;
+        if(search != null){
+            for(Employee person : people){
+                search.update(person.getEmployeeNumber(), person);
+            }
+        }
+    }
+
+    public Collection<Employee> getPeople() // employees and managers, not the CEO
+    {
+        return Collections.unmodifiableCollection(employeesByNumber.values());
+    }
+
+    public Collection<Team> getAllTeams()
+    {
+        return Collections.unmodifiableCollection(teamsByName.values());
+    }
+
+    // lookups by name, role, contractor and holiday status and start date
+    public PeopleSearch search()
+    {
+        PeopleSearch search = peopleSearch;
+        if(search == null){
+            synchronized(this){
+                search = peopleSearch;
+                if(search == null){
+                    search = new PeopleSearch(employeesByNumber.size());
+                    peopleSearch = search; // published before it is filled, a change made meanwhile is indexed either way
+                    for(Employee person : employeesByNumber.values()){
+                        search.update(person.getEmployeeNumber(), person);
+                    }
+                }
+            }
+        }
+        return search;
+    }
+
+    Employee findPerson(final long employeeNumber)
+    { // employee or manager
+        return employeesByNumber.get(employeeNumber);
+    }
+
+    Team findTeam(final String teamName)
+    {
+        return teamsByName.get(teamName);
+    }
+
+    ReportingTree getReportingTree()
+    {
+        return reportingTree;
+    }
+
+    Long getReportsTo(final long employeeNumber)
+    { // the reporting tree's edge, which holiday cover does not change
+        return reportingTree.getManagerNumber(employeeNumber);
+    }
+
+    public int getUnitHeadcount(final long employeeNumber)
+    {
+        return reportingTree.getUnitHeadcount(employeeNumber);
+    }
+
+    public int getUnitManagers(final long employeeNumber)
+    {
+        return reportingTree.getUnitManagers(employeeNumber);
+    }
+
+    public int getUnitDirectors(final long employeeNumber)
+    {
+        return reportingTree.getUnitDirectors(employeeNumber);
+    }
+
+    public boolean isInUnit(final long employeeNumber, final long managerNumber)
+    {
+        return reportingTree.isInUnit(employeeNumber, managerNumber);
+    }
+
+    public Long getLowestCommonManager(final long firstNumber, final long secondNumber)
+    {
+        return reportingTree.getLowestCommonManager(firstNumber, secondNumber);
+    }
+
+    public Long getManagerAbove(final long employeeNumber, final int levels)
+    {
+        return reportingTree.getManagerAbove(employeeNumber, levels);
+    }
+
+    public long[] getManagementChain(final long employeeNumber)
+    {
+        return reportingTree.getManagementChain(employeeNumber);
+    }
+
+    public long[] getDirectReports(final long managerNumber)
+    {
+        return reportingTree.getDirectReports(managerNumber);
+    }
+
     public Optional<Manager> getManager(final Long employeeNumber)
-    { // test method helper
-        return managers.stream().filter(manager -> Objects.equals(manager.getEmployeeNumber(), employeeNumber)).findFirst();
+    {
+        final Employee employee = employeeNumber == null ? null : employeesByNumber.get(employeeNumber);
+        return employee instanceof Manager ? Optional.of((Manager) employee) : Optional.empty();
+    }
+
+    public Optional<Employee> getEmployee(final long employeeNumber)
+    { // plain employees only, managers are looked up through getManager
+        final Employee employee = employeesByNumber.get(employeeNumber);
+        return employee == null || employee instanceof Manager ? Optional.empty() : Optional.of(employee);
+    }
+
+    // the checks every new person goes through, shared with RosterLoader so a roster loads exactly the people that
+    // adding them one at a time would accept; null when the person may be added. Managers may report to anyone, even
+    // someone not added yet, while employees need a manager
+    static String checkNewPerson(final boolean asManager, final String role, final boolean isContractor, final boolean numberTaken,
+                                 final long managerNumber, final LongPredicate isManager) {
+        if(numberTaken){
+            return EMPLOYEE_NON_UNIQUE_ID_ERROR;
+        }
+        if(asManager ? !checkIfManagerRoleIsCorrect(role) : !checkIfEmployeeRoleIsCorrect(role)){
+            return INVALID_ROLE_ERROR;
+        }
+        if(asManager && isContractor){
+            return CONTRACTOR_MANAGER_ERROR;
+        }
+        if(!asManager && !isManager.test(managerNumber)){
+            return INVALID_MANAGER_ERROR;
+        }
+        return null;
     }
 
     private boolean checkEmployeeNumberIsUnique(final long employeeNumber) {
-        return employees.stream().noneMatch(employee -> employee.getEmployeeNumber() == employeeNumber)
-                && managers.stream().noneMatch(manager -> manager.getEmployeeNumber() == employeeNumber);
+        return !employeesByNumber.containsKey(employeeNumber);
     }
 
-    private boolean checkIfEmployeeRoleIsCorrect(final String role) {
-        return role.equals("Employee");
+    static boolean checkIfEmployeeRoleIsCorrect(final String role) {
+        return "Employee".equals(role);
     }
 
     private boolean checkManagerNumber(final long managerNumber) {
-        return managers.stream().anyMatch(manager -> manager.getEmployeeNumber() == managerNumber);
+        return employeesByNumber.get(managerNumber) instanceof Manager;
     }
 
-    private boolean checkIfManagerRoleIsCorrect(final String role) {
+    static boolean checkIfManagerRoleIsCorrect(final String role) {
         return Arrays.stream(ROLE_NAMES_ENUM.values()).anyMatch(role_name -> role_name.name().equals(role));
     }
 
     private boolean checkTeamNameIsUnique(final String teamName) {
-        return teams.stream().noneMatch(team -> Objects.equals(team.getTeamName(), teamName));
+        return !teamsByName.containsKey(teamName);
     }
 
     private boolean checkTeamExists(final String newTeam) {
-        return teams.stream().anyMatch(team -> team.getTeamName().equals(newTeam));
+        return teamsByName.containsKey(newTeam);
     }
 
     private boolean checkEmployeeExistsInOldTeam(final String oldTeam, final long employeeNumber) {
-        return teams.stream().anyMatch(team -> team.getTeamName().equals(oldTeam) && team.getTeamMembersIds().contains(employeeNumber));
+        final Team team = teamsByName.get(oldTeam);
+        return team != null && team.isTeamMember(employeeNumber);
     }
 
-    private String promoteOldestTeamMateToManager(final List<Long> teamMembersIds, final Team previousTeam) {
-        List<Employee> employeesInTeam = new ArrayList<>();
+    private void addToMembershipIndex(final long employeeNumber, final Team team) {
+        rememberMembership(employeeNumber);
+        teamsByMember.compute(employeeNumber, (number, memberOf) -> {
+            final List<Team> joined = memberOf == null ? new ArrayList<>(1) : new ArrayList<>(memberOf);
+            joined.remove(team); // re-joining moves the team to the back
+            joined.add(team);
+            return joined;
+        });
+        fireMembershipChanged(employeeNumber);
+    }
+
+    private void removeFromMembershipIndex(final long employeeNumber, final Team team) {
+        rememberMembership(employeeNumber);
+        teamsByMember.computeIfPresent(employeeNumber, (number, memberOf) -> {
+            final List<Team> remaining = new ArrayList<>(memberOf);
+            remaining.remove(team);
+            return remaining.isEmpty() ? null : remaining;
+        });
+        fireMembershipChanged(employeeNumber);
+    }
+
+    // the team ranks its plain employees by start date then employee number, so the successor is its most senior
+    // the successor runs the team but keeps their own role and reporting line; a move never changes anyone's role
+    private String promoteOldestTeamMateToManager(final Team previousTeam) {
+        final Long successor = previousTeam.getMostSeniorMember();
+        if(successor == null){ // nobody left to take over, the team stays without a manager
+            return SUCCESS;
+        }
+
+        assignTeamManager(previousTeam, successor);
+
+        return SUCCESS;
+    }
+
+    private void rankIfEmployee(final Team team, final long employeeNumber) {
+        final Employee person = employeesByNumber.get(employeeNumber);
+        if(person != null && !(person instanceof Manager)){
+            team.rankMember(employeeNumber, person.getStartDate().getTime());
+        }
+    }
 
-        for(Employee employee : employees){
-            long number = employee.getEmployeeNumber();
-            if(teamMembersIds.contains(number)){
-                employeesInTeam.add(employee);
+    private void rankEmployees(final Team team) {
+        team.clearRanks();
+        final LongHashSet members = team.getTeamMembersIds();
+        for(int slot = members.firstSlot(); slot >= 0; slot = members.nextSlot(slot)){
+            rankIfEmployee(team, members.keyAt(slot));
+        }
+    }
+
+    private void rankInTeams(final long employeeNumber, final Date startDate) {
+        for(Team team : getTeams(employeeNumber)){
+            team.rankMember(employeeNumber, startDate.getTime());
+        }
+    }
+
+    private void unrankInTeams(final long employeeNumber) {
+        for(Team team : getTeams(employeeNumber)){
+            team.unrankMember(employeeNumber);
+        }
+    }
+
+    private Rollback activeRollback() {
+        return rollback.get();
+    }
+
+    // each rememberX call saves the state just before its first change in the running reorganisation, if there is one
+    private void rememberPerson(final long employeeNumber) {
+        final Rollback undo = activeRollback();
+        if(undo != null && !undo.people.containsKey(employeeNumber)){
+            final Employee person = employeesByNumber.get(employeeNumber);
+            undo.people.put(employeeNumber, person == null ? null : detachedCopy(person));
+            rememberNode(employeeNumber);
+        }
+    }
+
+    private void rememberNode(final Long employeeNumber) {
+        final Rollback undo = activeRollback();
+        if(undo != null && employeeNumber != null && employeeNumber != ReportingTree.NO_MANAGER && !undo.nodes.containsKey(employeeNumber)){
+            undo.nodes.put(employeeNumber, reportingTree.capture(employeeNumber));
+        }
+    }
+
+    private void rememberTeam(final String teamName) {
+        final Rollback undo = activeRollback();
+        if(undo != null && !undo.teams.containsKey(teamName)){
+            final Team team = teamsByName.get(teamName);
+            undo.teams.put(teamName, team == null ? null : new TeamState(team));
+        }
+    }
+
+    private void rememberMembership(final long employeeNumber) {
+        final Rollback undo = activeRollback();
+        if(undo != null && !undo.memberships.containsKey(employeeNumber)){
+            undo.memberships.put(employeeNumber, teamsByMember.get(employeeNumber));
+        }
+    }
+
+    private void rememberManaged(final long managerNumber) {
+        final Rollback undo = activeRollback();
+        if(undo != null && !undo.managed.containsKey(managerNumber)){
+            undo.managed.put(managerNumber, teamsByManager.get(managerNumber));
+        }
+    }
+
+    // a plain object, the columnar store's views stop working once their row is removed
+    private static Employee detachedCopy(final Employee person) {
+        return person instanceof Manager
+                ? new Manager(person.getFirstName(), person.getLastName(), person.getRole(), person.getStartDate(), person.isContractor(),
+                        person.getEmployeeNumber(), person.getManagerNumber(), person.isOnHoliday())
+                : new Employee(person.getFirstName(), person.getLastName(), person.getRole(), person.getStartDate(), person.isContractor(),
+                        person.getEmployeeNumber(), person.getManagerNumber(), person.isOnHoliday());
+    }
+
+    private static final class TeamState
+    {
+        final Team team;
+        final long[] members;
+        final Long managerEmployeeId;
+        final Long currentManager;
+
+        TeamState(final Team team)
+        {
+            this.team = team;
+            this.members = team.getTeamMembersIds().toArray();
+            this.managerEmployeeId = team.getManagerEmployeeId();
+            this.currentManager = team.getCurrentManager();
+        }
+    }
+
+    // what a reorganisation changed, as it was before; a null value means it did not exist. The membership and managed
+    // lists are replaced rather than changed, so keeping the old list is enough
+    private final class Rollback
+    {
+        final Map<Long, Employee> people = new HashMap<>();
+        final Map<Long, ReportingTree.NodeState> nodes = new HashMap<>();
+        final Map<String, TeamState> teams = new HashMap<>();
+        final Map<Long, List<Team>> memberships = new HashMap<>();
+        final Map<Long, List<Team>> managed = new HashMap<>();
+        final List<OrganisationEvent> events = new ArrayList<>();
+
+        void restore()
+        {
+            teams.forEach((teamName, state) -> {
+                if(state == null){
+                    teamsByName.remove(teamName);
+                } else {
+                    final Team team = state.team;
+                    final LongHashSet before = new LongHashSet(state.members.length);
+                    for(long member : state.members){
+                        before.add(member);
+                        team.addMember(member);
+                    }
+                    for(long member : team.getTeamMembersIds().toArray()){
+                        if(!before.contains(member)){
+                            team.removeMember(member);
+                        }
+                    }
+                    team.setManagerEmployeeId(state.managerEmployeeId);
+                    team.setCurrentManager(state.currentManager);
+                    teamsByName.put(teamName, team);
+                }
+            });
+            restoreLists(memberships, teamsByMember);
+            restoreLists(managed, teamsByManager);
+            people.forEach((employeeNumber, person) -> {
+                if(person == null){
+                    employeesByNumber.remove(employeeNumber);
+                } else {
+                    employeesByNumber.put(employeeNumber, person);
+                }
+            });
+            reportingTree.restore(nodes.values());
+            // seniority follows from the restored members and people rather than being saved
+            final Set<Team> rerank = new HashSet<>();
+            teams.values().forEach(state -> {
+                if(state != null){
+                    rerank.add(state.team);
+                }
+            });
+            people.keySet().forEach(employeeNumber -> rerank.addAll(getTeams(employeeNumber)));
+            rerank.forEach(Organisation.this::rankEmployees);
+
+            teams.keySet().forEach(Organisation.this::fireTeamChanged);
+            memberships.keySet().forEach(Organisation.this::fireMembershipChanged);
+            people.keySet().forEach(Organisation.this::firePersonChanged);
+        }
+
+        private void restoreLists(final Map<Long, List<Team>> saved, final Map<Long, List<Team>> index)
+        {
+            saved.forEach((number, teamList) -> {
+                if(teamList == null){
+                    index.remove(number);
+                } else {
+                    index.put(number, teamList);
+                }
+            });
+        }
+    }
+
+    // a reorganisation that has been applied but not yet announced
+    final class Batch
+    {
+        private final List<String> results;
+        private Rollback undo; // null once the batch was rejected, kept or undone
+
+        private Batch(final List<String> results, final Rollback undo)
+        {
+            this.results = results;
+            this.undo = undo;
+        }
+
+        List<String> getResults()
+        {
+            return results;
+        }
+
+        boolean isApplied()
+        {
+            return results.stream().allMatch(SUCCESS::equals);
+        }
+
+        // counts as a call of its own when kept outside one, e.g. once the journal has it on disk, so listeners
+        // still hear that the changes are done
+        void keep()
+        {
+            if(undo != null){
+                final int[] depth = enterCall();
+                try {
+                    undo.events.forEach(Organisation.this::fireEvent);
+                } finally {
+                    exitCall(depth);
+                }
+                undo = null;
+            }
+        }
+
+        // batches applied after this one have to be undone first
+        void undo()
+        {
+            if(undo != null){
+                undo.restore();
+                undo = null;
             }
         }
+    }
 
-        Date oldestEmployeeDate = new Date();
-        Employee newManager = employeesInTeam.get(0);
+    // points everyone whose cover this manager decides, and the teams run by them or by managers away beneath them,
+    // at the given cover; only the manager's reports are visited, not the whole organisation
+    private void coverReports(final long managerNumber, final Long cover) {
+        coverTeams(managerNumber, cover);
+        final long[] covered = reportingTree.coveredBy(managerNumber);
+        metrics.scanned(OrganisationMetrics.Scan.COVERED_REPORTS, covered.length);
+        for(long reportNumber : covered){
+            final Employee report = employeesByNumber.get(reportNumber);
+            if(report == null){
+                continue;
+            }
+            rememberPerson(reportNumber);
+            report.setManagerNumber(cover);
+            if(report instanceof Manager && report.isOnHoliday()){
+                coverTeams(reportNumber, cover);
+            }
+            firePersonChanged(reportNumber);
+            fireEvent(OrganisationEvent.person(OrganisationEvent.Type.MANAGER_NUMBER_CHANGED, reportNumber, cover, null));
+        }
+    }
 
-        for(Employee employee : employeesInTeam){
-            if(employee.getStartDate().before(oldestEmployeeDate)){
-                oldestEmployeeDate = employee.getStartDate();
-                newManager = employee;
+    private void coverTeams(final long managerNumber, final Long cover) {
+        final List<Team> managed = teamsByManager.get(managerNumber);
+        if(managed != null){
+            metrics.scanned(OrganisationMetrics.Scan.COVERED_TEAMS, managed.size());
+            for(Team team : managed){
+                rememberTeam(team.getTeamName());
+                team.setCurrentManager(cover);
+                fireTeamChanged(team.getTeamName());
+                fireEvent(OrganisationEvent.team(OrganisationEvent.Type.CURRENT_MANAGER_CHANGED, team.getTeamName(), cover));
             }
         }
+    }
+
+    // a mover reports to the manager of the team they joined, or whoever is covering for them
+    private void reportToNewTeamManager(final long employeeNumber, final Team nextTeam) {
+        final Employee mover = employeesByNumber.get(employeeNumber);
+        final Long newManager = nextTeam.getManagerEmployeeId();
+        if(mover == null || newManager == null || newManager == ReportingTree.NO_MANAGER || newManager == employeeNumber){
+            return;
+        }
+        rememberPerson(employeeNumber);
+        if(reportingTree.setManager(employeeNumber, newManager)){
+            mover.setManagerNumber(nextTeam.getCurrentManager());
+            firePersonChanged(employeeNumber);
+            fireEvent(OrganisationEvent.person(OrganisationEvent.Type.MANAGER_NUMBER_CHANGED, employeeNumber, nextTeam.getCurrentManager(), null));
+        }
+    }
 
-        employees.remove(newManager.getEmployeeNumber());
-        previousTeam.setManagerEmployeeId(newManager.getEmployeeNumber());
+    private void addToManagedIndex(final Long managerNumber, final Team team) {
+        if(managerNumber != null){
+            rememberManaged(managerNumber);
+            teamsByManager.compute(managerNumber, (number, managed) -> {
+                final List<Team> running = managed == null ? new ArrayList<>(1) : new ArrayList<>(managed);
+                running.add(team);
+                return running;
+            });
+        }
+    }
 
-        String response = addManager(
-                newManager.getFirstName(),
-                newManager.getLastName(),
-                newManager.getRole(),
-                newManager.getStartDate(),
-                newManager.isContractor(),
-                newManager.getEmployeeNumber(),
-                -1l,
-                newManager.isOnHoliday()
-        );
+    private void removeFromManagedIndex(final Long managerNumber, final Team team) {
+        if(managerNumber != null){
+            rememberManaged(managerNumber);
+            teamsByManager.computeIfPresent(managerNumber, (number, managed) -> {
+                final List<Team> remaining = new ArrayList<>(managed);
+                remaining.remove(team);
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+    }
 
-        return SUCCESS;
+    private void assignTeamManager(final Team team, final long managerNumber) {
+        final Long previousManager = team.getManagerEmployeeId();
+        rememberTeam(team.getTeamName());
+        rememberNode(team.getManagerEmployeeId());
+        rememberNode(managerNumber);
+        reportingTree.addSeats(team.getManagerEmployeeId(), -team.getTeamSize());
+        removeFromManagedIndex(team.getManagerEmployeeId(), team);
+        team.setManagerEmployeeId(managerNumber);
+        addToManagedIndex(managerNumber, team);
+        reportingTree.addSeats(managerNumber, team.getTeamSize());
+        fireTeamChanged(team.getTeamName());
+        if(previousManager == null || previousManager != managerNumber){
+            fireEvent(OrganisationEvent.team(OrganisationEvent.Type.TEAM_MANAGER_CHANGED, team.getTeamName(), managerNumber));
+        }
     }
 
-    private boolean checkIfOnHoliday(final long employeeId) {
-        return employees.stream().anyMatch(employee -> employee.getEmployeeNumber() == employeeId && employee.isOnHoliday())
-                || managers.stream().anyMatch(manager -> manager.getEmployeeNumber() == employeeId && manager.isOnHoliday());
+    private void firePersonChanged(final long employeeNumber) {
+        final PeopleSearch search = peopleSearch;
+        if(search != null){
+            search.update(employeeNumber, findPerson(employeeNumber));
+        }
+        for(OrganisationListener listener : listeners){
+            listener.personChanged(employeeNumber);
+        }
     }
 
-    private void setEmployeeHoliday(final long employeeNumber, final boolean setOnHoliday) {
-        Optional<Employee> employeeToGoOnHoliday = employees.stream().filter(employee -> employee.getEmployeeNumber() == employeeNumber).findFirst();
-        employeeToGoOnHoliday.ifPresent(employee -> employee.setOnHoliday(setOnHoliday));
+    private void fireTeamChanged(final String teamName) {
+        for(OrganisationListener listener : listeners){
+            listener.teamChanged(teamName);
+        }
     }
 
-    private List<Long> getNoOfSubordinateManagers(final long employeeNumber) {
-        return managers
-                .stream()
-                .filter(manager -> manager.getManagerNumber() == employeeNumber)
-                .map(Employee::getEmployeeNumber)
-                .collect(Collectors.toList());
+    // a reorganisation holds its events back until it is known to stick, one that is rolled back never happened
+    private void fireEvent(final OrganisationEvent event) {
+        final Rollback undo = activeRollback();
+        if(undo != null){
+            undo.events.add(event);
+            return;
+        }
+        for(OrganisationListener listener : listeners){
+            listener.changed(event);
+        }
+    }
+
+    private void fireMembershipChanged(final long employeeNumber) {
+        for(OrganisationListener listener : listeners){
+            listener.membershipChanged(employeeNumber);
+        }
     }
 
-    private int getNoOfSubordinateEmployees(final List<Long> managerList) {
-        return teams
-                .stream()
-                .filter(team -> managerList.contains(team.getManagerEmployeeId()))
-                .map(team -> team.getTeamMembersIds().size())
-                .collect(Collectors.toList())
-                .stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+    private static boolean isDirector(final String role) {
+        return ROLE_NAMES_ENUM.Director.name().equals(role);
     }
 }
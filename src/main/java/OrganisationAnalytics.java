@@ -0,0 +1,251 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// per person aggregates for everyone below the CEO, worked out in one post-order pass over the reporting tree with
+// a fork-join task per manager. Results are kept as plain columns indexed by row, rows are in no particular order
+public final class OrganisationAnalytics
+{
+    public static final long NONE = Long.MIN_VALUE; // reportsTo of the CEO
+
+    private static final byte MANAGER = 1;
+    private static final byte CONTRACTOR = 2;
+    private static final byte VICE_PRESIDENT = 4;
+
+    private final int size;
+    private final long[] employeeNumbers;
+    private final long[] reportsTo;
+    private final int[] depths;
+    private final int[] directReports;
+    private final int[] unitPeople; // the person and everyone below them
+    private final int[] unitContractors;
+    private final byte[] flags;
+    private final LongIntHashMap rows;
+
+    private OrganisationAnalytics(final int size, final long[] employeeNumbers, final long[] reportsTo, final int[] depths, final int[] directReports,
+                                  final int[] unitPeople, final int[] unitContractors, final byte[] flags)
+    {
+        this.size = size;
+        this.employeeNumbers = employeeNumbers;
+        this.reportsTo = reportsTo;
+        this.depths = depths;
+        this.directReports = directReports;
+        this.unitPeople = unitPeople;
+        this.unitContractors = unitContractors;
+        this.flags = flags;
+        this.rows = new LongIntHashMap(size);
+        for(int row = 0; row < size; row++){
+            rows.put(employeeNumbers[row], row);
+        }
+    }
+
+    public static OrganisationAnalytics analyse(final Organisation organisation)
+    {
+        return analyse(organisation, ForkJoinPool.commonPool());
+    }
+
+    public static OrganisationAnalytics analyse(final Organisation organisation, final ForkJoinPool pool)
+    {
+        final ReportingTree tree = organisation.getReportingTree();
+        return tree.withLinksFixed(() -> {
+            final ReportingTree.Node root = tree.getNode(organisation.getCeo().getEmployeeNumber());
+            final Pass pass = new Pass(organisation, tree.size());
+            pool.invoke(pass.new Visit(root, NONE, 0));
+            return new OrganisationAnalytics(pass.next.get(), pass.employeeNumbers, pass.reportsTo, pass.depths, pass.directReports,
+                    pass.unitPeople, pass.unitContractors, pass.flags);
+        });
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // -1 when the person is not below the CEO
+    public int rowOf(final long employeeNumber)
+    {
+        return rows.get(employeeNumber);
+    }
+
+    public long getEmployeeNumber(final int row)
+    {
+        return employeeNumbers[row];
+    }
+
+    public long getReportsTo(final int row)
+    {
+        return reportsTo[row];
+    }
+
+    public int getDepth(final int row)
+    {
+        return depths[row];
+    }
+
+    public int getDirectReports(final int row)
+    {
+        return directReports[row];
+    }
+
+    public int getUnitPeople(final int row)
+    {
+        return unitPeople[row];
+    }
+
+    public int getUnitContractors(final int row)
+    {
+        return unitContractors[row];
+    }
+
+    public double getContractorRatio(final int row)
+    {
+        return (double) unitContractors[row] / unitPeople[row];
+    }
+
+    public boolean isManager(final int row)
+    {
+        return (flags[row] & MANAGER) != 0;
+    }
+
+    // index k holds how many managers have k direct reports
+    public int[] getSpanOfControlHistogram()
+    {
+        int widest = 0;
+        for(int row = 0; row < size; row++){
+            if(isManager(row)){
+                widest = Math.max(widest, directReports[row]);
+            }
+        }
+        final int[] histogram = new int[widest + 1];
+        for(int row = 0; row < size; row++){
+            if(isManager(row)){
+                histogram[directReports[row]]++;
+            }
+        }
+        return histogram;
+    }
+
+    // index d holds how many people sit d levels below the CEO
+    public int[] getDepthHistogram()
+    {
+        int deepest = 0;
+        for(int row = 0; row < size; row++){
+            deepest = Math.max(deepest, depths[row]);
+        }
+        final int[] histogram = new int[deepest + 1];
+        for(int row = 0; row < size; row++){
+            histogram[depths[row]]++;
+        }
+        return histogram;
+    }
+
+    public Map<Long, Double> getContractorRatioByVicePresident()
+    {
+        final Map<Long, Double> ratios = new LinkedHashMap<>();
+        for(int row = 0; row < size; row++){
+            if((flags[row] & VICE_PRESIDENT) != 0){
+                ratios.put(employeeNumbers[row], getContractorRatio(row));
+            }
+        }
+        return ratios;
+    }
+
+    // the columns one analysis writes into; every task claims its own row so they never write to the same slot
+    private static final class Pass
+    {
+        final Organisation organisation;
+        final AtomicInteger next = new AtomicInteger();
+        final long[] employeeNumbers;
+        final long[] reportsTo;
+        final int[] depths;
+        final int[] directReports;
+        final int[] unitPeople;
+        final int[] unitContractors;
+        final byte[] flags;
+
+        Pass(final Organisation organisation, final int capacity)
+        {
+            this.organisation = organisation;
+            this.employeeNumbers = new long[capacity];
+            this.reportsTo = new long[capacity];
+            this.depths = new int[capacity];
+            this.directReports = new int[capacity];
+            this.unitPeople = new int[capacity];
+            this.unitContractors = new int[capacity];
+            this.flags = new byte[capacity];
+        }
+
+        // people without reports are done inline by their manager's task, so there is one task per manager
+        final class Visit extends RecursiveTask<Integer>
+        {
+            private static final long serialVersionUID = 1L;
+
+            private final ReportingTree.Node node;
+            private final long parent;
+            private final int depth;
+
+            Visit(final ReportingTree.Node node, final long parent, final int depth)
+            {
+                this.node = node;
+                this.parent = parent;
+                this.depth = depth;
+            }
+
+            @Override
+            protected Integer compute()
+            {
+                return visit(node, parent, depth);
+            }
+        }
+
+        // returns the row, whose unit totals are complete by then
+        int visit(final ReportingTree.Node node, final long parent, final int depth)
+        {
+            final int row = next.getAndIncrement();
+            final long employeeNumber = node.employeeNumber;
+            final Employee person = depth == 0 ? organisation.getCeo() : organisation.findPerson(employeeNumber);
+            byte flag = node.isManager ? MANAGER : 0;
+            if(person != null && person.isContractor()){
+                flag |= CONTRACTOR;
+            }
+            if(person != null && Organisation.ROLE_NAMES_ENUM.VicePresident.name().equals(person.getRole())){
+                flag |= VICE_PRESIDENT;
+            }
+            employeeNumbers[row] = employeeNumber;
+            reportsTo[row] = parent;
+            depths[row] = depth;
+            flags[row] = flag;
+
+            final List<ReportingTree.Node> children = node.children;
+            int people = person == null ? 0 : 1; // a manager number nobody has been added under counts nobody
+            int contractors = (flag & CONTRACTOR) != 0 ? 1 : 0;
+            Visit[] forked = null;
+            int forkedCount = 0;
+            for(ReportingTree.Node child : children){
+                if(child.children.isEmpty()){
+                    final int childRow = visit(child, employeeNumber, depth + 1);
+                    people += unitPeople[childRow];
+                    contractors += unitContractors[childRow];
+                } else {
+                    if(forked == null){
+                        forked = new Visit[children.size()];
+                    }
+                    forked[forkedCount] = new Visit(child, employeeNumber, depth + 1);
+                    forked[forkedCount++].fork();
+                }
+            }
+            for(int i = forkedCount - 1; i >= 0; i--){ // newest first, so the ones still queued here are run by this thread
+                final int childRow = forked[i].join();
+                people += unitPeople[childRow];
+                contractors += unitContractors[childRow];
+            }
+            directReports[row] = children.size();
+            unitPeople[row] = people;
+            unitContractors[row] = contractors;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// what changed between two states of an organisation, person by person: who joined and left, whose reporting line,
+// role, teams or holiday changed. Both sides are walked once in employee number order and merged like two sorted
+// columns, so the work is linear in the number of people; differences are handed to the sink as they are found, so
+// nothing of the size of the organisation is kept. A snapshot side is read straight from its mapped columns
+public final class OrganisationDiff
+{
+    public enum Type
+    {
+        ADDED, // after is the role
+        REMOVED, // before is the role
+        MANAGER_CHANGED, // the reporting line, holiday cover is not a change of manager
+        ROLE_CHANGED,
+        TEAMS_CHANGED, // team names, sorted
+        HOLIDAY_CHANGED
+    }
+
+    public static final class Difference
+    {
+        private final Type type;
+        private final long employeeNumber;
+        private final Object before;
+        private final Object after;
+
+        Difference(final Type type, final long employeeNumber, final Object before, final Object after)
+        {
+            this.type = type;
+            this.employeeNumber = employeeNumber;
+            this.before = before;
+            this.after = after;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public long getEmployeeNumber()
+        {
+            return employeeNumber;
+        }
+
+        public Object getBefore()
+        {
+            return before;
+        }
+
+        public Object getAfter()
+        {
+            return after;
+        }
+
+        @Override
+        public String toString()
+        {
+            return type + " " + employeeNumber + ": " + before + " -> " + after;
+        }
+    }
+
+    // one side of a comparison, everyone including the CEO in employee number order
+    public abstract static class Source
+    {
+        abstract int size();
+
+        abstract long numberAt(int index);
+
+        abstract Long reportsToAt(int index);
+
+        abstract String roleAt(int index);
+
+        abstract boolean isOnHolidayAt(int index);
+
+        abstract List<String> teamsAt(int index);
+
+        // the numbers are sorted up front, the people themselves are looked up as the walk reaches them
+        public static Source of(final Organisation organisation)
+        {
+            final CEO ceo = organisation.getCeo();
+            final long[] numbers = new long[organisation.getPeople().size() + 1];
+            int next = 0;
+            numbers[next++] = ceo.getEmployeeNumber();
+            for(Employee person : organisation.getPeople()){
+                if(next == numbers.length){ // someone was added while counting, they are left for the next comparison
+                    break;
+                }
+                numbers[next++] = person.getEmployeeNumber();
+            }
+            final long[] sorted = Arrays.copyOf(numbers, next);
+            Arrays.sort(sorted);
+            return new Source()
+            {
+                @Override
+                int size()
+                {
+                    return sorted.length;
+                }
+
+                @Override
+                long numberAt(final int index)
+                {
+                    return sorted[index];
+                }
+
+                @Override
+                Long reportsToAt(final int index)
+                {
+                    return organisation.getReportsTo(sorted[index]);
+                }
+
+                @Override
+                String roleAt(final int index)
+                {
+                    return person(index).getRole();
+                }
+
+                @Override
+                boolean isOnHolidayAt(final int index)
+                {
+                    return person(index).isOnHoliday();
+                }
+
+                @Override
+                List<String> teamsAt(final int index)
+                {
+                    final List<Team> teams = organisation.getTeams(sorted[index]);
+                    final List<String> names = new ArrayList<>(teams.size());
+                    for(Team team : teams){
+                        names.add(team.getTeamName());
+                    }
+                    return names;
+                }
+
+                private Employee person(final int index)
+                {
+                    return sorted[index] == ceo.getEmployeeNumber() ? ceo : organisation.findPerson(sorted[index]);
+                }
+            };
+        }
+
+        public static Source of(final MappedSnapshot snapshot)
+        {
+            return new Source()
+            {
+                @Override
+                int size()
+                {
+                    return snapshot.getRowCount();
+                }
+
+                @Override
+                long numberAt(final int index)
+                {
+                    return snapshot.numberAt(index);
+                }
+
+                @Override
+                Long reportsToAt(final int index)
+                {
+                    return snapshot.reportsToAt(index);
+                }
+
+                @Override
+                String roleAt(final int index)
+                {
+                    return snapshot.roleAt(index);
+                }
+
+                @Override
+                boolean isOnHolidayAt(final int index)
+                {
+                    return snapshot.isOnHolidayAt(index);
+                }
+
+                @Override
+                List<String> teamsAt(final int index)
+                {
+                    return snapshot.getTeamNames(snapshot.numberAt(index));
+                }
+            };
+        }
+    }
+
+    private OrganisationDiff()
+    {
+    }
+
+    public static List<Difference> compare(final Organisation before, final Organisation after)
+    {
+        final List<Difference> differences = new ArrayList<>();
+        compare(Source.of(before), Source.of(after), differences::add);
+        return differences;
+    }
+
+    // returns how many differences were handed to the sink; the differences of one person come together and people
+    // come in employee number order
+    public static long compare(final Source before, final Source after, final Consumer<Difference> sink)
+    {
+        long found = 0L;
+        int left = 0;
+        int right = 0;
+        while(left < before.size() || right < after.size()){
+            final boolean removed = right == after.size() || (left < before.size() && before.numberAt(left) < after.numberAt(right));
+            final boolean added = !removed && (left == before.size() || after.numberAt(right) < before.numberAt(left));
+            if(removed){
+                sink.accept(new Difference(Type.REMOVED, before.numberAt(left), before.roleAt(left), null));
+                found++;
+                left++;
+            } else if(added){
+                sink.accept(new Difference(Type.ADDED, after.numberAt(right), null, after.roleAt(right)));
+                found++;
+                right++;
+            } else {
+                found += compareSamePerson(before, left++, after, right++, sink);
+            }
+        }
+        return found;
+    }
+
+    private static int compareSamePerson(final Source before, final int left, final Source after, final int right, final Consumer<Difference> sink)
+    {
+        final long employeeNumber = after.numberAt(right);
+        int found = 0;
+        final Long managerBefore = before.reportsToAt(left);
+        final Long managerAfter = after.reportsToAt(right);
+        if(!Objects.equals(managerBefore, managerAfter)){
+            sink.accept(new Difference(Type.MANAGER_CHANGED, employeeNumber, managerBefore, managerAfter));
+            found++;
+        }
+        final String roleBefore = before.roleAt(left);
+        final String roleAfter = after.roleAt(right);
+        if(!Objects.equals(roleBefore, roleAfter)){
+            sink.accept(new Difference(Type.ROLE_CHANGED, employeeNumber, roleBefore, roleAfter));
+            found++;
+        }
+        final List<String> teamsBefore = sorted(before.teamsAt(left));
+        final List<String> teamsAfter = sorted(after.teamsAt(right));
+        if(!teamsBefore.equals(teamsAfter)){
+            sink.accept(new Difference(Type.TEAMS_CHANGED, employeeNumber, teamsBefore, teamsAfter));
+            found++;
+        }
+        final boolean holidayBefore = before.isOnHolidayAt(left);
+        final boolean holidayAfter = after.isOnHolidayAt(right);
+        if(holidayBefore != holidayAfter){
+            sink.accept(new Difference(Type.HOLIDAY_CHANGED, employeeNumber, holidayBefore, holidayAfter));
+            found++;
+        }
+        return found;
+    }
+
+    // the order teams were joined in is not a change
+    private static List<String> sorted(final List<String> teams)
+    {
+        if(teams.size() < 2){
+            return teams;
+        }
+        final List<String> copy = new ArrayList<>(teams);
+        Collections.sort(copy);
+        return copy;
+    }
+}
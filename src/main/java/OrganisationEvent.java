@@ -0,0 +1,90 @@
+// one change to the organisation as it happened, including the ones a call makes on its own such as holiday cover
+// and successor promotion; fields a type does not use are null
+public final class OrganisationEvent
+{
+    public enum Type
+    {
+        EMPLOYEE_ADDED, // managerNumber
+        MANAGER_ADDED, // managerNumber, role
+        TEAM_ADDED, // teamName, managerNumber
+        MOVED_TEAM, // teamName is the old team, newTeam
+        WENT_ON_HOLIDAY,
+        RETURNED_FROM_HOLIDAY,
+        PROMOTED, // managerNumber, role
+        MANAGER_NUMBER_CHANGED, // managerNumber, who the person now reports to day to day
+        TEAM_MANAGER_CHANGED, // teamName, managerNumber
+        CURRENT_MANAGER_CHANGED, // teamName, managerNumber, who covers the team
+        HOLIDAY_SCHEDULED // the holiday flag only follows once applyHolidays reaches the day
+    }
+
+    private final Type type;
+    private final long employeeNumber;
+    private final Long managerNumber;
+    private final String role;
+    private final String teamName;
+    private final String newTeam;
+
+    private OrganisationEvent(final Type type, final long employeeNumber, final Long managerNumber, final String role, final String teamName, final String newTeam)
+    {
+        this.type = type;
+        this.employeeNumber = employeeNumber;
+        this.managerNumber = managerNumber;
+        this.role = role;
+        this.teamName = teamName;
+        this.newTeam = newTeam;
+    }
+
+    static OrganisationEvent person(final Type type, final long employeeNumber, final Long managerNumber, final String role)
+    {
+        return new OrganisationEvent(type, employeeNumber, managerNumber, role, null, null);
+    }
+
+    static OrganisationEvent team(final Type type, final String teamName, final Long managerNumber)
+    {
+        return new OrganisationEvent(type, 0L, managerNumber, null, teamName, null);
+    }
+
+    static OrganisationEvent moved(final long employeeNumber, final String oldTeam, final String newTeam)
+    {
+        return new OrganisationEvent(Type.MOVED_TEAM, employeeNumber, null, null, oldTeam, newTeam);
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public long getEmployeeNumber()
+    {
+        return employeeNumber;
+    }
+
+    public Long getManagerNumber()
+    {
+        return managerNumber;
+    }
+
+    public String getRole()
+    {
+        return role;
+    }
+
+    public String getTeamName()
+    {
+        return teamName;
+    }
+
+    public String getNewTeam()
+    {
+        return newTeam;
+    }
+
+    @Override
+    public String toString()
+    {
+        return type + " " + (teamName != null ? teamName : String.valueOf(employeeNumber))
+                + (newTeam != null ? " -> " + newTeam : "")
+                + (managerNumber != null ? " manager " + managerNumber : "")
+                + (role != null ? " " + role : "");
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+// passes the organisation's changes on to subscribers in batches. Each writer thread collects its own events and
+// hands them over as one batch when its outermost call to the organisation finishes, or sooner once the batch is full,
+// so callers, and facades such as AsyncOrganisation and JournaledOrganisation, need not flush. Handing over never
+// blocks: every subscriber has a bounded buffer and requests batches at its own pace, and one that falls that far
+// behind misses batches rather than holding up HR. Batches are numbered, so a subscriber that sees a gap knows to start
+// again from a snapshot
+public class OrganisationEventPublisher implements OrganisationListener, AutoCloseable
+{
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    public static final class Batch
+    {
+        private final long sequence;
+        private final List<OrganisationEvent> events;
+
+        Batch(final long sequence, final List<OrganisationEvent> events)
+        {
+            this.sequence = sequence;
+            this.events = events;
+        }
+
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        public List<OrganisationEvent> getEvents()
+        {
+            return events;
+        }
+    }
+
+    private final SubmissionPublisher<Batch> publisher;
+    private final int maxBatchSize;
+    private final ThreadLocal<List<OrganisationEvent>> pending = ThreadLocal.withInitial(ArrayList::new);
+    private final LongAdder dropped = new LongAdder();
+    private long nextSequence = 1L; // guarded by this, numbering and handing over happen together so batches arrive in order
+
+    public OrganisationEventPublisher(final Organisation organisation)
+    {
+        this(organisation, ForkJoinPool.commonPool(), Flow.defaultBufferSize(), DEFAULT_BATCH_SIZE);
+    }
+
+    public OrganisationEventPublisher(final Organisation organisation, final Executor executor, final int bufferCapacity, final int maxBatchSize)
+    {
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.maxBatchSize = maxBatchSize;
+        organisation.addListener(this);
+    }
+
+    public void subscribe(final Flow.Subscriber<? super Batch> subscriber)
+    {
+        publisher.subscribe(subscriber);
+    }
+
+    // hands the calling thread's events over as one batch
+    public void flush()
+    {
+        final List<OrganisationEvent> events = pending.get();
+        if(events.isEmpty()){
+            return;
+        }
+        final List<OrganisationEvent> batch = List.copyOf(events);
+        events.clear();
+        synchronized(this){
+            publisher.offer(new Batch(nextSequence++, batch), (subscriber, missed) -> {
+                dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    // batches missed by subscribers that were too far behind, counted once per subscriber
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    @Override
+    public void changed(final OrganisationEvent event)
+    {
+        final List<OrganisationEvent> events = pending.get();
+        events.add(event);
+        if(events.size() >= maxBatchSize){
+            flush();
+        }
+    }
+
+    @Override
+    public void callFinished()
+    {
+        flush();
+    }
+
+    @Override
+    public void personChanged(final long employeeNumber)
+    {
+    }
+
+    @Override
+    public void teamChanged(final String teamName)
+    {
+    }
+
+    @Override
+    public void membershipChanged(final long employeeNumber)
+    {
+    }
+
+    @Override
+    public void close()
+    {
+        publisher.close();
+    }
+}
@@ -0,0 +1,19 @@
+// told about every change Organisation makes, on the thread that made it and after the change is complete
+public interface OrganisationListener
+{
+    void personChanged(long employeeNumber);
+
+    void teamChanged(String teamName);
+
+    void membershipChanged(long employeeNumber);
+
+    // the same changes described by what happened, for listeners that pass them on rather than re-read the organisation
+    default void changed(OrganisationEvent event)
+    {
+    }
+
+    // after the outermost call on this thread returned or threw, e.g. once a whole reorganisation is done
+    default void callFinished()
+    {
+    }
+}
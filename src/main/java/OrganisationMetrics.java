@@ -0,0 +1,191 @@
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// counts and times the calls made to an Organisation, counts the ones that were rejected by their message, and how
+// much the calls that walk part of the organisation had to look at. Everything is recorded with striped adders and
+// atomic histograms so writers never wait on each other; an organisation without metrics uses DISABLED, where every
+// method returns straight away without reading the clock
+public class OrganisationMetrics
+{
+    public enum Call
+    {
+        ADD_EMPLOYEE,
+        ADD_MANAGER,
+        ADD_TEAM,
+        MOVE_TEAM,
+        GO_ON_HOLIDAY,
+        RETURN_FROM_HOLIDAY,
+        SCHEDULE_HOLIDAYS,
+        APPLY_HOLIDAYS,
+        PROMOTE,
+        REORGANISE
+    }
+
+    public enum Scan
+    {
+        COVERED_REPORTS, // reports whose cover was worked out again after a holiday change
+        COVERED_TEAMS, // teams whose current manager was worked out again
+        SCHEDULED_PEOPLE // people on the holiday calendar looked at by applyHolidays
+    }
+
+    private static final Call[] CALLS = Call.values();
+    private static final Scan[] SCANS = Scan.values();
+
+    static final OrganisationMetrics DISABLED = new OrganisationMetrics(false);
+
+    private final boolean enabled;
+    private final LongAdder[] calls = new LongAdder[CALLS.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[CALLS.length];
+    private final Map<Call, Map<String, LongAdder>> rejections = new EnumMap<>(Call.class);
+    private final LongAdder[] scans = new LongAdder[SCANS.length];
+    private final LongAdder[] scanned = new LongAdder[SCANS.length];
+
+    public OrganisationMetrics()
+    {
+        this(true);
+    }
+
+    private OrganisationMetrics(final boolean enabled)
+    {
+        this.enabled = enabled;
+        for(Call call : CALLS){
+            calls[call.ordinal()] = new LongAdder();
+            latencies[call.ordinal()] = new LatencyHistogram();
+            rejections.put(call, new ConcurrentHashMap<>());
+        }
+        for(Scan scan : SCANS){
+            scans[scan.ordinal()] = new LongAdder();
+            scanned[scan.ordinal()] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    long start()
+    {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    // hands the status back so a call can end with return metrics.finish(...)
+    String finish(final Call call, final long started, final String status)
+    {
+        if(!enabled){
+            return status;
+        }
+        latencies[call.ordinal()].record(System.nanoTime() - started);
+        calls[call.ordinal()].increment();
+        if(!Organisation.SUCCESS.equals(status)){
+            rejections.get(call).computeIfAbsent(String.valueOf(status), message -> new LongAdder()).increment();
+        }
+        return status;
+    }
+
+    void scanned(final Scan scan, final int size)
+    {
+        if(enabled){
+            scans[scan.ordinal()].increment();
+            scanned[scan.ordinal()].add(size);
+        }
+    }
+
+    public void exportTo(final MetricsExporter exporter)
+    {
+        exporter.export(snapshot());
+    }
+
+    // each figure is read on its own while calls carry on, so they can be a few calls apart from each other
+    public Snapshot snapshot()
+    {
+        final long[] callCounts = new long[CALLS.length];
+        final long[][] percentiles = new long[CALLS.length][];
+        final long[] maxLatencies = new long[CALLS.length];
+        final Map<Call, Map<String, Long>> rejected = new EnumMap<>(Call.class);
+        for(Call call : CALLS){
+            final int index = call.ordinal();
+            callCounts[index] = calls[index].sum();
+            percentiles[index] = new long[Snapshot.PERCENTILES.length];
+            for(int p = 0; p < Snapshot.PERCENTILES.length; p++){
+                percentiles[index][p] = latencies[index].getValueAtPercentile(Snapshot.PERCENTILES[p]);
+            }
+            maxLatencies[index] = latencies[index].getMax();
+            final Map<String, Long> messages = new HashMap<>();
+            rejections.get(call).forEach((message, count) -> messages.put(message, count.sum()));
+            rejected.put(call, Collections.unmodifiableMap(messages));
+        }
+        final long[] scanCounts = new long[SCANS.length];
+        final long[] scannedCounts = new long[SCANS.length];
+        for(Scan scan : SCANS){
+            scanCounts[scan.ordinal()] = scans[scan.ordinal()].sum();
+            scannedCounts[scan.ordinal()] = scanned[scan.ordinal()].sum();
+        }
+        return new Snapshot(callCounts, percentiles, maxLatencies, rejected, scanCounts, scannedCounts);
+    }
+
+    public static final class Snapshot
+    {
+        static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+        private final long[] calls;
+        private final long[][] percentiles;
+        private final long[] maxLatencies;
+        private final Map<Call, Map<String, Long>> rejections;
+        private final long[] scans;
+        private final long[] scanned;
+
+        private Snapshot(final long[] calls, final long[][] percentiles, final long[] maxLatencies, final Map<Call, Map<String, Long>> rejections,
+                         final long[] scans, final long[] scanned)
+        {
+            this.calls = calls;
+            this.percentiles = percentiles;
+            this.maxLatencies = maxLatencies;
+            this.rejections = rejections;
+            this.scans = scans;
+            this.scanned = scanned;
+        }
+
+        public long getCalls(final Call call)
+        {
+            return calls[call.ordinal()];
+        }
+
+        // nanoseconds, for the percentiles in PERCENTILES only
+        public long getLatencyAtPercentile(final Call call, final double percentile)
+        {
+            for(int p = 0; p < PERCENTILES.length; p++){
+                if(PERCENTILES[p] == percentile){
+                    return percentiles[call.ordinal()][p];
+                }
+            }
+            throw new IllegalArgumentException("Percentile not kept: " + percentile);
+        }
+
+        public long getMaxLatency(final Call call)
+        {
+            return maxLatencies[call.ordinal()];
+        }
+
+        // status message to how many calls returned it
+        public Map<String, Long> getRejections(final Call call)
+        {
+            return rejections.get(call);
+        }
+
+        public long getScans(final Scan scan)
+        {
+            return scans[scan.ordinal()];
+        }
+
+        // everything the scans of that kind looked at, added up
+        public long getScanned(final Scan scan)
+        {
+            return scanned[scan.ordinal()];
+        }
+    }
+}
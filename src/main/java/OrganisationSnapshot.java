@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// a frozen, versioned copy of the org chart; it never changes once built, so any number of readers can use it with no locks
+public final class OrganisationSnapshot
+{
+    public static final class PersonView
+    {
+        private final String firstName;
+        private final String lastName;
+        private final String role;
+        private final long startDate;
+        private final boolean isContractor;
+        private final long employeeNumber;
+        private final Long managerNumber; // who they report to today, holiday cover included
+        private final Long reportsTo; // their own manager in the reporting tree
+        private final boolean isOnHoliday;
+        private final boolean isManager;
+
+        PersonView(final Employee person, final Long reportsTo)
+        {
+            this.firstName = person.getFirstName();
+            this.lastName = person.getLastName();
+            this.role = person.getRole();
+            this.startDate = person.getStartDate() == null ? 0L : person.getStartDate().getTime();
+            this.isContractor = person.isContractor();
+            this.employeeNumber = person.getEmployeeNumber();
+            this.managerNumber = person.getManagerNumber();
+            this.reportsTo = reportsTo;
+            this.isOnHoliday = person.isOnHoliday();
+            this.isManager = person instanceof Manager || person instanceof CEO;
+        }
+
+        public String getFirstName()
+        {
+            return firstName;
+        }
+
+        public String getLastName()
+        {
+            return lastName;
+        }
+
+        public String getRole()
+        {
+            return role;
+        }
+
+        public long getStartDate()
+        {
+            return startDate;
+        }
+
+        public boolean isContractor()
+        {
+            return isContractor;
+        }
+
+        public long getEmployeeNumber()
+        {
+            return employeeNumber;
+        }
+
+        public Long getManagerNumber()
+        {
+            return managerNumber;
+        }
+
+        public Long getReportsTo()
+        {
+            return reportsTo;
+        }
+
+        public boolean isOnHoliday()
+        {
+            return isOnHoliday;
+        }
+
+        public boolean isManager()
+        {
+            return isManager;
+        }
+    }
+
+    public static final class TeamView
+    {
+        private final String teamName;
+        private final Long managerEmployeeId;
+        private final Long currentManager;
+        private final long[] members; // sorted
+
+        TeamView(final Team team)
+        {
+            this.teamName = team.getTeamName();
+            this.managerEmployeeId = team.getManagerEmployeeId();
+            this.currentManager = team.getCurrentManager();
+            this.members = team.getTeamMembersIds().toArray();
+            Arrays.sort(members);
+        }
+
+        public String getTeamName()
+        {
+            return teamName;
+        }
+
+        public Long getManagerEmployeeId()
+        {
+            return managerEmployeeId;
+        }
+
+        public Long getCurrentManager()
+        {
+            return currentManager;
+        }
+
+        public int getTeamSize()
+        {
+            return members.length;
+        }
+
+        public boolean isTeamMember(final long employeeNumber)
+        {
+            return Arrays.binarySearch(members, employeeNumber) >= 0;
+        }
+
+        public long[] getTeamMembersIds()
+        {
+            return members.clone();
+        }
+    }
+
+    private final long version;
+    private final PersonView ceo;
+    private final PagedMap<Long, PersonView> people;
+    private final PagedMap<String, TeamView> teams;
+    private final PagedMap<Long, List<String>> memberships;
+
+    OrganisationSnapshot(
+            final long version,
+            final PersonView ceo,
+            final PagedMap<Long, PersonView> people,
+            final PagedMap<String, TeamView> teams,
+            final PagedMap<Long, List<String>> memberships
+    )
+    {
+        this.version = version;
+        this.ceo = ceo;
+        this.people = people;
+        this.teams = teams;
+        this.memberships = memberships;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public PersonView getCeo()
+    {
+        return ceo;
+    }
+
+    public PersonView getPerson(final long employeeNumber)
+    {
+        return employeeNumber == ceo.getEmployeeNumber() ? ceo : people.get(employeeNumber);
+    }
+
+    public TeamView getTeam(final String teamName)
+    {
+        return teams.get(teamName);
+    }
+
+    // same rule as Organisation.getTeam, the team most recently joined
+    public TeamView getTeamOf(final long employeeNumber)
+    {
+        final List<String> teamNames = memberships.get(employeeNumber);
+        return teamNames == null ? null : teams.get(teamNames.get(teamNames.size() - 1));
+    }
+
+    public List<TeamView> getTeamsOf(final long employeeNumber)
+    {
+        final List<String> teamNames = memberships.get(employeeNumber);
+        if(teamNames == null){
+            return Collections.emptyList();
+        }
+        final List<TeamView> memberOf = new ArrayList<>(teamNames.size());
+        for(String teamName : teamNames){
+            memberOf.add(teams.get(teamName));
+        }
+        return memberOf;
+    }
+
+    public int getPeopleCount()
+    {
+        return people.size();
+    }
+
+    public int getTeamCount()
+    {
+        return teams.size();
+    }
+
+    public void forEachPerson(final Consumer<PersonView> action)
+    {
+        people.forEach((employeeNumber, person) -> action.accept(person));
+    }
+
+    public void forEachTeam(final Consumer<TeamView> action)
+    {
+        teams.forEach((teamName, team) -> action.accept(team));
+    }
+
+    PagedMap<Long, PersonView> people()
+    {
+        return people;
+    }
+
+    PagedMap<String, TeamView> teams()
+    {
+        return teams;
+    }
+
+    PagedMap<Long, List<String>> memberships()
+    {
+        return memberships;
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// keeps the views the org chart asks for over and over: who covers a team, a manager's direct reports and the chain
+// up to the CEO. Views are worked out on first use and kept, least recently used first out, until their total weight
+// passes the limit. A view is dropped only when something it was built from changes: a team's view when that team
+// changes, and a reports or chain view when a person it was built from gets a different place in the reporting tree.
+// Holiday changes leave the tree alone and so leave chains and reports cached. Unit headcounts are kept up to date
+// by the reporting tree itself and are read straight from it
+public class OrganisationViewCache implements OrganisationListener
+{
+    private static final long ENTRY_WEIGHT = 64L; // key, entry and map overhead, a number in a view adds 8
+
+    private enum Kind
+    {
+        TEAM_MANAGER,
+        DIRECT_REPORTS,
+        CHAIN
+    }
+
+    private static final class Key
+    {
+        final Kind kind;
+        final long number;
+        final String teamName;
+
+        Key(final Kind kind, final long number, final String teamName)
+        {
+            this.kind = kind;
+            this.number = number;
+            this.teamName = teamName;
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if(!(other instanceof Key)){
+                return false;
+            }
+            final Key key = (Key) other;
+            return kind == key.kind && number == key.number && Objects.equals(teamName, key.teamName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * kind.hashCode() + Long.hashCode(number)) + Objects.hashCode(teamName);
+        }
+    }
+
+    private static final class Entry
+    {
+        final Object value;
+        final long[] people; // whose place in the tree the view was built from, parents[i] is where people[i] was
+        final Long[] parents;
+        final long weight;
+
+        Entry(final Object value, final long[] people, final Long[] parents, final long weight)
+        {
+            this.value = value;
+            this.people = people;
+            this.parents = parents;
+            this.weight = weight;
+        }
+    }
+
+    private final Organisation organisation;
+    private final long maxWeight;
+    // all guarded by this
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<Key>> dependents = new HashMap<>();
+    private final Map<Long, Long> parentSeen = new HashMap<>(); // the manager each tracked person had when their views were built
+    private long weight;
+    private long version; // moves on every change that could matter, a view worked out across one is not kept
+    private long hits;
+    private long misses;
+
+    public OrganisationViewCache(final Organisation organisation, final long maxWeight)
+    {
+        this.organisation = organisation;
+        this.maxWeight = maxWeight;
+        organisation.addListener(this);
+    }
+
+    // the manager covering the team now, null for an unknown team or one waiting for a manager
+    public Long getEffectiveManager(final String teamName)
+    {
+        return (Long) get(new Key(Kind.TEAM_MANAGER, 0L, teamName), () -> {
+            final Team team = organisation.findTeam(teamName);
+            return new Entry(team == null ? null : team.getCurrentManager(), new long[0], new Long[0], ENTRY_WEIGHT);
+        });
+    }
+
+    public long[] getDirectReports(final long managerNumber)
+    {
+        final long[] reports = (long[]) get(new Key(Kind.DIRECT_REPORTS, managerNumber, null), () -> {
+            final long[] found = organisation.getDirectReports(managerNumber);
+            final Long[] parents = new Long[found.length];
+            for(int i = 0; i < found.length; i++){
+                parents[i] = managerNumber;
+            }
+            return new Entry(found, found, parents, ENTRY_WEIGHT + 8L * found.length);
+        });
+        return reports.clone();
+    }
+
+    // the person's manager first, the CEO last
+    public long[] getManagementChain(final long employeeNumber)
+    {
+        final long[] chain = (long[]) get(new Key(Kind.CHAIN, employeeNumber, null), () -> {
+            final long[] found = organisation.getManagementChain(employeeNumber);
+            final long[] people = new long[found.length + 1];
+            final Long[] parents = new Long[found.length + 1];
+            people[0] = employeeNumber;
+            System.arraycopy(found, 0, people, 1, found.length);
+            for(int i = 0; i < people.length; i++){
+                parents[i] = i < found.length ? found[i] : null;
+            }
+            return new Entry(found, people, parents, ENTRY_WEIGHT + 16L * found.length);
+        });
+        return chain.clone();
+    }
+
+    public int getUnitHeadcount(final long managerNumber)
+    {
+        return organisation.getUnitHeadcount(managerNumber);
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    // a person who moved drops every view built from where they were, and the reports of the manager they moved to
+    @Override
+    public synchronized void personChanged(final long employeeNumber)
+    {
+        final Long parent = organisation.getReportsTo(employeeNumber);
+        if(parentSeen.containsKey(employeeNumber) && Objects.equals(parentSeen.get(employeeNumber), parent)){
+            return;
+        }
+        version++; // the person may be part of a view being worked out right now
+        final Set<Key> stale = dependents.get(employeeNumber);
+        if(stale != null){
+            for(Key key : stale.toArray(new Key[0])){
+                drop(key);
+            }
+        }
+        if(parent != null){
+            drop(new Key(Kind.DIRECT_REPORTS, parent, null));
+        }
+    }
+
+    @Override
+    public synchronized void teamChanged(final String teamName)
+    {
+        version++;
+        drop(new Key(Kind.TEAM_MANAGER, 0L, teamName));
+    }
+
+    @Override
+    public void membershipChanged(final long employeeNumber)
+    {
+    }
+
+    private Object get(final Key key, final Supplier<Entry> build)
+    {
+        final long versionBefore;
+        synchronized(this){
+            final Entry cached = entries.get(key);
+            if(cached != null){
+                hits++;
+                return cached.value;
+            }
+            misses++;
+            versionBefore = version;
+        }
+        final Entry built = build.get(); // outside the lock, the organisation may call back into personChanged meanwhile
+        synchronized(this){
+            if(version == versionBefore && !entries.containsKey(key)){
+                keep(key, built);
+            }
+        }
+        return built.value;
+    }
+
+    private void keep(final Key key, final Entry entry)
+    {
+        entries.put(key, entry);
+        weight += entry.weight;
+        for(int i = 0; i < entry.people.length; i++){
+            dependents.computeIfAbsent(entry.people[i], person -> new HashSet<>()).add(key);
+            parentSeen.put(entry.people[i], entry.parents[i]);
+        }
+        final Iterator<Map.Entry<Key, Entry>> leastRecentlyUsed = entries.entrySet().iterator();
+        while(weight > maxWeight && entries.size() > 1){
+            final Map.Entry<Key, Entry> eldest = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            forget(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void drop(final Key key)
+    {
+        final Entry entry = entries.remove(key);
+        if(entry != null){
+            forget(key, entry);
+        }
+    }
+
+    private void forget(final Key key, final Entry entry)
+    {
+        weight -= entry.weight;
+        for(long person : entry.people){
+            final Set<Key> keys = dependents.get(person);
+            if(keys != null && keys.remove(key) && keys.isEmpty()){
+                dependents.remove(person);
+                parentSeen.remove(person);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// immutable map split into pages by key hash; an update copies only the pages it touches and shares the rest. The
+// number of pages doubles as the map grows so pages, and with them the cost of an update, stay about the same size
+public final class PagedMap<K, V>
+{
+    private static final int MIN_PAGES = 16;
+    private static final int TARGET_PAGE_SIZE = 512;
+    private static final int MAX_PAGE_SIZE = 2 * TARGET_PAGE_SIZE; // on average, past it the pages are split
+
+    private final List<Map<K, V>> pages; // a power of two of them, never changed once the map is built
+    private final int size;
+
+    private PagedMap(final List<Map<K, V>> pages, final int size)
+    {
+        this.pages = pages;
+        this.size = size;
+    }
+
+    public static <K, V> PagedMap<K, V> of(final Map<K, V> entries)
+    {
+        final int wanted = Math.max(MIN_PAGES, entries.size() / TARGET_PAGE_SIZE);
+        final int count = Integer.highestOneBit(wanted - 1) << 1;
+        final List<Map<K, V>> pages = emptyPages(count);
+        entries.forEach((key, value) -> pages.get(pageOf(key, count)).put(key, value));
+        return new PagedMap<>(pages, entries.size());
+    }
+
+    public V get(final K key)
+    {
+        return pages.get(pageOf(key, pages.size())).get(key);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void forEach(final BiConsumer<? super K, ? super V> action)
+    {
+        for(Map<K, V> page : pages){
+            page.forEach(action);
+        }
+    }
+
+    // a null value in updates removes the key
+    public PagedMap<K, V> with(final Map<K, V> updates)
+    {
+        if(updates.isEmpty()){
+            return this;
+        }
+        final List<Map<K, V>> next = new ArrayList<>(pages);
+        final boolean[] copied = new boolean[pages.size()];
+        int nextSize = size;
+        for(Map.Entry<K, V> update : updates.entrySet()){
+            final int page = pageOf(update.getKey(), pages.size());
+            if(!copied[page]){
+                next.set(page, new HashMap<>(pages.get(page)));
+                copied[page] = true;
+            }
+            final V previous = update.getValue() == null
+                    ? next.get(page).remove(update.getKey())
+                    : next.get(page).put(update.getKey(), update.getValue());
+            if(previous == null && update.getValue() != null){
+                nextSize++;
+            } else if(previous != null && update.getValue() == null){
+                nextSize--;
+            }
+        }
+        final PagedMap<K, V> updated = new PagedMap<>(next, nextSize);
+        return nextSize > (long) next.size() * MAX_PAGE_SIZE ? updated.split() : updated;
+    }
+
+    // true when both maps hold the very same page object, i.e. the page was shared rather than copied
+    boolean sharesPageWith(final PagedMap<K, V> other, final K key)
+    {
+        final int page = pageOf(key, pages.size());
+        return other.pages.size() == pages.size() && other.pages.get(page) == pages.get(page);
+    }
+
+    int pageCount()
+    {
+        return pages.size();
+    }
+
+    // twice as many pages, each key moves to the page its next hash bit picks; every page is copied once here, which
+    // the entries added since the last split have paid for
+    private PagedMap<K, V> split()
+    {
+        final int count = pages.size() * 2;
+        final List<Map<K, V>> next = emptyPages(count);
+        forEach((key, value) -> next.get(pageOf(key, count)).put(key, value));
+        return new PagedMap<>(next, size);
+    }
+
+    private static <K, V> List<Map<K, V>> emptyPages(final int count)
+    {
+        final List<Map<K, V>> pages = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            pages.add(new HashMap<>());
+        }
+        return pages;
+    }
+
+    private static int pageOf(final Object key, final int pageCount)
+    {
+        final int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (pageCount - 1);
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// finds people by name prefix, role, contractor and holiday status and start date without scanning everyone. Every
+// person indexed gets a row; names and start days are kept in sorted maps of rows so a prefix or a date range is one
+// sub map, and the yes/no attributes are bitmaps over the rows, so filters are combined by and-ing bitmaps into one
+// result set. Organisation keeps it up to date from personChanged once search() has built it
+public final class PeopleSearch
+{
+    private final LongIntHashMap rows;
+    private long[] employeeNumbers;
+    private String[] firstNames; // as indexed, so the old entries can be found when a person changes
+    private String[] lastNames;
+    private String[] roles;
+    private long[] startDates; // in milliseconds, the index below only has the day
+    private int rowCount;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final BitSet live = new BitSet(); // rows of people still in the organisation
+    private final BitSet contractors = new BitSet();
+    private final BitSet onHoliday = new BitSet();
+    private final Map<String, BitSet> byRole = new HashMap<>();
+    private final TreeMap<String, LongHashSet> byFirstName = new TreeMap<>();
+    private final TreeMap<String, LongHashSet> byLastName = new TreeMap<>();
+    private final TreeMap<Long, LongHashSet> byStartDay = new TreeMap<>(); // epoch day, so one key per day people started
+    // a query builds its answer in matches and each sorted map range in scratch; both are reused, as queries hold the lock
+    private final BitSet matches = new BitSet();
+    private final BitSet scratch = new BitSet();
+
+    PeopleSearch(final int expectedPeople)
+    {
+        final int capacity = Math.max(16, expectedPeople);
+        rows = new LongIntHashMap(capacity);
+        employeeNumbers = new long[capacity];
+        firstNames = new String[capacity];
+        lastNames = new String[capacity];
+        roles = new String[capacity];
+        startDates = new long[capacity];
+    }
+
+    public Query query()
+    {
+        return new Query();
+    }
+
+    // re-reads the person, null when they are no longer in the organisation
+    synchronized void update(final long employeeNumber, final Employee person)
+    {
+        int row = rows.get(employeeNumber);
+        if(row >= 0 && live.get(row)){
+            unindex(row);
+        }
+        if(person == null){
+            return;
+        }
+        if(row < 0){
+            row = newRow(employeeNumber);
+        }
+        firstNames[row] = key(person.getFirstName());
+        lastNames[row] = key(person.getLastName());
+        roles[row] = person.getRole();
+        startDates[row] = person.getStartDate() == null ? Long.MIN_VALUE : person.getStartDate().getTime();
+        live.set(row);
+        contractors.set(row, person.isContractor());
+        onHoliday.set(row, person.isOnHoliday());
+        if(roles[row] != null){
+            byRole.computeIfAbsent(roles[row], role -> new BitSet()).set(row);
+        }
+        byFirstName.computeIfAbsent(firstNames[row], name -> new LongHashSet(1)).add(row);
+        byLastName.computeIfAbsent(lastNames[row], name -> new LongHashSet(1)).add(row);
+        byStartDay.computeIfAbsent(dayOf(startDates[row]), day -> new LongHashSet(1)).add(row);
+    }
+
+    private void unindex(final int row)
+    {
+        live.clear(row);
+        contractors.clear(row);
+        onHoliday.clear(row);
+        if(roles[row] != null){
+            byRole.get(roles[row]).clear(row);
+        }
+        removeRow(byFirstName, firstNames[row], row);
+        removeRow(byLastName, lastNames[row], row);
+        removeRow(byStartDay, dayOf(startDates[row]), row);
+    }
+
+    private int newRow(final long employeeNumber)
+    {
+        if(rowCount == employeeNumbers.length){
+            final int capacity = rowCount * 2;
+            employeeNumbers = Arrays.copyOf(employeeNumbers, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            startDates = Arrays.copyOf(startDates, capacity);
+        }
+        employeeNumbers[rowCount] = employeeNumber;
+        rows.put(employeeNumber, rowCount);
+        return rowCount++;
+    }
+
+    private static <K> void removeRow(final Map<K, LongHashSet> index, final K key, final int row)
+    {
+        final LongHashSet matches = index.get(key);
+        matches.remove(row);
+        if(matches.isEmpty()){
+            index.remove(key);
+        }
+    }
+
+    private static long dayOf(final long millis)
+    {
+        return Math.floorDiv(millis, MILLIS_PER_DAY);
+    }
+
+    private static String key(final String name)
+    {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    // prefixes are matched ignoring case, every filter given has to match
+    public final class Query
+    {
+        private String firstNamePrefix;
+        private String lastNamePrefix;
+        private String namePrefix;
+        private String role;
+        private Boolean contractor;
+        private Boolean holiday;
+        private Date startedFrom;
+        private Date startedTo;
+
+        private Query()
+        {
+        }
+
+        public Query firstNameStartsWith(final String prefix)
+        {
+            this.firstNamePrefix = key(prefix);
+            return this;
+        }
+
+        public Query lastNameStartsWith(final String prefix)
+        {
+            this.lastNamePrefix = key(prefix);
+            return this;
+        }
+
+        // either name, the way the portal's find box is used
+        public Query nameStartsWith(final String prefix)
+        {
+            this.namePrefix = key(prefix);
+            return this;
+        }
+
+        public Query role(final String role)
+        {
+            this.role = role;
+            return this;
+        }
+
+        public Query contractor(final boolean contractor)
+        {
+            this.contractor = contractor;
+            return this;
+        }
+
+        public Query onHoliday(final boolean onHoliday)
+        {
+            this.holiday = onHoliday;
+            return this;
+        }
+
+        // both ends included, either may be null to leave that side open
+        public Query startedBetween(final Date from, final Date to)
+        {
+            this.startedFrom = from;
+            this.startedTo = to;
+            return this;
+        }
+
+        // employee numbers in ascending order
+        public long[] find()
+        {
+            synchronized(PeopleSearch.this){
+                final BitSet matches = matches();
+                final long[] found = new long[matches.cardinality()];
+                int next = 0;
+                for(int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)){
+                    found[next++] = employeeNumbers[row];
+                }
+                Arrays.sort(found);
+                return found;
+            }
+        }
+
+        public int count()
+        {
+            synchronized(PeopleSearch.this){
+                return matches().cardinality();
+            }
+        }
+
+        // narrowest filters first: everything is and-ed into matches in place, a sorted map range is gathered in
+        // scratch first; matches is only good until the lock is let go
+        private BitSet matches()
+        {
+            matches.clear();
+            matches.or(live);
+            if(role != null){
+                final BitSet withRole = byRole.get(role);
+                if(withRole == null){
+                    matches.clear();
+                    return matches;
+                }
+                matches.and(withRole);
+            }
+            if(contractor != null){
+                filter(contractors, contractor);
+            }
+            if(holiday != null){
+                filter(onHoliday, holiday);
+            }
+            if(firstNamePrefix != null){
+                scratch.clear();
+                withPrefix(byFirstName, firstNamePrefix);
+                matches.and(scratch);
+            }
+            if(lastNamePrefix != null){
+                scratch.clear();
+                withPrefix(byLastName, lastNamePrefix);
+                matches.and(scratch);
+            }
+            if(namePrefix != null){
+                scratch.clear();
+                withPrefix(byFirstName, namePrefix);
+                withPrefix(byLastName, namePrefix);
+                matches.and(scratch);
+            }
+            if(startedFrom != null || startedTo != null){
+                scratch.clear();
+                startedIn(startedFrom == null ? Long.MIN_VALUE : startedFrom.getTime(), startedTo == null ? Long.MAX_VALUE : startedTo.getTime());
+                matches.and(scratch);
+            }
+            return matches;
+        }
+
+        private void filter(final BitSet flag, final boolean wanted)
+        {
+            if(wanted){
+                matches.and(flag);
+            } else {
+                matches.andNot(flag);
+            }
+        }
+
+        private void withPrefix(final TreeMap<String, LongHashSet> names, final String prefix)
+        {
+            for(LongHashSet rows : names.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()){
+                collect(rows);
+            }
+        }
+
+        // the days in between are taken whole, only the first and last day are checked to the millisecond
+        private void startedIn(final long from, final long to)
+        {
+            final long firstDay = dayOf(from);
+            final long lastDay = dayOf(to);
+            for(Map.Entry<Long, LongHashSet> day : byStartDay.subMap(firstDay, true, lastDay, true).entrySet()){
+                final LongHashSet rows = day.getValue();
+                if(day.getKey() != firstDay && day.getKey() != lastDay){
+                    collect(rows);
+                    continue;
+                }
+                for(int slot = rows.firstSlot(); slot >= 0; slot = rows.nextSlot(slot)){
+                    final int row = (int) rows.keyAt(slot);
+                    if(startDates[row] >= from && startDates[row] <= to){
+                        scratch.set(row);
+                    }
+                }
+            }
+        }
+
+        private void collect(final LongHashSet rows)
+        {
+            for(int slot = rows.firstSlot(); slot >= 0; slot = rows.nextSlot(slot)){
+                scratch.set((int) rows.keyAt(slot));
+            }
+        }
+    }
+}
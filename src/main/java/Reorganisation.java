@@ -0,0 +1,48 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// a set of moves, promotions and holiday changes that Organisation.reorganise applies all together or not at all
+public class Reorganisation
+{
+    private final List<Operation> operations = new ArrayList<>();
+
+    public Reorganisation moveTeam(final String oldTeam, final String newTeam, final long employeeNumber, final boolean isManager)
+    {
+        operations.add(Operation.moveTeam(oldTeam, newTeam, employeeNumber, isManager));
+        return this;
+    }
+
+    public Reorganisation promote(final long employeeNumber, final long newManagerNumber, final boolean isEmployee, final String newRole)
+    {
+        operations.add(Operation.promote(employeeNumber, newManagerNumber, isEmployee, newRole));
+        return this;
+    }
+
+    public Reorganisation goOnHoliday(final long employeeNumber)
+    {
+        operations.add(Operation.goOnHoliday(employeeNumber));
+        return this;
+    }
+
+    public Reorganisation returnFromHoliday(final long employeeNumber)
+    {
+        operations.add(Operation.returnFromHoliday(employeeNumber));
+        return this;
+    }
+
+    void add(final Operation operation)
+    {
+        operations.add(operation);
+    }
+
+    public List<Operation> getOperations()
+    {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int size()
+    {
+        return operations.size();
+    }
+}
@@ -0,0 +1,562 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+public class ReportingTree
+{
+    public static final long NO_MANAGER = -1L;
+
+    // every person is a node linked to their manager's node, each node caches totals for its whole unit (itself
+    // and everyone below it) so a change only has to walk up the chain to the CEO
+    static final class Node
+    {
+        final long employeeNumber;
+        volatile Node parent;
+        final List<Node> children = new ArrayList<>(0);
+        int indexInParent = -1;
+        volatile boolean registered; // false while the node only stands in for a manager number nobody has been added under yet
+        volatile boolean isManager;
+        volatile boolean isDirector;
+        volatile boolean onHoliday;
+        // totals are added to atomically so unrelated changes can walk up a shared chain at the same time
+        volatile int seats; // members of the teams this person manages
+        volatile int unitSeats;
+        volatile int unitManagers;
+        volatile int unitDirectors;
+        // kept by ChainIndex while it is ready, up is null until a node has been labelled
+        long enter;
+        long exit;
+        long lastUsed; // the highest label handed out inside the node's range so far
+        int depth;
+        Node[] up;
+
+        Node(final long employeeNumber)
+        {
+            this.employeeNumber = employeeNumber;
+        }
+    }
+
+    // what a change can set on a node directly, the unit totals follow from these
+    static final class NodeState
+    {
+        final long employeeNumber;
+        final boolean registered;
+        final Long parent;
+        final boolean isManager;
+        final boolean isDirector;
+        final boolean onHoliday;
+        final int seats;
+
+        NodeState(final long employeeNumber, final boolean registered, final Long parent, final boolean isManager, final boolean isDirector, final boolean onHoliday, final int seats)
+        {
+            this.employeeNumber = employeeNumber;
+            this.registered = registered;
+            this.parent = parent;
+            this.isManager = isManager;
+            this.isDirector = isDirector;
+            this.onHoliday = onHoliday;
+            this.seats = seats;
+        }
+    }
+
+    private static final VarHandle SEATS;
+    private static final VarHandle UNIT_SEATS;
+    private static final VarHandle UNIT_MANAGERS;
+    private static final VarHandle UNIT_DIRECTORS;
+
+    static
+    {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SEATS = lookup.findVarHandle(Node.class, "seats", int.class);
+            UNIT_SEATS = lookup.findVarHandle(Node.class, "unitSeats", int.class);
+            UNIT_MANAGERS = lookup.findVarHandle(Node.class, "unitManagers", int.class);
+            UNIT_DIRECTORS = lookup.findVarHandle(Node.class, "unitDirectors", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<Long, Node> nodes;
+    // re-linking a node moves its whole unit's totals, so it excludes other changes; adding to totals only needs to
+    // keep links still while it walks up, which any number of callers can do at once
+    private final ReentrantReadWriteLock links = new ReentrantReadWriteLock();
+    private volatile boolean deferTotals; // set while bulk loading, totals are rebuilt in one pass at the end
+    private final ChainIndex chains = new ChainIndex();
+
+    public ReportingTree()
+    {
+        this(16);
+    }
+
+    public ReportingTree(final int expectedPeople)
+    {
+        nodes = new ConcurrentHashMap<>(Math.max(16, expectedPeople));
+    }
+
+    public void beginBulkLoad()
+    {
+        deferTotals = true;
+        chains.invalidate();
+    }
+
+    public void endBulkLoad()
+    {
+        deferTotals = false;
+        recomputeTotals();
+    }
+
+    public void addPerson(final long employeeNumber, final Long managerNumber, final boolean isManager, final boolean isDirector)
+    {
+        links.writeLock().lock();
+        try {
+            final Node node = nodes.computeIfAbsent(employeeNumber, Node::new);
+            node.registered = true;
+            setRole(node, isManager, isDirector);
+            setManager(node, managerNumber);
+        } finally {
+            links.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(final long employeeNumber)
+    {
+        final Node node = nodes.get(employeeNumber);
+        return node != null && node.registered;
+    }
+
+    public void setRole(final long employeeNumber, final boolean isManager, final boolean isDirector)
+    {
+        links.readLock().lock();
+        try {
+            setRole(nodes.computeIfAbsent(employeeNumber, Node::new), isManager, isDirector);
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // returns false when the new manager sits inside the person's own unit, which would close a loop
+    public boolean setManager(final long employeeNumber, final Long managerNumber)
+    {
+        links.writeLock().lock();
+        try {
+            return setManager(nodes.computeIfAbsent(employeeNumber, Node::new), managerNumber);
+        } finally {
+            links.writeLock().unlock();
+        }
+    }
+
+    public void addSeats(final Long managerNumber, final int seats)
+    {
+        if(managerNumber == null || managerNumber == NO_MANAGER || seats == 0){
+            return;
+        }
+        links.readLock().lock();
+        try {
+            final Node node = nodes.computeIfAbsent(managerNumber, Node::new);
+            SEATS.getAndAdd(node, seats);
+            propagate(node, seats, 0, 0);
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    public void setOnHoliday(final long employeeNumber, final boolean onHoliday)
+    {
+        final Node node = nodes.get(employeeNumber);
+        if(node != null){
+            node.onHoliday = onHoliday;
+        }
+    }
+
+    // the nearest manager above the person who is not on holiday, found by walking up the chain
+    public Long coverFor(final long employeeNumber)
+    {
+        return coverFor(employeeNumber, null, null);
+    }
+
+    // as above for another day: people the calendar has a range for are away if it has them out, everyone else keeps
+    // the holiday flag on their node
+    public Long coverFor(final long employeeNumber, final LongPredicate scheduled, final LongPredicate out)
+    {
+        links.readLock().lock();
+        try {
+            final Node node = nodes.get(employeeNumber);
+            Node cover = node == null ? null : node.parent;
+            while(cover != null && isAway(cover, scheduled, out) && cover.parent != null){
+                cover = cover.parent;
+            }
+            return cover == null ? null : cover.employeeNumber;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    private static boolean isAway(final Node node, final LongPredicate scheduled, final LongPredicate out)
+    {
+        return scheduled != null && scheduled.test(node.employeeNumber) ? out.test(node.employeeNumber) : node.onHoliday;
+    }
+
+    // everyone whose cover is decided by this person: their direct reports, and the reports of any of those who are
+    // on holiday themselves, all the way down through managers who are away; nobody else is visited
+    public long[] coveredBy(final long employeeNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node node = nodes.get(employeeNumber);
+            if(node == null){
+                return new long[0];
+            }
+            final LongHashSet covered = new LongHashSet(node.children.size());
+            final ArrayDeque<Node> stack = new ArrayDeque<>();
+            stack.push(node);
+            while(!stack.isEmpty()){
+                for(Node report : stack.pop().children){
+                    covered.add(report.employeeNumber);
+                    if(report.onHoliday){
+                        stack.push(report);
+                    }
+                }
+            }
+            return covered.toArray();
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    public Long getManagerNumber(final long employeeNumber)
+    {
+        final Node node = nodes.get(employeeNumber);
+        return node == null || node.parent == null ? null : node.parent.employeeNumber;
+    }
+
+    // the people linked directly under the person in the tree, holiday cover does not change these
+    public long[] getDirectReports(final long employeeNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node node = nodes.get(employeeNumber);
+            if(node == null){
+                return new long[0];
+            }
+            final long[] reports = new long[node.children.size()];
+            for(int i = 0; i < reports.length; i++){
+                reports[i] = node.children.get(i).employeeNumber;
+            }
+            Arrays.sort(reports);
+            return reports;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // team members anywhere in the unit, including the person's own teams
+    public int getUnitHeadcount(final long employeeNumber)
+    {
+        final Node node = nodes.get(employeeNumber);
+        return node == null ? 0 : node.unitSeats;
+    }
+
+    // managers below the person, not counting themselves
+    public int getUnitManagers(final long employeeNumber)
+    {
+        final Node node = nodes.get(employeeNumber);
+        return node == null ? 0 : node.unitManagers - (node.isManager ? 1 : 0);
+    }
+
+    public int getUnitDirectors(final long employeeNumber)
+    {
+        final Node node = nodes.get(employeeNumber);
+        return node == null ? 0 : node.unitDirectors - (node.isDirector ? 1 : 0);
+    }
+
+    // whether the person is the manager or anywhere below them
+    public boolean isInUnit(final long employeeNumber, final long managerNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node person = nodes.get(employeeNumber);
+            final Node manager = nodes.get(managerNumber);
+            if(person == null || manager == null){
+                return false;
+            }
+            if(indexed(person, manager)){
+                return ChainIndex.isInUnit(person, manager);
+            }
+            for(Node node = person; node != null; node = node.parent){
+                if(node == manager){
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // the lowest person both report up to, either of them if one is above the other; null when they have no one in common
+    public Long getLowestCommonManager(final long firstNumber, final long secondNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node first = nodes.get(firstNumber);
+            final Node second = nodes.get(secondNumber);
+            if(first == null || second == null){
+                return null;
+            }
+            if(indexed(first, second)){
+                final Node common = ChainIndex.lowestCommonManager(first, second);
+                return common == null ? null : common.employeeNumber;
+            }
+            final LongHashSet above = new LongHashSet(16);
+            for(Node node = first; node != null; node = node.parent){
+                above.add(node.employeeNumber);
+            }
+            for(Node node = second; node != null; node = node.parent){
+                if(above.contains(node.employeeNumber)){
+                    return node.employeeNumber;
+                }
+            }
+            return null;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // the manager the given number of levels up the chain, the person themselves at 0; null past the top
+    public Long getManagerAbove(final long employeeNumber, final int levels)
+    {
+        links.readLock().lock();
+        try {
+            Node node = nodes.get(employeeNumber);
+            if(node == null || levels < 0){
+                return null;
+            }
+            if(indexed(node, node)){
+                node = ChainIndex.managerAbove(node, levels);
+            } else {
+                for(int level = 0; level < levels && node != null; level++){
+                    node = node.parent;
+                }
+            }
+            return node == null ? null : node.employeeNumber;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // everyone above the person, their own manager first
+    public long[] getManagementChain(final long employeeNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node node = nodes.get(employeeNumber);
+            if(node == null){
+                return new long[0];
+            }
+            int depth = 0;
+            if(indexed(node, node)){
+                depth = node.depth;
+            } else {
+                for(Node above = node.parent; above != null; above = above.parent){
+                    depth++;
+                }
+            }
+            final long[] chain = new long[depth];
+            Node above = node.parent;
+            for(int i = 0; i < depth; i++, above = above.parent){
+                chain[i] = above.employeeNumber;
+            }
+            return chain;
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    Node getNode(final long employeeNumber)
+    {
+        return nodes.get(employeeNumber);
+    }
+
+    int size()
+    {
+        return nodes.size();
+    }
+
+    // runs a read of the links that no re-linking can interleave with; other threads may follow the links while the
+    // calling thread waits for them, as only it needs to hold the lock
+    <T> T withLinksFixed(final Supplier<T> read)
+    {
+        links.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    NodeState capture(final long employeeNumber)
+    {
+        links.readLock().lock();
+        try {
+            final Node node = nodes.get(employeeNumber);
+            return node == null
+                    ? new NodeState(employeeNumber, false, null, false, false, false, 0)
+                    : new NodeState(employeeNumber, node.registered, node.parent == null ? null : node.parent.employeeNumber,
+                            node.isManager, node.isDirector, node.onHoliday, node.seats);
+        } finally {
+            links.readLock().unlock();
+        }
+    }
+
+    // puts captured nodes back; they are all detached first so reporting lines that swapped places in between cannot
+    // form a loop on the way back
+    void restore(final Collection<NodeState> states)
+    {
+        links.writeLock().lock();
+        try {
+            for(NodeState state : states){
+                setManager(nodes.computeIfAbsent(state.employeeNumber, Node::new), null);
+            }
+            for(NodeState state : states){
+                final Node node = nodes.get(state.employeeNumber);
+                node.registered = state.registered;
+                node.onHoliday = state.onHoliday;
+                setRole(node, state.isManager, state.isDirector);
+                final int seats = state.seats - node.seats;
+                SEATS.getAndAdd(node, seats);
+                propagate(node, seats, 0, 0);
+            }
+            for(NodeState state : states){
+                setManager(nodes.get(state.employeeNumber), state.parent);
+            }
+        } finally {
+            links.writeLock().unlock();
+        }
+    }
+
+    private void setRole(final Node node, final boolean isManager, final boolean isDirector)
+    {
+        final int managerDelta = (isManager ? 1 : 0) - (node.isManager ? 1 : 0);
+        final int directorDelta = (isDirector ? 1 : 0) - (node.isDirector ? 1 : 0);
+        node.isManager = isManager;
+        node.isDirector = isDirector;
+        propagate(node, 0, managerDelta, directorDelta);
+    }
+
+    private boolean setManager(final Node node, final Long managerNumber)
+    {
+        final Node newParent = managerNumber == null || managerNumber == NO_MANAGER
+                ? null
+                : nodes.computeIfAbsent(managerNumber, Node::new);
+        if(newParent == node.parent){
+            return true;
+        }
+        if(newParent != null && chains.isReady() && newParent.up != null && node.up != null){
+            if(ChainIndex.isInUnit(newParent, node)){
+                return false;
+            }
+        } else {
+            for(Node ancestor = newParent; ancestor != null; ancestor = ancestor.parent){
+                if(ancestor == node){
+                    return false;
+                }
+            }
+        }
+
+        if(node.parent != null){
+            propagate(node.parent, -node.unitSeats, -node.unitManagers, -node.unitDirectors);
+            detach(node);
+        }
+        if(newParent != null){
+            node.parent = newParent;
+            node.indexInParent = newParent.children.size();
+            newParent.children.add(node);
+            propagate(newParent, node.unitSeats, node.unitManagers, node.unitDirectors);
+            chains.attached(node);
+        } else {
+            chains.invalidate(); // a new top of the tree has no room of its own to be labelled in
+        }
+        return true;
+    }
+
+    // builds the chain index if needed, called under the read lock; false when either node was created after the
+    // index was built and has not been linked under a labelled manager since, or while bulk loading
+    private boolean indexed(final Node first, final Node second)
+    {
+        if(deferTotals){
+            return false;
+        }
+        chains.ensureBuilt(nodes.values());
+        return first.up != null && second.up != null;
+    }
+
+    private void detach(final Node node)
+    {
+        final List<Node> siblings = node.parent.children;
+        final Node last = siblings.remove(siblings.size() - 1);
+        if(last != node){ // swap the last sibling into the gap so removal stays constant time
+            siblings.set(node.indexInParent, last);
+            last.indexInParent = node.indexInParent;
+        }
+        node.parent = null;
+        node.indexInParent = -1;
+    }
+
+    private void recomputeTotals()
+    {
+        final List<Node> preOrder = new ArrayList<>(nodes.size());
+        final ArrayDeque<Node> stack = new ArrayDeque<>();
+        for(Node root : nodes.values()){
+            if(root.parent != null){
+                continue;
+            }
+            stack.push(root);
+            while(!stack.isEmpty()){
+                final Node node = stack.pop();
+                node.unitSeats = node.seats;
+                node.unitManagers = node.isManager ? 1 : 0;
+                node.unitDirectors = node.isDirector ? 1 : 0;
+                preOrder.add(node);
+                for(Node child : node.children){
+                    stack.push(child);
+                }
+            }
+        }
+        for(int i = preOrder.size() - 1; i >= 0; i--){ // children always come after their parent in pre-order
+            final Node node = preOrder.get(i);
+            if(node.parent != null){
+                node.parent.unitSeats += node.unitSeats;
+                node.parent.unitManagers += node.unitManagers;
+                node.parent.unitDirectors += node.unitDirectors;
+            }
+        }
+    }
+
+    private void propagate(final Node from, final int seats, final int managers, final int directors)
+    {
+        if(deferTotals || (seats == 0 && managers == 0 && directors == 0)){
+            return;
+        }
+        for(Node node = from; node != null; node = node.parent){
+            if(seats != 0){
+                UNIT_SEATS.getAndAdd(node, seats);
+            }
+            if(managers != 0){
+                UNIT_MANAGERS.getAndAdd(node, managers);
+            }
+            if(directors != 0){
+                UNIT_DIRECTORS.getAndAdd(node, directors);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+public enum RosterFormat
+{
+    // kind,firstName,lastName,role,startDate,isContractor,employeeNumber,managerNumber,isOnHoliday
+    // kind,teamName,managerId,members,currentManager   (members separated by ';', currentManager optional)
+    CSV,
+    // one flat object per line, teams carry their members as a number array
+    NDJSON
+}
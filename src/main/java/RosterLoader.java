@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+public class RosterLoader
+{
+    static final String REPORTING_LOOP_ERROR = Organisation.REPORTING_LOOP_ERROR;
+
+    // rows are collected first and checked against the whole roster, so managers can come after their reports
+    private final List<Employee> people = new ArrayList<>();
+    private final List<Team> teams = new ArrayList<>();
+
+    public static class RowError
+    {
+        private final int row;
+        private final String key;
+        private final String message;
+
+        RowError(final int row, final String key, final String message)
+        {
+            this.row = row;
+            this.key = key;
+            this.message = message;
+        }
+
+        public int getRow()
+        {
+            return row;
+        }
+
+        public String getKey() // employee number or team name of the rejected row
+        {
+            return key;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "row " + row + " (" + key + "): " + message;
+        }
+    }
+
+    public static class Result
+    {
+        private final Organisation organisation;
+        private final List<RowError> errors;
+
+        Result(final Organisation organisation, final List<RowError> errors)
+        {
+            this.organisation = organisation;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public Organisation getOrganisation()
+        {
+            return organisation;
+        }
+
+        public List<RowError> getErrors()
+        {
+            return errors;
+        }
+
+        public boolean isClean()
+        {
+            return errors.isEmpty();
+        }
+    }
+
+    public RosterLoader addEmployee(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        people.add(new Employee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        return this;
+    }
+
+    public RosterLoader addManager(
+            final String firstName,
+            final String lastName,
+            final String role,
+            final Date startDate,
+            final boolean isContractor,
+            final long employeeNumber,
+            final long managerNumber,
+            final boolean isOnHoliday
+    )
+    {
+        people.add(new Manager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday));
+        return this;
+    }
+
+    public RosterLoader addTeam(final String teamName, final Long managerId, final List<Long> teamMembers)
+    {
+        return addTeam(teamName, managerId, managerId, teamMembers);
+    }
+
+    public RosterLoader addTeam(final String teamName, final Long managerId, final Long currentManager, final List<Long> teamMembers)
+    {
+        teams.add(new Team(teamName, managerId, teamMembers, currentManager));
+        return this;
+    }
+
+    public int size()
+    {
+        return people.size() + teams.size();
+    }
+
+    // people rows are numbered first, in the order they were added, followed by the team rows. A row is accepted when
+    // adding the rows one at a time in a workable order would accept it, so the checks are Organisation's own
+    public Result load(final CEO ceo)
+    {
+        final List<RowError> errors = new ArrayList<>();
+        final long ceoNumber = ceo.getEmployeeNumber();
+
+        // first pass: the single row checks, managers are looked up across the whole roster so they can come after
+        // their reports; the first row with a number wins
+        final Map<Long, Integer> rowByNumber = new HashMap<>(Math.max(16, (int) (people.size() / 0.75f) + 1));
+        for(int row = 0; row < people.size(); row++){
+            rowByNumber.putIfAbsent(people.get(row).getEmployeeNumber(), row);
+        }
+        final LongPredicate isManager = number -> {
+            final Integer row = rowByNumber.get(number);
+            return row != null && people.get(row) instanceof Manager;
+        };
+        final byte[] state = new byte[people.size()]; // 0 unknown, 1 on the current walk, 2 valid, 3 invalid
+        for(int row = 0; row < people.size(); row++){
+            final Employee person = people.get(row);
+            final long number = person.getEmployeeNumber();
+            final boolean numberTaken = number == ceoNumber || rowByNumber.get(number) != row;
+            final String error = Organisation.checkNewPerson(person instanceof Manager, person.getRole(), person.isContractor(), numberTaken,
+                    managerNumberOf(person), isManager);
+            if(error != null){
+                state[row] = 3;
+                errors.add(new RowError(row, String.valueOf(number), error));
+            }
+        }
+
+        // second pass: managers that report round in a loop cannot all be added, whatever the order
+        final int[] onWalkAt = new int[people.size()];
+        final List<Integer> walk = new ArrayList<>();
+        for(int start = 0; start < people.size(); start++){
+            if(state[start] != 0 || !(people.get(start) instanceof Manager)){
+                continue;
+            }
+            walk.clear();
+            int row = start;
+            int loopFrom = -1;
+            while(true){
+                state[row] = 1;
+                onWalkAt[row] = walk.size();
+                walk.add(row);
+                final Integer managerRow = rowByNumber.get(managerNumberOf(people.get(row)));
+                if(managerRow == null || !(people.get(managerRow) instanceof Manager) || state[managerRow] >= 2){
+                    break;
+                }
+                if(state[managerRow] == 1){
+                    loopFrom = onWalkAt[managerRow];
+                    break;
+                }
+                row = managerRow;
+            }
+            for(int at = 0; at < walk.size(); at++){
+                final int onWalk = walk.get(at);
+                if(loopFrom >= 0 && at >= loopFrom){
+                    state[onWalk] = 3;
+                    errors.add(new RowError(onWalk, String.valueOf(people.get(onWalk).getEmployeeNumber()), REPORTING_LOOP_ERROR));
+                } else {
+                    state[onWalk] = 2;
+                }
+            }
+        }
+
+        // third pass: an employee needs their manager to have been accepted
+        for(int row = 0; row < people.size(); row++){
+            if(state[row] != 0){
+                continue;
+            }
+            final Employee person = people.get(row);
+            if(state[rowByNumber.get(managerNumberOf(person))] == 3){
+                state[row] = 3;
+                errors.add(new RowError(row, String.valueOf(person.getEmployeeNumber()), Organisation.INVALID_MANAGER_ERROR));
+            } else {
+                state[row] = 2;
+            }
+        }
+
+        final List<Employee> accepted = new ArrayList<>(people.size());
+        for(int row = 0; row < people.size(); row++){
+            if(state[row] == 2){
+                accepted.add(people.get(row));
+            }
+        }
+
+        final Set<String> teamNames = new HashSet<>();
+        final List<Team> acceptedTeams = new ArrayList<>(teams.size());
+        for(int index = 0; index < teams.size(); index++){
+            final Team team = teams.get(index);
+            if(!teamNames.add(team.getTeamName())){
+                errors.add(new RowError(people.size() + index, team.getTeamName(), Organisation.TEAM_NAME_NOT_UNIQUE_ERROR));
+            } else {
+                acceptedTeams.add(team);
+            }
+        }
+
+        errors.sort((first, second) -> Integer.compare(first.getRow(), second.getRow()));
+        final Organisation organisation = new Organisation(ceo, accepted.size(), acceptedTeams.size());
+        organisation.loadValidated(accepted, acceptedTeams);
+        return new Result(organisation, errors);
+    }
+
+    private static long managerNumberOf(final Employee person)
+    {
+        final Long managerNumber = person.getManagerNumber();
+        return managerNumber == null ? ReportingTree.NO_MANAGER : managerNumber;
+    }
+}
@@ -0,0 +1,605 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class RosterReader implements Closeable
+{
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final RosterFormat format;
+    // only one buffer window and one record's fields are ever held, whatever the size of the file
+    private final char[] buffer = new char[16 * 1024];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private final StringBuilder text = new StringBuilder(64);
+
+    // fields of the record being read
+    private RecordKind kind;
+    private String firstName;
+    private String lastName;
+    private String role;
+    private long startDate;
+    private boolean isContractor;
+    private long employeeNumber;
+    private Long managerNumber;
+    private boolean isOnHoliday;
+    private String teamName;
+    private Long currentManager;
+    private final List<Long> members = new ArrayList<>();
+
+    private enum RecordKind
+    {
+        CEO,
+        EMPLOYEE,
+        MANAGER,
+        TEAM
+    }
+
+    public RosterReader(final Reader in, final RosterFormat format)
+    {
+        this.in = in;
+        this.format = format;
+    }
+
+    // reads the whole roster into a RosterLoader, the file must contain a ceo record
+    public static RosterLoader.Result load(final Reader in, final RosterFormat format) throws IOException
+    {
+        final RosterLoader loader = new RosterLoader();
+        final CEO[] ceo = new CEO[1];
+        try(RosterReader reader = new RosterReader(in, format)){
+            reader.readAll(new RosterSink()
+            {
+                @Override
+                public void ceo(final String firstName, final String lastName, final Date startDate, final long employeeNumber, final boolean isOnHoliday)
+                {
+                    ceo[0] = new CEO(firstName, lastName, "CEO", startDate, false, employeeNumber, null, isOnHoliday);
+                }
+
+                @Override
+                public void employee(final String firstName, final String lastName, final String role, final Date startDate, final boolean isContractor, final long employeeNumber, final long managerNumber, final boolean isOnHoliday)
+                {
+                    loader.addEmployee(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday);
+                }
+
+                @Override
+                public void manager(final String firstName, final String lastName, final String role, final Date startDate, final boolean isContractor, final long employeeNumber, final long managerNumber, final boolean isOnHoliday)
+                {
+                    loader.addManager(firstName, lastName, role, startDate, isContractor, employeeNumber, managerNumber, isOnHoliday);
+                }
+
+                @Override
+                public void team(final String teamName, final Long managerId, final Long currentManager, final List<Long> members)
+                {
+                    loader.addTeam(teamName, managerId, currentManager, members);
+                }
+            });
+        }
+        if(ceo[0] == null){
+            throw new IOException("Invalid roster - no ceo record");
+        }
+        return loader.load(ceo[0]);
+    }
+
+    public long readAll(final RosterSink sink) throws IOException
+    {
+        long records = 0;
+        while(format == RosterFormat.CSV ? readCsvRecord() : readJsonRecord()){
+            deliver(sink);
+            records++;
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    private void deliver(final RosterSink sink)
+    {
+        switch(kind){
+            case CEO:
+                sink.ceo(firstName, lastName, new Date(startDate), employeeNumber, isOnHoliday);
+                break;
+            case EMPLOYEE:
+                sink.employee(firstName, lastName, role, new Date(startDate), isContractor, employeeNumber, managerNumberOrNone(), isOnHoliday);
+                break;
+            case MANAGER:
+                sink.manager(firstName, lastName, role, new Date(startDate), isContractor, employeeNumber, managerNumberOrNone(), isOnHoliday);
+                break;
+            case TEAM:
+                sink.team(teamName, managerNumber, currentManager == null ? managerNumber : currentManager, members);
+                break;
+        }
+    }
+
+    private long managerNumberOrNone()
+    {
+        return managerNumber == null ? ReportingTree.NO_MANAGER : managerNumber;
+    }
+
+    private void resetRecord()
+    {
+        kind = null;
+        firstName = null;
+        lastName = null;
+        role = null;
+        startDate = 0L;
+        isContractor = false;
+        employeeNumber = 0L;
+        managerNumber = null;
+        isOnHoliday = false;
+        teamName = null;
+        currentManager = null;
+        members.clear();
+    }
+
+    // ---- csv ----
+
+    private boolean readCsvRecord() throws IOException
+    {
+        while(true){
+            resetRecord();
+            int c = peek();
+            if(c == EOF){
+                return false;
+            }
+            if(c == '\n' || c == '\r'){ // blank line
+                if(next() == '\n'){
+                    line++;
+                }
+                continue;
+            }
+            int delimiter = readCsvField();
+            if(textEquals("kind")){ // header
+                skipLine();
+                continue;
+            }
+            kind = parseKind();
+            if(kind == RecordKind.TEAM){
+                delimiter = expectField(delimiter);
+                teamName = text.toString();
+                delimiter = expectField(delimiter);
+                managerNumber = text.length() == 0 ? null : parseLong(text);
+                delimiter = expectField(delimiter);
+                parseMembers();
+                if(delimiter == ','){
+                    delimiter = readCsvField();
+                    currentManager = text.length() == 0 ? null : parseLong(text);
+                }
+            } else {
+                delimiter = expectField(delimiter);
+                firstName = text.toString();
+                delimiter = expectField(delimiter);
+                lastName = text.toString();
+                delimiter = expectField(delimiter);
+                role = internRole(text);
+                delimiter = expectField(delimiter);
+                startDate = parseLong(text);
+                delimiter = expectField(delimiter);
+                isContractor = parseBoolean(text);
+                delimiter = expectField(delimiter);
+                employeeNumber = parseLong(text);
+                delimiter = expectField(delimiter);
+                managerNumber = text.length() == 0 ? null : parseLong(text);
+                delimiter = expectField(delimiter);
+                isOnHoliday = parseBoolean(text);
+            }
+            if(delimiter == ','){
+                throw error("too many fields");
+            }
+            return true;
+        }
+    }
+
+    private int expectField(final int delimiter) throws IOException
+    {
+        if(delimiter != ','){
+            throw error("missing field");
+        }
+        return readCsvField();
+    }
+
+    // reads one field into text and returns the character that ended it: ',', '\n' or EOF
+    private int readCsvField() throws IOException
+    {
+        text.setLength(0);
+        int c = next();
+        if(c == '"'){
+            while(true){
+                c = next();
+                if(c == EOF){
+                    throw error("unterminated quoted field");
+                }
+                if(c == '"'){
+                    if(peek() != '"'){
+                        break;
+                    }
+                    next();
+                }
+                if(c == '\n'){
+                    line++;
+                }
+                text.append((char) c);
+            }
+            c = next();
+        }
+        while(c != ',' && c != '\n' && c != EOF){
+            if(c != '\r'){
+                text.append((char) c);
+            }
+            c = next();
+        }
+        if(c == '\n'){
+            line++;
+        }
+        return c;
+    }
+
+    private void parseMembers() throws IOException
+    {
+        int start = 0;
+        for(int i = 0; i <= text.length(); i++){
+            if(i == text.length() || text.charAt(i) == ';'){
+                if(i > start){
+                    members.add(parseLong(text, start, i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void skipLine() throws IOException
+    {
+        int c;
+        do{
+            c = next();
+        }while(c != '\n' && c != EOF);
+        if(c == '\n'){
+            line++;
+        }
+    }
+
+    // ---- ndjson ----
+
+    private boolean readJsonRecord() throws IOException
+    {
+        resetRecord();
+        int c = skipWhitespace();
+        if(c == EOF){
+            return false;
+        }
+        if(c != '{'){
+            throw error("expected '{'");
+        }
+        next();
+        c = skipWhitespace();
+        if(c == '}'){
+            throw error("empty record");
+        }
+        while(true){
+            if(next() != '"'){
+                throw error("expected field name");
+            }
+            readJsonString();
+            if(skipWhitespace() != ':'){
+                throw error("expected ':'");
+            }
+            next();
+            skipWhitespace();
+            readJsonField();
+            c = skipWhitespace();
+            next();
+            if(c == '}'){
+                break;
+            }
+            if(c != ','){
+                throw error("expected ',' or '}'");
+            }
+            skipWhitespace();
+        }
+        if(kind == null){
+            throw error("missing kind");
+        }
+        return true;
+    }
+
+    // text holds the field name on entry
+    private void readJsonField() throws IOException
+    {
+        if(textEquals("kind")){
+            readJsonStringValue();
+            kind = parseKind();
+        } else if(textEquals("firstName")){
+            firstName = readJsonStringValue();
+        } else if(textEquals("lastName")){
+            lastName = readJsonStringValue();
+        } else if(textEquals("role")){
+            readJsonStringValue();
+            role = internRole(text);
+        } else if(textEquals("teamName")){
+            teamName = readJsonStringValue();
+        } else if(textEquals("startDate")){
+            startDate = readJsonLong();
+        } else if(textEquals("employeeNumber")){
+            employeeNumber = readJsonLong();
+        } else if(textEquals("managerNumber") || textEquals("managerId")){
+            managerNumber = peek() == 'n' ? readJsonNull() : (Long) readJsonLong();
+        } else if(textEquals("currentManager")){
+            currentManager = peek() == 'n' ? readJsonNull() : (Long) readJsonLong();
+        } else if(textEquals("isContractor")){
+            isContractor = readJsonBoolean();
+        } else if(textEquals("isOnHoliday")){
+            isOnHoliday = readJsonBoolean();
+        } else if(textEquals("members")){
+            readJsonMembers();
+        } else {
+            skipJsonValue();
+        }
+    }
+
+    private String readJsonStringValue() throws IOException
+    {
+        if(next() != '"'){
+            throw error("expected string");
+        }
+        readJsonString();
+        return text.toString();
+    }
+
+    // reads the rest of a string whose opening quote has been consumed into text
+    private void readJsonString() throws IOException
+    {
+        text.setLength(0);
+        while(true){
+            int c = next();
+            if(c == EOF || c == '\n'){
+                throw error("unterminated string");
+            }
+            if(c == '"'){
+                return;
+            }
+            if(c == '\\'){
+                c = next();
+                switch(c){
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'u':
+                        int code = 0;
+                        for(int i = 0; i < 4; i++){
+                            code = (code << 4) | Character.digit(next(), 16);
+                        }
+                        c = code;
+                        break;
+                    case '"': case '\\': case '/': break;
+                    default: throw error("invalid escape");
+                }
+            }
+            text.append((char) c);
+        }
+    }
+
+    private long readJsonLong() throws IOException
+    {
+        text.setLength(0);
+        int c = peek();
+        while(c == '-' || (c >= '0' && c <= '9')){
+            text.append((char) next());
+            c = peek();
+        }
+        return parseLong(text);
+    }
+
+    private boolean readJsonBoolean() throws IOException
+    {
+        readJsonWord();
+        return parseBoolean(text);
+    }
+
+    private Long readJsonNull() throws IOException
+    {
+        readJsonWord();
+        if(!textEquals("null")){
+            throw error("expected null");
+        }
+        return null;
+    }
+
+    private void readJsonWord() throws IOException
+    {
+        text.setLength(0);
+        int c = peek();
+        while(c >= 'a' && c <= 'z'){
+            text.append((char) next());
+            c = peek();
+        }
+    }
+
+    private void readJsonMembers() throws IOException
+    {
+        if(next() != '['){
+            throw error("expected '['");
+        }
+        int c = skipWhitespace();
+        if(c == ']'){
+            next();
+            return;
+        }
+        while(true){
+            members.add(readJsonLong());
+            c = skipWhitespace();
+            next();
+            if(c == ']'){
+                return;
+            }
+            if(c != ','){
+                throw error("expected ',' or ']'");
+            }
+            skipWhitespace();
+        }
+    }
+
+    private void skipJsonValue() throws IOException
+    {
+        final int c = peek();
+        if(c == '"'){
+            readJsonStringValue();
+        } else if(c == '['){
+            next();
+            int depth = 1;
+            while(depth > 0){
+                final int inner = next();
+                if(inner == EOF || inner == '\n'){
+                    throw error("unterminated array");
+                }
+                if(inner == '"'){
+                    readJsonString();
+                } else if(inner == '['){
+                    depth++;
+                } else if(inner == ']'){
+                    depth--;
+                }
+            }
+        } else if(c == '{'){
+            throw error("nested objects are not supported");
+        } else if(c == '-' || (c >= '0' && c <= '9')){
+            readJsonLong();
+        } else {
+            readJsonWord();
+        }
+    }
+
+    private int skipWhitespace() throws IOException
+    {
+        int c = peek();
+        while(c == ' ' || c == '\t' || c == '\r' || c == '\n'){
+            if(c == '\n'){
+                line++;
+            }
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    // ---- shared ----
+
+    private RecordKind parseKind() throws IOException
+    {
+        if(textEquals("employee")){
+            return RecordKind.EMPLOYEE;
+        } else if(textEquals("manager")){
+            return RecordKind.MANAGER;
+        } else if(textEquals("team")){
+            return RecordKind.TEAM;
+        } else if(textEquals("ceo")){
+            return RecordKind.CEO;
+        }
+        throw error("unknown record kind '" + text + "'");
+    }
+
+    // roles come from a handful of names, so known ones are shared rather than copied per record
+    private static String internRole(final CharSequence role)
+    {
+        if(contentEquals(role, "Employee")){
+            return "Employee";
+        }
+        for(Organisation.ROLE_NAMES_ENUM name : Organisation.ROLE_NAMES_ENUM.values()){
+            if(contentEquals(role, name.name())){
+                return name.name();
+            }
+        }
+        return role.toString();
+    }
+
+    private boolean parseBoolean(final CharSequence value) throws IOException
+    {
+        if(contentEquals(value, "true")){
+            return true;
+        } else if(contentEquals(value, "false")){
+            return false;
+        }
+        throw error("expected true or false");
+    }
+
+    private long parseLong(final CharSequence value) throws IOException
+    {
+        return parseLong(value, 0, value.length());
+    }
+
+    private long parseLong(final CharSequence value, final int from, final int to) throws IOException
+    {
+        if(from >= to){
+            throw error("expected a number");
+        }
+        final boolean negative = value.charAt(from) == '-';
+        long result = 0;
+        for(int i = negative ? from + 1 : from; i < to; i++){
+            final int digit = value.charAt(i) - '0';
+            if(digit < 0 || digit > 9){
+                throw error("expected a number");
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    private boolean textEquals(final String expected)
+    {
+        return contentEquals(text, expected);
+    }
+
+    private static boolean contentEquals(final CharSequence value, final String expected)
+    {
+        if(value.length() != expected.length()){
+            return false;
+        }
+        for(int i = 0; i < expected.length(); i++){
+            if(value.charAt(i) != expected.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int peek() throws IOException
+    {
+        if(position == limit && !fill()){
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException
+    {
+        if(position == limit && !fill()){
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException
+    {
+        final int read = in.read(buffer, 0, buffer.length);
+        if(read <= 0){
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private IOException error(final String message)
+    {
+        return new IOException("Invalid roster - line " + line + ": " + message);
+    }
+}
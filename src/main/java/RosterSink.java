@@ -0,0 +1,15 @@
+import java.util.Date;
+import java.util.List;
+
+public interface RosterSink
+{
+    void ceo(String firstName, String lastName, Date startDate, long employeeNumber, boolean isOnHoliday);
+
+    void employee(String firstName, String lastName, String role, Date startDate, boolean isContractor, long employeeNumber, long managerNumber, boolean isOnHoliday);
+
+    void manager(String firstName, String lastName, String role, Date startDate, boolean isContractor, long employeeNumber, long managerNumber, boolean isOnHoliday);
+
+    // members is reused by the reader, it is only valid for the duration of the call; currentManager is the
+    // manager covering the team today and equals managerId unless holiday cover is in place
+    void team(String teamName, Long managerId, Long currentManager, List<Long> members);
+}
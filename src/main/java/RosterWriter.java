@@ -0,0 +1,212 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+public class RosterWriter implements Closeable, Flushable
+{
+    static final String CSV_HEADER = "kind,firstName,lastName,role,startDate,isContractor,employeeNumber,managerNumber,isOnHoliday";
+
+    private final Writer out;
+    private final RosterFormat format;
+    private boolean headerWritten;
+
+    public RosterWriter(final Writer out, final RosterFormat format)
+    {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 64 * 1024);
+        this.format = format;
+    }
+
+    // records are written one at a time straight from the live model, nothing is collected first
+    public void write(final Organisation organisation) throws IOException
+    {
+        writeCeo(organisation.getCeo());
+        for(Employee person : organisation.getPeople()){
+            writePerson(person, organisation.getReportsTo(person.getEmployeeNumber()));
+        }
+        for(Team team : organisation.getAllTeams()){
+            writeTeam(team);
+        }
+        out.flush();
+    }
+
+    public void writeCeo(final CEO ceo) throws IOException
+    {
+        writePerson("ceo", ceo, null);
+    }
+
+    // the manager number written is the reporting line, not the holiday cover a person's own manager number holds
+    // while their manager is away; the loader works the cover out again
+    public void writePerson(final Employee person, final Long reportsTo) throws IOException
+    {
+        writePerson(person instanceof Manager ? "manager" : "employee", person, reportsTo);
+    }
+
+    public void writeTeam(final Team team) throws IOException
+    {
+        final LongHashSet members = team.getTeamMembersIds();
+        if(format == RosterFormat.CSV){
+            writeHeaderOnce();
+            out.write("team,");
+            writeCsvText(team.getTeamName());
+            out.write(',');
+            if(team.getManagerEmployeeId() != null){
+                writeLong(team.getManagerEmployeeId());
+            }
+            out.write(',');
+            for(int slot = members.firstSlot(), written = 0; slot >= 0; slot = members.nextSlot(slot), written++){
+                if(written > 0){
+                    out.write(';');
+                }
+                writeLong(members.keyAt(slot));
+            }
+            out.write(',');
+            if(team.getCurrentManager() != null){
+                writeLong(team.getCurrentManager());
+            }
+            out.write('\n');
+        } else {
+            out.write("{\"kind\":\"team\",\"teamName\":");
+            writeJsonText(team.getTeamName());
+            out.write(",\"managerId\":");
+            writeNullableLong(team.getManagerEmployeeId());
+            out.write(",\"currentManager\":");
+            writeNullableLong(team.getCurrentManager());
+            out.write(",\"members\":[");
+            for(int slot = members.firstSlot(), written = 0; slot >= 0; slot = members.nextSlot(slot), written++){
+                if(written > 0){
+                    out.write(',');
+                }
+                writeLong(members.keyAt(slot));
+            }
+            out.write("]}\n");
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+
+    private void writePerson(final String kind, final Employee person, final Long reportsTo) throws IOException
+    {
+        if(format == RosterFormat.CSV){
+            writeHeaderOnce();
+            out.write(kind);
+            out.write(',');
+            writeCsvText(person.getFirstName());
+            out.write(',');
+            writeCsvText(person.getLastName());
+            out.write(',');
+            writeCsvText(person.getRole());
+            out.write(',');
+            writeLong(person.getStartDate().getTime());
+            out.write(person.isContractor() ? ",true," : ",false,");
+            writeLong(person.getEmployeeNumber());
+            out.write(',');
+            if(reportsTo != null){
+                writeLong(reportsTo);
+            }
+            out.write(person.isOnHoliday() ? ",true\n" : ",false\n");
+        } else {
+            out.write("{\"kind\":\"");
+            out.write(kind);
+            out.write("\",\"firstName\":");
+            writeJsonText(person.getFirstName());
+            out.write(",\"lastName\":");
+            writeJsonText(person.getLastName());
+            out.write(",\"role\":");
+            writeJsonText(person.getRole());
+            out.write(",\"startDate\":");
+            writeLong(person.getStartDate().getTime());
+            out.write(person.isContractor() ? ",\"isContractor\":true" : ",\"isContractor\":false");
+            out.write(",\"employeeNumber\":");
+            writeLong(person.getEmployeeNumber());
+            out.write(",\"managerNumber\":");
+            writeNullableLong(reportsTo);
+            out.write(person.isOnHoliday() ? ",\"isOnHoliday\":true}\n" : ",\"isOnHoliday\":false}\n");
+        }
+    }
+
+    private void writeHeaderOnce() throws IOException
+    {
+        if(!headerWritten){
+            out.write(CSV_HEADER);
+            out.write('\n');
+            headerWritten = true;
+        }
+    }
+
+    private void writeCsvText(final String value) throws IOException
+    {
+        if(value == null){
+            return;
+        }
+        boolean needsQuotes = false;
+        for(int i = 0; i < value.length() && !needsQuotes; i++){
+            final char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!needsQuotes){
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for(int i = 0; i < value.length(); i++){
+            final char c = value.charAt(i);
+            if(c == '"'){
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private void writeJsonText(final String value) throws IOException
+    {
+        if(value == null){
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for(int i = 0; i < value.length(); i++){
+            final char c = value.charAt(i);
+            switch(c){
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    private void writeNullableLong(final Long value) throws IOException
+    {
+        if(value == null){
+            out.write("null");
+        } else {
+            writeLong(value);
+        }
+    }
+
+    private void writeLong(final long value) throws IOException
+    {
+        out.write(Long.toString(value));
+    }
+}
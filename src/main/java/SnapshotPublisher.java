@@ -0,0 +1,143 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SnapshotPublisher implements OrganisationListener
+{
+    private final Organisation organisation;
+    private final AtomicReference<OrganisationSnapshot> current = new AtomicReference<>();
+    // each writer thread collects what its own calls touched, and publishes it while it still holds their locks
+    private final ThreadLocal<Changes> pending = ThreadLocal.withInitial(Changes::new);
+    private final Object publishLock = new Object();
+
+    private static final class Changes
+    {
+        final Set<Long> people = new HashSet<>();
+        final Set<String> teams = new HashSet<>();
+        final Set<Long> memberships = new HashSet<>();
+
+        boolean isEmpty()
+        {
+            return people.isEmpty() && teams.isEmpty() && memberships.isEmpty();
+        }
+
+        void clear()
+        {
+            people.clear();
+            teams.clear();
+            memberships.clear();
+        }
+    }
+
+    public SnapshotPublisher(final Organisation organisation)
+    {
+        this.organisation = organisation;
+        organisation.addListener(this);
+        current.set(buildFull());
+    }
+
+    // the latest published snapshot, a single volatile read
+    public OrganisationSnapshot current()
+    {
+        return current.get();
+    }
+
+    // publishes the changes made by the calling thread since its last publish; untouched pages are shared with the
+    // previous snapshot so the cost follows the size of the change, not the size of the organisation
+    public OrganisationSnapshot publish()
+    {
+        final Changes changes = pending.get();
+        if(changes.isEmpty()){
+            return current.get();
+        }
+        try {
+            synchronized(publishLock){
+                final OrganisationSnapshot previous = current.get();
+
+                final Map<Long, OrganisationSnapshot.PersonView> people = new HashMap<>();
+                for(Long employeeNumber : changes.people){
+                    final Employee person = organisation.findPerson(employeeNumber);
+                    people.put(employeeNumber, person == null ? null : new OrganisationSnapshot.PersonView(person, organisation.getReportsTo(employeeNumber)));
+                }
+                final Map<String, OrganisationSnapshot.TeamView> teams = new HashMap<>();
+                for(String teamName : changes.teams){
+                    final Team team = organisation.findTeam(teamName);
+                    teams.put(teamName, team == null ? null : new OrganisationSnapshot.TeamView(team));
+                }
+                final Map<Long, List<String>> memberships = new HashMap<>();
+                for(Long employeeNumber : changes.memberships){
+                    final List<String> teamNames = teamNamesOf(employeeNumber);
+                    memberships.put(employeeNumber, teamNames.isEmpty() ? null : teamNames);
+                }
+
+                final OrganisationSnapshot next = new OrganisationSnapshot(
+                        previous.getVersion() + 1,
+                        previous.getCeo(),
+                        previous.people().with(people),
+                        previous.teams().with(teams),
+                        previous.memberships().with(memberships)
+                );
+                current.set(next);
+                return next;
+            }
+        } finally {
+            changes.clear();
+        }
+    }
+
+    @Override
+    public void personChanged(final long employeeNumber)
+    {
+        pending.get().people.add(employeeNumber);
+    }
+
+    @Override
+    public void teamChanged(final String teamName)
+    {
+        pending.get().teams.add(teamName);
+    }
+
+    @Override
+    public void membershipChanged(final long employeeNumber)
+    {
+        pending.get().memberships.add(employeeNumber);
+    }
+
+    private OrganisationSnapshot buildFull()
+    {
+        final Map<Long, OrganisationSnapshot.PersonView> people = new HashMap<>();
+        final Map<Long, List<String>> memberships = new HashMap<>();
+        for(Employee person : organisation.getPeople()){
+            people.put(person.getEmployeeNumber(), new OrganisationSnapshot.PersonView(person, organisation.getReportsTo(person.getEmployeeNumber())));
+        }
+        final Map<String, OrganisationSnapshot.TeamView> teams = new HashMap<>();
+        for(Team team : organisation.getAllTeams()){
+            teams.put(team.getTeamName(), new OrganisationSnapshot.TeamView(team));
+            final LongHashSet members = team.getTeamMembersIds();
+            for(int slot = members.firstSlot(); slot >= 0; slot = members.nextSlot(slot)){
+                memberships.computeIfAbsent(members.keyAt(slot), this::teamNamesOf);
+            }
+        }
+        final CEO ceo = organisation.getCeo();
+        return new OrganisationSnapshot(
+                0L,
+                new OrganisationSnapshot.PersonView(ceo, null),
+                PagedMap.of(people),
+                PagedMap.of(teams),
+                PagedMap.of(memberships)
+        );
+    }
+
+    private List<String> teamNamesOf(final long employeeNumber)
+    {
+        final List<Team> memberOf = organisation.getTeams(employeeNumber);
+        final String[] teamNames = new String[memberOf.size()];
+        for(int i = 0; i < teamNames.length; i++){
+            teamNames[i] = memberOf.get(i).getTeamName();
+        }
+        return List.of(teamNames);
+    }
+}
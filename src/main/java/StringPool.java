@@ -0,0 +1,41 @@
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+// one shared copy of each distinct string handed in, for names and roles that repeat across many organisations. The
+// pool holds its strings weakly: a string no organisation uses any more, e.g. one only an evicted tenant had, is
+// dropped by the next garbage collection, so the pool never grows past what the resident organisations hold
+public final class StringPool
+{
+    private final WeakHashMap<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+    public StringPool()
+    { // role names are constants, they stay for good
+        for(Organisation.ROLE_NAMES_ENUM role : Organisation.ROLE_NAMES_ENUM.values()){
+            intern(role.name());
+        }
+        intern("Employee");
+    }
+
+    public String intern(final String text)
+    {
+        if(text == null){
+            return null;
+        }
+        synchronized(strings){
+            final WeakReference<String> shared = strings.get(text);
+            final String existing = shared == null ? null : shared.get();
+            if(existing != null){
+                return existing;
+            }
+            strings.put(text, new WeakReference<>(text));
+            return text;
+        }
+    }
+
+    public int size()
+    {
+        synchronized(strings){
+            return strings.size();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLocks
+{
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(final int minimumStripes)
+    {
+        final int count = Integer.highestOneBit(Math.max(2, minimumStripes) - 1) << 1;
+        stripes = new ReentrantLock[count];
+        for(int i = 0; i < count; i++){
+            stripes[i] = new ReentrantLock();
+        }
+        mask = count - 1;
+    }
+
+    public int stripeOf(final long employeeNumber)
+    {
+        final long hash = employeeNumber * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    public int stripeOf(final String teamName)
+    {
+        final int hash = teamName.hashCode() * 0x85EBCA6B;
+        return (hash ^ (hash >>> 16) ^ 0x5BD1E995) & mask;
+    }
+
+    // takes every stripe once, always in ascending order, so two callers can never wait on each other in a cycle
+    public int[] lockAll(final int[] wanted)
+    {
+        final int[] ordered = Arrays.stream(wanted).sorted().distinct().toArray();
+        int locked = 0;
+        try {
+            for(; locked < ordered.length; locked++){
+                stripes[ordered[locked]].lock();
+            }
+        } finally {
+            if(locked < ordered.length){
+                unlock(ordered, locked);
+            }
+        }
+        return ordered;
+    }
+
+    public void unlockAll(final int[] ordered)
+    {
+        unlock(ordered, ordered.length);
+    }
+
+    private void unlock(final int[] ordered, final int count)
+    {
+        for(int i = count - 1; i >= 0; i--){
+            stripes[ordered[i]].unlock();
+        }
+    }
+}
@@ -1,18 +1,30 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Team {
 
     private String teamName;
     private Long managerEmployeeId;
-    private List<Long> teamMembersIds = new ArrayList<>(); // manager is included in the teamMembers
+    private final LongHashSet teamMembersIds; // manager is included in the teamMembers
     private Long currentManager;
+    private static final int UNKNOWN = -1;
+    // the plain employees among the members with their start dates, for picking a successor when the manager leaves;
+    // Organisation ranks members as it learns their start dates. Ranked members sit unordered in two parallel arrays,
+    // rankOf finds a member's slot, and the most senior slot is worked out again only after it moved or left
+    private final LongIntHashMap rankOf = new LongIntHashMap();
+    private long[] rankedNumbers = new long[0];
+    private long[] rankedStarts = new long[0];
+    private int ranked;
+    private int mostSenior = UNKNOWN;
 
     public Team(final String teamName, final Long managerEmployeeId, final List<Long> teamMembersIds, final Long currentManager) {
         this.teamName = teamName;
         this.managerEmployeeId = managerEmployeeId;
-        this.teamMembersIds.addAll(teamMembersIds);
-        this.currentManager = managerEmployeeId;
+        this.teamMembersIds = new LongHashSet(teamMembersIds.size());
+        for(Long memberId : teamMembersIds){
+            this.teamMembersIds.add(memberId);
+        }
+        this.currentManager = currentManager;
     }
 
     public Long getCurrentManager() {
@@ -32,11 +44,16 @@ public class Team {
         this.managerEmployeeId = managerEmployeeId;
     }
 
-    public List<Long> getTeamMembersIds()
+    public LongHashSet getTeamMembersIds() // read only, membership changes go through addMember and removeMember
     {
         return teamMembersIds;
     }
 
+    public int getTeamSize()
+    {
+        return teamMembersIds.size();
+    }
+
     public String getTeamName()
     {
         return teamName;
@@ -47,13 +64,88 @@ public class Team {
         return teamMembersIds.contains(employeeNumber);
     }
 
-    public void addMember(final long employeeNumber)
+    public boolean addMember(final long employeeNumber)
+    {
+        return teamMembersIds.add(employeeNumber);
+    }
+
+    public boolean removeMember(final long employeeNumber)
+    {
+        unrankMember(employeeNumber);
+        return teamMembersIds.remove(employeeNumber);
+    }
+
+    // synchronized as people can be ranked while they are added, which does not lock their teams
+    public synchronized void rankMember(final long employeeNumber, final long startDate)
+    {
+        if(!teamMembersIds.contains(employeeNumber)){
+            return;
+        }
+        int slot = rankOf.get(employeeNumber);
+        if(slot == LongIntHashMap.NO_VALUE){
+            if(ranked == rankedNumbers.length){
+                final int capacity = Math.max(4, ranked * 2);
+                rankedNumbers = Arrays.copyOf(rankedNumbers, capacity);
+                rankedStarts = Arrays.copyOf(rankedStarts, capacity);
+            }
+            slot = ranked++;
+            rankOf.put(employeeNumber, slot);
+            rankedNumbers[slot] = employeeNumber;
+        }
+        rankedStarts[slot] = startDate;
+        if(mostSenior == slot){ // may have started later than the rest now
+            mostSenior = UNKNOWN;
+        } else if(mostSenior != UNKNOWN && isSenior(slot, mostSenior)){
+            mostSenior = slot;
+        }
+    }
+
+    public synchronized void unrankMember(final long employeeNumber)
+    {
+        final int slot = rankOf.remove(employeeNumber);
+        if(slot == LongIntHashMap.NO_VALUE){
+            return;
+        }
+        final int last = --ranked;
+        if(slot != last){ // the last ranked member fills the gap
+            rankedNumbers[slot] = rankedNumbers[last];
+            rankedStarts[slot] = rankedStarts[last];
+            rankOf.put(rankedNumbers[slot], slot);
+        }
+        if(mostSenior == slot){
+            mostSenior = UNKNOWN;
+        } else if(mostSenior == last){
+            mostSenior = slot;
+        }
+    }
+
+    public synchronized void clearRanks()
+    {
+        rankOf.clear();
+        ranked = 0;
+        mostSenior = UNKNOWN;
+    }
+
+    public synchronized Long getMostSeniorMember()
     {
-        teamMembersIds.add(employeeNumber);
+        if(ranked == 0){
+            return null;
+        }
+        if(mostSenior == UNKNOWN){
+            mostSenior = 0;
+            for(int slot = 1; slot < ranked; slot++){
+                if(isSenior(slot, mostSenior)){
+                    mostSenior = slot;
+                }
+            }
+        }
+        return rankedNumbers[mostSenior];
     }
 
-    public void removeMember(final long employeeNumber)
+    // earliest start first, ties go to the lower employee number
+    private boolean isSenior(final int slot, final int than)
     {
-        teamMembersIds.remove(employeeNumber);
+        final int byStartDate = Long.compare(rankedStarts[slot], rankedStarts[than]);
+        return byStartDate != 0 ? byStartDate < 0 : rankedNumbers[slot] < rankedNumbers[than];
     }
 }
@@ -0,0 +1,349 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// many customer organisations in one process. Tenants are spread over shards by id and each shard has one thread
+// that does all the work for its tenants, so an Organisation is only ever touched by one thread and needs no locks.
+// Each shard keeps its most recently used tenants in memory within its share of the memory budget; the least
+// recently used are written to snapshot files in the directory and read back when next asked for; a snapshot holds
+// no holiday calendar, so a tenant's planned holidays go to a small file beside it. Names and roles of every tenant,
+// created here or read back, come from one StringPool shared by every tenant; it holds them weakly, so it shrinks
+// again as tenants are evicted. Work handed to submit must not keep the Organisation after it returns, as the tenant
+// can be paged out and read back as a new object
+public class TenantRegistry implements AutoCloseable
+{
+    static final long PERSON_BYTES = 430L; // heap cost of a person with their tree node and index entries, measured at a million people
+    static final long TEAM_BYTES = 256L;
+    private static final String SUFFIX = ".tenant";
+    private static final String HOLIDAYS_SUFFIX = ".holidays";
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]+"); // ids are file names
+
+    private final Path directory;
+    private final StringPool strings = new StringPool();
+    private final Shard[] shards;
+    private final Set<String> resident = ConcurrentHashMap.newKeySet(); // for callers outside the shards
+    private final LongAdder pageOutFailures = new LongAdder();
+    private volatile IOException lastPageOutFailure;
+
+    public TenantRegistry(final Path directory, final int shardCount, final long memoryBudget) throws IOException
+    {
+        this.directory = Files.createDirectories(directory);
+        this.shards = new Shard[shardCount];
+        for(int i = 0; i < shardCount; i++){
+            shards[i] = new Shard(i, memoryBudget / shardCount);
+        }
+    }
+
+    public CompletableFuture<Void> create(final String tenantId, final CEO ceo)
+    {
+        final Shard shard = shardOf(tenantId);
+        return shard.run(() -> {
+            if(shard.tenants.containsKey(tenantId) || Files.exists(fileOf(tenantId))){
+                throw new IllegalArgumentException("Tenant already exists: " + tenantId);
+            }
+            final Organisation organisation = new Organisation(ceo);
+            organisation.shareStrings(strings::intern);
+            final Tenant tenant = new Tenant(tenantId, organisation);
+            tenant.dirty = true; // nothing on disk yet
+            shard.add(tenant);
+            shard.evictBeyondBudget();
+            return null;
+        });
+    }
+
+    // runs the work on the tenant's shard thread, after any work submitted for the same tenant before it
+    public <T> CompletableFuture<T> submit(final String tenantId, final Function<Organisation, T> work)
+    {
+        final Shard shard = shardOf(tenantId);
+        return shard.run(() -> {
+            final Tenant tenant = shard.get(tenantId);
+            try {
+                return work.apply(tenant.organisation);
+            } finally {
+                shard.reweigh(tenant);
+                shard.evictBeyondBudget();
+            }
+        });
+    }
+
+    public boolean isResident(final String tenantId)
+    {
+        return resident.contains(tenantId);
+    }
+
+    public int getResidentCount()
+    {
+        return resident.size();
+    }
+
+    public StringPool getStrings()
+    {
+        return strings;
+    }
+
+    // tenants that could not be written out to make room; they stay in memory and are tried again on the next call
+    public long getPageOutFailures()
+    {
+        return pageOutFailures.sum();
+    }
+
+    public IOException getLastPageOutFailure()
+    {
+        return lastPageOutFailure;
+    }
+
+    // writes every changed tenant out and stops the shard threads
+    @Override
+    public void close() throws IOException
+    {
+        IOException failed = null;
+        for(Shard shard : shards){
+            try {
+                shard.run(() -> {
+                    shard.pageOutAll();
+                    return null;
+                }).join();
+            } catch(RuntimeException e) {
+                if(e.getCause() instanceof UncheckedIOException && failed == null){
+                    failed = ((UncheckedIOException) e.getCause()).getCause();
+                }
+            }
+            shard.thread.shutdown();
+        }
+        for(Shard shard : shards){
+            try {
+                shard.thread.awaitTermination(1, TimeUnit.MINUTES);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(failed != null){
+            throw failed;
+        }
+    }
+
+    private Shard shardOf(final String tenantId)
+    {
+        if(tenantId == null || !TENANT_ID.matcher(tenantId).matches()){
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+        return shards[Math.floorMod(tenantId.hashCode(), shards.length)];
+    }
+
+    private Path fileOf(final String tenantId)
+    {
+        return directory.resolve(tenantId + SUFFIX);
+    }
+
+    private interface ShardWork<T>
+    {
+        T run() throws IOException;
+    }
+
+    // everything here apart from run is only used on the shard's own thread
+    private final class Shard
+    {
+        private final ExecutorService thread;
+        private final long budget;
+        private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+        private long residentBytes;
+
+        Shard(final int index, final long budget)
+        {
+            this.budget = budget;
+            this.thread = Executors.newSingleThreadExecutor(work -> {
+                final Thread worker = new Thread(work, "tenant-shard-" + index);
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+
+        <T> CompletableFuture<T> run(final ShardWork<T> work)
+        {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return work.run();
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, thread);
+        }
+
+        Tenant get(final String tenantId) throws IOException
+        {
+            final Tenant loaded = tenants.get(tenantId);
+            if(loaded != null){
+                return loaded;
+            }
+            final Path file = fileOf(tenantId);
+            if(!Files.exists(file)){
+                throw new IllegalArgumentException("Unknown tenant: " + tenantId);
+            }
+            final Organisation organisation = MappedSnapshot.open(file).toOrganisation(strings::intern);
+            readHolidays(tenantId, organisation);
+            final Tenant tenant = new Tenant(tenantId, organisation);
+            add(tenant);
+            return tenant;
+        }
+
+        void add(final Tenant tenant)
+        {
+            tenants.put(tenant.id, tenant);
+            resident.add(tenant.id);
+            reweigh(tenant);
+        }
+
+        void reweigh(final Tenant tenant)
+        {
+            final Organisation organisation = tenant.organisation;
+            final long weight = (organisation.getPeople().size() + 1) * PERSON_BYTES + organisation.getAllTeams().size() * TEAM_BYTES;
+            residentBytes += weight - tenant.weight;
+            tenant.weight = weight;
+        }
+
+        // the tenant used last always stays, however large it is. Making room is not the caller's work: their change is
+        // made and their result stands, so a tenant that cannot be written is counted, left in memory and moved to the
+        // recently used end to be tried again after the others, and eviction goes on with the next one
+        void evictBeyondBudget()
+        {
+            final List<Tenant> failed = new ArrayList<>();
+            final Iterator<Tenant> leastRecentlyUsed = tenants.values().iterator();
+            while(residentBytes > budget && leastRecentlyUsed.hasNext()){
+                final Tenant tenant = leastRecentlyUsed.next();
+                if(!leastRecentlyUsed.hasNext()){
+                    break;
+                }
+                try {
+                    pageOut(tenant);
+                    leastRecentlyUsed.remove();
+                } catch(IOException e) {
+                    pageOutFailed(e, tenant, failed);
+                } catch(UncheckedIOException e) {
+                    pageOutFailed(e.getCause(), tenant, failed);
+                }
+            }
+            for(Tenant tenant : failed){
+                tenants.get(tenant.id); // access order
+            }
+        }
+
+        private void pageOutFailed(final IOException failure, final Tenant tenant, final List<Tenant> failed)
+        {
+            pageOutFailures.increment();
+            lastPageOutFailure = failure;
+            failed.add(tenant);
+        }
+
+        void pageOutAll() throws IOException
+        {
+            final Iterator<Tenant> all = tenants.values().iterator();
+            while(all.hasNext()){
+                pageOut(all.next());
+                all.remove();
+            }
+        }
+
+        // an unchanged tenant is still exactly what its file holds and is just dropped
+        private void pageOut(final Tenant tenant) throws IOException
+        {
+            if(tenant.dirty){
+                final Path file = fileOf(tenant.id);
+                final Path temporary = directory.resolve(tenant.id + SUFFIX + ".tmp");
+                MappedSnapshot.write(tenant.organisation, temporary);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                writeHolidays(tenant);
+            }
+            residentBytes -= tenant.weight;
+            resident.remove(tenant.id);
+        }
+
+        // written after the snapshot, so a crash in between leaves the older calendar, whose people the snapshot
+        // still holds; a tenant with nothing planned has no file
+        private void writeHolidays(final Tenant tenant) throws IOException
+        {
+            final Path file = directory.resolve(tenant.id + HOLIDAYS_SUFFIX);
+            final List<HolidayCalendar.Absence> absences = tenant.organisation.getScheduledHolidays();
+            if(absences.isEmpty()){
+                Files.deleteIfExists(file);
+                return;
+            }
+            final List<String> lines = new ArrayList<>(absences.size());
+            for(HolidayCalendar.Absence absence : absences){
+                lines.add(absence.getEmployeeNumber() + "," + absence.getFrom() + "," + absence.getTo());
+            }
+            final Path temporary = directory.resolve(tenant.id + HOLIDAYS_SUFFIX + ".tmp");
+            Files.write(temporary, lines);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void readHolidays(final String tenantId, final Organisation organisation) throws IOException
+        {
+            final Path file = directory.resolve(tenantId + HOLIDAYS_SUFFIX);
+            if(!Files.exists(file)){
+                return;
+            }
+            final List<HolidayCalendar.Absence> absences = new ArrayList<>();
+            for(String line : Files.readAllLines(file)){
+                final String[] fields = line.split(",");
+                absences.add(new HolidayCalendar.Absence(Long.parseLong(fields[0]), LocalDate.parse(fields[1]), LocalDate.parse(fields[2])));
+            }
+            organisation.scheduleHolidays(absences);
+        }
+    }
+
+    private static final class Tenant implements OrganisationListener
+    {
+        final String id;
+        final Organisation organisation;
+        boolean dirty;
+        long weight;
+
+        Tenant(final String id, final Organisation organisation)
+        {
+            this.id = id;
+            this.organisation = organisation;
+            organisation.addListener(this);
+        }
+
+        @Override
+        public void personChanged(final long employeeNumber)
+        {
+            dirty = true;
+        }
+
+        @Override
+        public void teamChanged(final String teamName)
+        {
+            dirty = true;
+        }
+
+        @Override
+        public void membershipChanged(final long employeeNumber)
+        {
+            dirty = true;
+        }
+
+        // scheduling holidays changes nobody, only the calendar, and is only heard of as an event
+        @Override
+        public void changed(final OrganisationEvent event)
+        {
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncOrganisationTest
+{
+    private final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false));
+
+    @Test
+    void shouldApplyCallsInTheOrderTheyWereMade()
+    {
+        final AsyncOrganisation async = new AsyncOrganisation(organisation);
+        final CompletableFuture<String> manager = async.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        final CompletableFuture<String> employee = async.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 4L, false);
+        final CompletableFuture<String> holiday = async.goOnHoliday(12L);
+        final CompletableFuture<Boolean> seen = async.read(read -> read.getEmployee(12L).get().isOnHoliday());
+        final CompletableFuture<String> again = async.goOnHoliday(12L);
+
+        assertEquals("Success", manager.join());
+        assertEquals("Success", employee.join());
+        assertEquals("Success", holiday.join());
+        assertTrue(seen.join());
+        assertEquals("Invalid - employee already on holiday", again.join());
+    }
+
+    @Test
+    void shouldShareFsyncsBetweenCallsOverAJournal(@TempDir final Path directory) throws Exception
+    {
+        final int calls = 200;
+        try(JournaledOrganisation journaled = JournaledOrganisation.open(directory, organisation.getCeo())){
+            final AsyncOrganisation async = new AsyncOrganisation(journaled);
+            async.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false).join();
+            final long flushesBefore = journaled.getFlushCount();
+            final List<CompletableFuture<String>> added = new ArrayList<>();
+            for(long number = 1000L; number < 1000L + calls; number++){
+                added.add(async.addEmployee("Jay", "Bird", "Employee", new Date(), false, number, 4L, false));
+            }
+            CompletableFuture.allOf(added.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+
+            assertTrue(added.stream().allMatch(result -> "Success".equals(result.join())));
+            assertTrue(journaled.getFlushCount() - flushesBefore < calls); // the mailbox did not wait for each one
+        }
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, organisation.getCeo())){
+            assertEquals(calls + 1, reopened.getOrganisation().getPeople().size());
+        }
+    }
+
+    @Test
+    void shouldTakeManyRequestsAtOnceOnFewThreads() throws Exception
+    {
+        final ExecutorService threads = Executors.newFixedThreadPool(2);
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            final AsyncOrganisation async = new AsyncOrganisation(organisation, threads);
+            async.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+            final List<CompletableFuture<String>> added = new ArrayList<>();
+            final List<CompletableFuture<List<CompletableFuture<String>>>> batches = new ArrayList<>();
+            for(int caller = 0; caller < 8; caller++){
+                final long first = 1000L + caller * 5000L;
+                batches.add(CompletableFuture.supplyAsync(() -> {
+                    final List<CompletableFuture<String>> mine = new ArrayList<>();
+                    for(long number = first; number < first + 5000L; number++){
+                        mine.add(async.addEmployee("Jay", "Bird", "Employee", new Date(), false, number, 4L, false));
+                    }
+                    return mine;
+                }, callers));
+            }
+            batches.forEach(batch -> added.addAll(batch.join()));
+            CompletableFuture.allOf(added.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+
+            assertTrue(added.stream().allMatch(result -> "Success".equals(result.join())));
+            assertEquals(40_001, async.read(read -> read.getPeople().size()).join());
+        } finally {
+            callers.shutdownNow();
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs every OrganisationTest case against the columnar employee store
+class ColumnarOrganisationTest extends OrganisationTest
+{
+    @Override
+    Organisation newOrganisation(final CEO ceo)
+    {
+        return Organisation.withColumnarStore(ceo, 4);
+    }
+
+    @Test
+    void shouldWriteThroughViews()
+    {
+        final ColumnarEmployeeStore store = new ColumnarEmployeeStore(2);
+        store.put(7L, new Manager("Mike", "Newton", "Manager", new Date(20L), false, 7L, 3L, false));
+
+        store.get(7L).setOnHoliday(true);
+        store.get(7L).setRole("Director");
+        store.get(7L).setManagerNumber(null);
+
+        final Employee stored = store.get(7L);
+        assertTrue(stored instanceof Manager);
+        assertTrue(stored.isOnHoliday());
+        assertEquals("Director", stored.getRole());
+        assertNull(stored.getManagerNumber());
+        assertEquals(20L, stored.getStartDate().getTime());
+    }
+
+    @Test
+    void shouldKeepViewsPointingAtTheirPersonWhenRowsMove()
+    {
+        final ColumnarEmployeeStore store = new ColumnarEmployeeStore(2);
+        for(long number = 1L; number <= 50L; number++){
+            store.put(number, new Employee("First" + number, "Last", "Employee", new Date(number), number % 2 == 0, number, 3L, false));
+        }
+        final Employee last = store.get(50L);
+
+        final Employee removed = store.remove(1L);
+
+        assertEquals("First1", removed.getFirstName()); // a detached copy, still readable
+        assertNull(store.get(1L));
+        assertEquals("First50", last.getFirstName());
+        assertTrue(last.isContractor());
+        assertEquals(49, store.size());
+        final Set<Long> numbers = new HashSet<>();
+        for(Employee person : store.values()){
+            numbers.add(person.getEmployeeNumber());
+        }
+        assertEquals(49, numbers.size());
+        assertFalse(numbers.contains(1L));
+        assertThrows(IllegalStateException.class, () -> {
+            final Employee gone = store.get(2L);
+            store.remove(2L);
+            gone.getFirstName();
+        });
+    }
+
+    @Test
+    void shouldStartTheStringPoolsAgainWhenCleared()
+    {
+        final ColumnarEmployeeStore store = new ColumnarEmployeeStore(2);
+        for(long number = 1L; number <= 100L; number++){
+            store.put(number, new Employee("First" + number, "Last", "Role" + number, new Date(number), false, number, 3L, false));
+        }
+        store.clear();
+
+        for(long number = 101L; number <= 200L; number++){ // only 127 distinct roles fit, counting the cleared ones
+            store.put(number, new Employee("First" + number, "Last", "Role" + number, new Date(number), false, number, 3L, false));
+        }
+        assertEquals(100, store.size());
+        assertEquals("Role200", store.get(200L).getRole());
+    }
+}
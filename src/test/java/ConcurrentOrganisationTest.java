@@ -0,0 +1,211 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentOrganisationTest
+{
+
+    private static final int GROUPS = 8;
+    private static final int TEAM_SIZE = 20;
+
+    private final Organisation organisation = new Organisation(
+            new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)
+    );
+    private final ConcurrentOrganisation concurrent = new ConcurrentOrganisation(organisation, 64);
+
+    @Test
+    void shouldKeepUnitTotalsConsistentUnderConcurrentMovesAndHolidays() throws Exception
+    {
+        for(int group = 0; group < GROUPS; group++){
+            final long manager = 1_000L * (group + 1);
+            concurrent.addManager("Manager", "" + group, "Manager", new Date(), false, manager, 100L, false);
+            for(String side : new String[]{"A", "B"}){
+                final List<Long> members = new ArrayList<>();
+                for(int i = 0; i < TEAM_SIZE; i++){
+                    final long employee = manager + (side.equals("A") ? 1 : 500) + i;
+                    concurrent.addEmployee("Employee", "" + employee, "Employee", new Date(employee), false, employee, manager, false);
+                    members.add(employee);
+                }
+                concurrent.addTeam("team" + side + group, manager, members);
+            }
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(GROUPS);
+        final List<Future<?>> running = new ArrayList<>();
+        for(int group = 0; group < GROUPS; group++){
+            final int current = group;
+            running.add(pool.submit(() -> {
+                final long firstEmployee = 1_000L * (current + 1) + 1;
+                for(int round = 0; round < 200; round++){
+                    final long employee = firstEmployee + round % (TEAM_SIZE / 2);
+                    final boolean there = (round / (TEAM_SIZE / 2)) % 2 == 0;
+                    assertEquals("Success", concurrent.moveTeam(there ? "teamA" + current : "teamB" + current,
+                            there ? "teamB" + current : "teamA" + current, employee, false));
+                    assertEquals("Success", concurrent.goOnHoliday(employee));
+                    assertEquals("Success", concurrent.returnFromHoliday(employee));
+                }
+            }));
+        }
+        for(Future<?> future : running){
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(GROUPS * 2 * TEAM_SIZE, concurrent.getUnitHeadcount(100L));
+        assertEquals(GROUPS, concurrent.getUnitManagers(100L));
+    }
+
+    @Test
+    void shouldKeepHolidayCoverRightWhileReportsArePromoted() throws Exception
+    {
+        concurrent.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+        concurrent.addManager("Anna", "Bell", "Manager", new Date(), false, 4L, 100L, false);
+        concurrent.addManager("Kim", "Lowe", "Manager", new Date(), false, 5L, 3L, true);
+        final List<Long> reports = new ArrayList<>();
+        for(long employee = 1_000L; employee < 1_000L + GROUPS * TEAM_SIZE; employee++){
+            concurrent.addEmployee("Employee", "" + employee, "Employee", new Date(employee), false, employee, employee % 2 == 0 ? 3L : 5L, false);
+            reports.add(employee);
+        }
+        concurrent.addTeam("teamFive", 5L, List.of(5L));
+
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Future<?> holidays = pool.submit(() -> {
+            for(int round = 0; round < 500; round++){
+                assertEquals("Success", round % 2 == 0 ? concurrent.goOnHoliday(3L) : concurrent.returnFromHoliday(3L));
+            }
+        });
+        final Future<?> promotions = pool.submit(() -> {
+            for(long employee : reports){
+                assertEquals("Success", concurrent.promote(employee, employee % 3 == 0 ? 4L : 3L, true, "Manager"));
+            }
+        });
+        holidays.get(30, TimeUnit.SECONDS);
+        promotions.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        final ReportingTree tree = organisation.getReportingTree();
+        for(Employee person : organisation.getPeople()){
+            assertEquals(tree.coverFor(person.getEmployeeNumber()), person.getManagerNumber(), "cover of " + person.getEmployeeNumber());
+        }
+        assertEquals(tree.coverFor(5L), concurrent.getTeam(5L).getCurrentManager());
+    }
+
+    @Test
+    void shouldRollBackEachThreadsReorganisationOnItsOwn() throws Exception
+    {
+        concurrent.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+        for(int group = 0; group < GROUPS; group++){
+            final long employee = 1_000L + group;
+            concurrent.addEmployee("Employee", "" + employee, "Employee", new Date(employee), false, employee, 3L, false);
+            concurrent.addTeam("team" + group, 3L, List.of(employee));
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(GROUPS);
+        final List<Future<?>> running = new ArrayList<>();
+        for(int group = 0; group < GROUPS; group++){
+            final long employee = 1_000L + group;
+            final String team = "team" + group;
+            running.add(pool.submit(() -> {
+                for(int round = 0; round < 500; round++){
+                    final List<String> results = concurrent.atomically(List.of(team), new long[]{employee}, org -> org.reorganise(new Reorganisation()
+                            .goOnHoliday(employee)
+                            .moveTeam(team, "teamAMillion", employee, false)));
+                    assertEquals(Organisation.ROLLED_BACK, results.get(0));
+                    assertFalse(concurrent.getEmployee(employee).get().isOnHoliday());
+                }
+            }));
+        }
+        for(Future<?> future : running){
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldHandOutWholeTeamsWhileTheyChange() throws Exception
+    {
+        concurrent.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+        final List<Long> members = new ArrayList<>();
+        for(long employee = 1_000L; employee < 1_000L + GROUPS * TEAM_SIZE; employee++){
+            concurrent.addEmployee("Employee", "" + employee, "Employee", new Date(employee), false, employee, 3L, false);
+            members.add(employee);
+        }
+        concurrent.addTeam("teamA", 3L, members);
+        concurrent.addTeam("teamB", 3L, List.of(3L));
+
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Future<?> moves = pool.submit(() -> {
+            for(int round = 0; round < 4; round++){
+                for(long employee : members){
+                    final boolean there = round % 2 == 0;
+                    assertEquals("Success", concurrent.moveTeam(there ? "teamA" : "teamB", there ? "teamB" : "teamA", employee, false));
+                }
+            }
+        });
+        final Future<?> reads = pool.submit(() -> {
+            while(!moves.isDone()){
+                final Team team = concurrent.getTeam(3L);
+                final LongHashSet ids = team.getTeamMembersIds();
+                int seen = 0;
+                for(int slot = ids.firstSlot(); slot >= 0; slot = ids.nextSlot(slot)){
+                    seen++;
+                }
+                assertEquals(team.getTeamSize(), seen);
+            }
+        });
+        moves.get(30, TimeUnit.SECONDS);
+        reads.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(GROUPS * TEAM_SIZE, concurrent.getTeams(1_000L).get(0).getTeamSize());
+    }
+
+    @Test
+    void shouldIndexEveryMemberOfTeamsAddedAtTheSameTime() throws Exception
+    {
+        concurrent.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+        concurrent.addEmployee("Jay", "Bird", "Employee", new Date(), false, 1_000L, 3L, false);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(GROUPS);
+        final List<Future<?>> running = new ArrayList<>();
+        for(int group = 0; group < GROUPS; group++){
+            final int current = group;
+            running.add(pool.submit(() -> {
+                for(int i = 0; i < TEAM_SIZE; i++){
+                    assertEquals("Success", concurrent.addTeam("team" + current + "-" + i, 3L, List.of(1_000L)));
+                }
+            }));
+        }
+        for(Future<?> future : running){
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(GROUPS * TEAM_SIZE, concurrent.getTeams(1_000L).size());
+    }
+
+    @Test
+    void shouldRunSeveralStepsAtomically()
+    {
+        concurrent.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+        concurrent.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 3L, false);
+        concurrent.addEmployee("Jane", "Doe", "Employee", new Date(), false, 13L, 3L, false);
+        concurrent.addTeam("teamOne", 3L, List.of(3L, 12L, 13L));
+        concurrent.addTeam("teamTwo", 3L, List.of(3L));
+
+        final String result = concurrent.atomically(List.of("teamOne", "teamTwo"), new long[]{12L},
+                org -> org.moveTeam("teamOne", "teamTwo", 12L, false) + "/" + org.goOnHoliday(12L));
+
+        assertEquals("Success/Success", result);
+        assertEquals("teamTwo", concurrent.getTeam(12L).getTeamName());
+        assertTrue(concurrent.getEmployee(12L).get().isOnHoliday());
+    }
+}
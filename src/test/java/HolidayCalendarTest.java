@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayCalendarTest
+{
+    private static final LocalDate START = LocalDate.of(2024, 7, 1);
+
+    @Test
+    void shouldMergeOverlappingAndTouchingRanges()
+    {
+        final HolidayCalendar calendar = new HolidayCalendar();
+        calendar.schedule(List.of(
+                new HolidayCalendar.Absence(1L, START, START.plusDays(4)),
+                new HolidayCalendar.Absence(1L, START.plusDays(5), START.plusDays(6)),
+                new HolidayCalendar.Absence(1L, START.plusDays(2), START.plusDays(3)),
+                new HolidayCalendar.Absence(1L, START.plusDays(10), START.plusDays(10))
+        ));
+
+        assertFalse(calendar.isOut(1L, START.minusDays(1)));
+        assertTrue(calendar.isOut(1L, START));
+        assertTrue(calendar.isOut(1L, START.plusDays(6)));
+        assertFalse(calendar.isOut(1L, START.plusDays(7)));
+        assertTrue(calendar.isOut(1L, START.plusDays(10)));
+        assertFalse(calendar.isOut(2L, START));
+        assertArrayEquals(new long[]{1L}, calendar.whoIsOut(START.plusDays(6)));
+    }
+
+    @Test
+    void shouldAnswerForADayFromTheLatestBatch()
+    {
+        final HolidayCalendar calendar = new HolidayCalendar();
+        calendar.schedule(List.of(new HolidayCalendar.Absence(3L, START, START.plusDays(2))));
+        final HolidayCalendar.Day before = calendar.on(START);
+        calendar.schedule(List.of(new HolidayCalendar.Absence(7L, START.plusDays(1), START.plusDays(1))));
+
+        final HolidayCalendar.Day day = calendar.on(START.plusDays(1));
+        assertTrue(day.isScheduled(3L));
+        assertTrue(day.isOut(3L));
+        assertTrue(day.isScheduled(7L));
+        assertTrue(day.isOut(7L));
+        assertFalse(day.isScheduled(5L));
+        assertFalse(calendar.on(START.plusDays(3)).isOut(3L));
+        assertFalse(before.isScheduled(7L)); // a day already handed out keeps the batch it was taken from
+    }
+
+    @Test
+    void shouldAnswerWhoIsOutLikeAScanWould()
+    {
+        final Random random = new Random(11L);
+        final HolidayCalendar calendar = new HolidayCalendar();
+        final List<HolidayCalendar.Absence> absences = new ArrayList<>();
+        for(int batch = 0; batch < 3; batch++){
+            final List<HolidayCalendar.Absence> scheduled = new ArrayList<>();
+            for(int i = 0; i < 300; i++){
+                final LocalDate from = START.plusDays(random.nextInt(120));
+                scheduled.add(new HolidayCalendar.Absence(random.nextInt(200), from, from.plusDays(random.nextInt(15))));
+            }
+            calendar.schedule(scheduled);
+            absences.addAll(scheduled);
+
+            for(int day = -2; day < 140; day++){
+                final LocalDate date = START.plusDays(day);
+                final long[] expected = absences.stream()
+                        .filter(absence -> !date.isBefore(absence.getFrom()) && !date.isAfter(absence.getTo()))
+                        .mapToLong(HolidayCalendar.Absence::getEmployeeNumber)
+                        .distinct()
+                        .sorted()
+                        .toArray();
+                assertArrayEquals(expected, calendar.whoIsOut(date), date.toString());
+                for(long person : expected){
+                    assertTrue(calendar.isOut(person, date));
+                }
+            }
+        }
+    }
+}
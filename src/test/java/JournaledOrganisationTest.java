@@ -0,0 +1,243 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledOrganisationTest
+{
+    @TempDir
+    Path directory;
+
+    private static CEO ceo()
+    {
+        return new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false);
+    }
+
+    private static void addSampleTeam(final JournaledOrganisation organisation)
+    {
+        organisation.addManager("Mike", "Newton", "Manager", new Date(10L), false, 3L, 100L, false);
+        organisation.addManager("Larry", "Clarke", "Manager", new Date(10L), false, 4L, 100L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(20L), false, 1L, 3L, false);
+        organisation.addEmployee("Steve", "Smith", "Employee", new Date(30L), false, 2L, 3L, false);
+        organisation.addTeam("one", 3L, List.of(1L, 2L, 3L));
+        organisation.addTeam("two", 4L, new ArrayList<>());
+    }
+
+    @Test
+    void shouldReplayJournalAfterRestart() throws IOException
+    {
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            addSampleTeam(organisation);
+            assertEquals(Organisation.SUCCESS, organisation.goOnHoliday(1L));
+            assertEquals(Organisation.SUCCESS, organisation.moveTeam("one", "two", 1L, false));
+            assertEquals("Invalid - employee already on holiday", organisation.goOnHoliday(1L));
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertEquals("two", reopened.getTeam(1L).getTeamName());
+            assertTrue(reopened.getEmployee(1L).get().isOnHoliday());
+            assertEquals(2L, reopened.getTeam(2L).getManagerEmployeeId());
+            assertEquals(3, reopened.getUnitHeadcount(100L));
+        }
+    }
+
+    @Test
+    void shouldReplayReorganisationAsOneChange() throws IOException
+    {
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            addSampleTeam(organisation);
+            assertEquals(List.of(Organisation.ROLLED_BACK, "Invalid team - team does not exist"),
+                    organisation.reorganise(new Reorganisation().goOnHoliday(1L).moveTeam("one", "three", 2L, false)));
+            assertEquals(List.of(Organisation.SUCCESS, Organisation.SUCCESS),
+                    organisation.reorganise(new Reorganisation().goOnHoliday(2L).moveTeam("one", "two", 1L, false)));
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertFalse(reopened.getEmployee(1L).get().isOnHoliday());
+            assertTrue(reopened.getEmployee(2L).get().isOnHoliday());
+            assertEquals("two", reopened.getTeam(1L).getTeamName());
+        }
+    }
+
+    @Test
+    void shouldReplayOnlyChangesAfterCheckpoint() throws IOException
+    {
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            addSampleTeam(organisation);
+            organisation.checkpoint();
+            assertEquals(0L, Files.size(directory.resolve(JournaledOrganisation.JOURNAL_FILE)));
+            assertEquals(Organisation.SUCCESS, organisation.goOnHoliday(3L));
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertTrue(reopened.getManager(3L).get().isOnHoliday());
+            assertEquals(100L, reopened.getTeam(1L).getCurrentManager());
+            assertEquals(3L, reopened.getTeam(1L).getManagerEmployeeId());
+            assertEquals(Organisation.EMPLOYEE_NON_UNIQUE_ID_ERROR,
+                    reopened.addEmployee("Manjooth", "Kler", "Employee", new Date(20L), false, 1L, 3L, false));
+        }
+    }
+
+    @Test
+    void shouldDropTornRecordAtEndOfJournal() throws IOException
+    {
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            addSampleTeam(organisation);
+            organisation.goOnHoliday(2L);
+        }
+        final Path journal = directory.resolve(JournaledOrganisation.JOURNAL_FILE);
+        try(FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)){
+            channel.truncate(channel.size() - 3); // the holiday record lost its last bytes in the crash
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertFalse(reopened.getEmployee(2L).get().isOnHoliday());
+            assertEquals(Organisation.SUCCESS, reopened.goOnHoliday(2L));
+        }
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertTrue(reopened.getEmployee(2L).get().isOnHoliday());
+        }
+    }
+
+    @Test
+    void shouldKeepEveryConcurrentChange() throws Exception
+    {
+        final int people = 200;
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            organisation.addManager("Mike", "Newton", "Manager", new Date(10L), false, 3L, 100L, false);
+            final List<Future<String>> responses = new ArrayList<>();
+            for(long number = 1000L; number < 1000L + people; number++){
+                final long employeeNumber = number;
+                responses.add(pool.submit(() -> organisation.addEmployee("A", "B", "Employee", new Date(employeeNumber), false, employeeNumber, 3L, false)));
+            }
+            for(Future<String> response : responses){
+                assertEquals(Organisation.SUCCESS, response.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            for(long number = 1000L; number < 1000L + people; number++){
+                assertTrue(reopened.getEmployee(number).isPresent());
+            }
+        }
+    }
+
+    @Test
+    void shouldAnnounceConcurrentChangesInTheOrderTheyWereMade() throws Exception
+    {
+        final int people = 400;
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        final List<Long> applied = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> announced = Collections.synchronizedList(new ArrayList<>());
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            organisation.getOrganisation().addListener(new OrganisationListener()
+            {
+                @Override
+                public void personChanged(final long employeeNumber)
+                {
+                    applied.add(employeeNumber); // not held back, heard as the change is made
+                }
+
+                @Override
+                public void teamChanged(final String teamName)
+                {
+                }
+
+                @Override
+                public void membershipChanged(final long employeeNumber)
+                {
+                }
+
+                @Override
+                public void changed(final OrganisationEvent event)
+                {
+                    announced.add(event.getEmployeeNumber());
+                }
+            });
+            organisation.addManager("Mike", "Newton", "Manager", new Date(10L), false, 3L, 100L, false);
+            applied.clear();
+            announced.clear();
+            final List<Future<String>> responses = new ArrayList<>();
+            for(long number = 1000L; number < 1000L + people; number++){
+                final long employeeNumber = number;
+                responses.add(pool.submit(() -> organisation.addEmployee("A", "B", "Employee", new Date(employeeNumber), false, employeeNumber, 3L, false)));
+            }
+            for(Future<String> response : responses){
+                assertEquals(Organisation.SUCCESS, response.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(applied, announced);
+    }
+
+    @Test
+    void shouldNeitherKeepNorJournalAChangeThatThrows() throws IOException
+    {
+        try(JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo())){
+            addSampleTeam(organisation);
+            final AtomicBoolean thrown = new AtomicBoolean();
+            organisation.getOrganisation().addListener(new OrganisationListener()
+            {
+                @Override
+                public void personChanged(final long employeeNumber)
+                {
+                    if(employeeNumber == 7L && thrown.compareAndSet(false, true)){
+                        throw new IllegalStateException("listener failed");
+                    }
+                }
+
+                @Override
+                public void teamChanged(final String teamName)
+                {
+                }
+
+                @Override
+                public void membershipChanged(final long employeeNumber)
+                {
+                }
+            });
+
+            assertThrows(IllegalStateException.class,
+                    () -> organisation.addEmployee("Jay", "Bird", "Employee", new Date(40L), false, 7L, 3L, false));
+            assertFalse(organisation.getEmployee(7L).isPresent());
+            assertEquals(Organisation.SUCCESS, organisation.goOnHoliday(2L));
+        }
+
+        try(JournaledOrganisation reopened = JournaledOrganisation.open(directory, ceo())){
+            assertFalse(reopened.getEmployee(7L).isPresent());
+            assertTrue(reopened.getEmployee(2L).get().isOnHoliday());
+        }
+    }
+
+    @Test
+    void shouldUndoAChangeTheJournalCouldNotKeep() throws IOException
+    {
+        final JournaledOrganisation organisation = JournaledOrganisation.open(directory, ceo());
+        addSampleTeam(organisation);
+        organisation.close();
+
+        assertThrows(UncheckedIOException.class, () -> organisation.goOnHoliday(3L));
+
+        assertFalse(organisation.getManager(3L).get().isOnHoliday());
+        assertEquals(3L, organisation.getTeam(1L).getCurrentManager());
+    }
+}
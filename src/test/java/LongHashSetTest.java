@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest
+{
+
+    private final LongHashSet set = new LongHashSet();
+
+    @Test
+    void shouldAddAndFindValues()
+    {
+        assertTrue(set.add(3L));
+        assertFalse(set.add(3L));
+
+        assertTrue(set.contains(3L));
+        assertFalse(set.contains(4L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void shouldRemoveByValue()
+    {
+        set.add(1L);
+        set.add(2L);
+        set.add(3L);
+
+        assertTrue(set.remove(2L));
+        assertFalse(set.remove(2L));
+
+        assertFalse(set.contains(2L));
+        assertTrue(set.contains(1L));
+        assertTrue(set.contains(3L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void shouldHoldZeroAsAnOrdinaryValue()
+    {
+        set.add(0L);
+        set.add(5L);
+
+        assertTrue(set.contains(0L));
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[]{0L, 5L}, values);
+
+        assertTrue(set.remove(0L));
+        assertFalse(set.contains(0L));
+    }
+
+    @Test
+    void shouldVisitEveryValueWithCursor()
+    {
+        for(long value = 0; value < 100; value++){
+            set.add(value * 7);
+        }
+
+        long sum = 0;
+        int count = 0;
+        for(int slot = set.firstSlot(); slot >= 0; slot = set.nextSlot(slot)){
+            sum += set.keyAt(slot);
+            count++;
+        }
+
+        assertEquals(100, count);
+        assertEquals(7 * 99 * 100 / 2, sum);
+    }
+
+    @Test
+    void shouldMatchHashSetUnderRandomChurn()
+    {
+        final Set<Long> expected = new HashSet<>();
+        final Random random = new Random(42);
+
+        for(int i = 0; i < 50_000; i++){
+            final long value = random.nextInt(2_000) - 1_000;
+            if(random.nextBoolean()){
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for(long value = -1_000; value < 1_000; value++){
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest
+{
+    @TempDir
+    Path directory;
+
+    private static Organisation sampleOrganisation()
+    {
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(5L), false, 100L, null, false));
+        organisation.addManager("Larry", "Clarke", "Director", new Date(10L), false, 4L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(20L), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(30L), true, 1L, 3L, false);
+        organisation.addEmployee("Steve", "Smith", "Employee", new Date(40L), false, 2L, 3L, false);
+        organisation.addTeam("one", 3L, List.of(1L, 2L, 3L));
+        organisation.addTeam("two", 4L, List.of(2L, 4L));
+        organisation.goOnHoliday(3L); // employees 1 and 2 are covered by 4 while Mike is away
+        return organisation;
+    }
+
+    private MappedSnapshot writeAndOpen(final Organisation organisation) throws IOException
+    {
+        final Path file = directory.resolve("organisation.snapshot");
+        MappedSnapshot.write(organisation, file);
+        return MappedSnapshot.open(file);
+    }
+
+    @Test
+    void shouldAnswerLookupsFromMappedFile() throws IOException
+    {
+        final MappedSnapshot snapshot = writeAndOpen(sampleOrganisation());
+
+        assertEquals(4, snapshot.getPeopleCount());
+        assertEquals(2, snapshot.getTeamCount());
+        assertEquals(100L, snapshot.getCeo().getEmployeeNumber());
+        assertEquals("one", snapshot.getTeamName(1L));
+        assertEquals("two", snapshot.getTeamName(2L));
+        assertEquals(4L, snapshot.getManagerNumber(1L));
+        assertEquals(3L, snapshot.getReportsTo(1L));
+        assertEquals("Director", snapshot.getManager(4L).get().getRole());
+        assertTrue(snapshot.getManager(3L).get().isOnHoliday());
+        assertFalse(snapshot.getManager(1L).isPresent());
+        assertFalse(snapshot.getManager(100L).isPresent());
+        assertTrue(snapshot.getEmployee(1L).get().isContractor());
+        assertEquals(30L, snapshot.getEmployee(1L).get().getStartDate().getTime());
+        assertFalse(snapshot.getEmployee(99L).isPresent());
+        assertNull(snapshot.getTeam(99L));
+    }
+
+    @Test
+    void shouldBuildEachObjectOnce() throws IOException
+    {
+        final MappedSnapshot snapshot = writeAndOpen(sampleOrganisation());
+
+        assertSame(snapshot.getManager(4L).get(), snapshot.getManager(4L).get());
+        assertSame(snapshot.getTeam(1L), snapshot.getTeam(3L));
+        assertEquals(4L, snapshot.getTeam(1L).getCurrentManager());
+        assertTrue(snapshot.getTeam(1L).isTeamMember(2L));
+    }
+
+    @Test
+    void shouldRestoreReportingLinesAndTeamOrder() throws IOException
+    {
+        final Organisation original = sampleOrganisation();
+        final Organisation restored = writeAndOpen(original).toOrganisation();
+
+        assertEquals(3L, restored.getReportsTo(1L));
+        assertEquals(4L, restored.getEmployee(1L).get().getManagerNumber());
+        assertEquals(original.getUnitHeadcount(4L), restored.getUnitHeadcount(4L));
+        assertEquals(original.getUnitHeadcount(3L), restored.getUnitHeadcount(3L));
+        assertEquals("two", restored.getTeam(2L).getTeamName());
+        assertEquals(2, restored.getTeams(2L).size());
+        assertEquals(Organisation.SUCCESS, restored.returnFromHoliday(3L));
+        assertEquals(3L, restored.getEmployee(1L).get().getManagerNumber());
+    }
+
+    @Test
+    void shouldRejectOtherFiles() throws IOException
+    {
+        final Path file = directory.resolve("not.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40});
+
+        assertThrows(IOException.class, () -> MappedSnapshot.open(file));
+    }
+}
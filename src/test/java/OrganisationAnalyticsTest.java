@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrganisationAnalyticsTest
+{
+    private static CEO ceo()
+    {
+        return new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false);
+    }
+
+    @Test
+    void shouldAggregateEachUnit()
+    {
+        final Organisation organisation = new Organisation(ceo());
+        organisation.addManager("Vince", "Marlow", "VicePresident", new Date(), false, 5L, 100L, false);
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 5L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(), true, 1L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(), false, 2L, 3L, false);
+        organisation.addEmployee("Jane", "Doe", "Employee", new Date(), true, 6L, 4L, false);
+        organisation.addTeam("one", 3L, List.of(1L, 2L, 3L));
+
+        final OrganisationAnalytics analytics = OrganisationAnalytics.analyse(organisation);
+
+        assertEquals(7, analytics.size());
+        final int ceoRow = analytics.rowOf(100L);
+        assertEquals(7, analytics.getUnitPeople(ceoRow));
+        assertEquals(OrganisationAnalytics.NONE, analytics.getReportsTo(ceoRow));
+        final int director = analytics.rowOf(4L);
+        assertEquals(5, analytics.getUnitPeople(director));
+        assertEquals(2, analytics.getUnitContractors(director));
+        assertEquals(2, analytics.getDirectReports(director));
+        assertEquals(2, analytics.getDepth(director));
+        assertEquals(5L, analytics.getReportsTo(director));
+        assertEquals(-1, analytics.rowOf(99L));
+        assertArrayEquals(new int[]{1, 1, 1, 2, 2}, analytics.getDepthHistogram());
+        assertArrayEquals(new int[]{0, 2, 2}, analytics.getSpanOfControlHistogram()); // CEO and VP have one report, 4 and 3 have two
+        assertEquals(Map.of(5L, 2.0 / 6), analytics.getContractorRatioByVicePresident());
+    }
+
+    @Test
+    void shouldMatchAWalkUpFromEveryPerson()
+    {
+        final Random random = new Random(17L);
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 10000L, null, false));
+        final int managers = 300;
+        for(long number = 1; number <= managers; number++){
+            final long reportsTo = number == 1 ? 10000L : 1 + random.nextInt((int) number - 1);
+            organisation.addManager("M", "M", "Manager", new Date(), false, number, reportsTo, false);
+        }
+        for(long number = managers + 1; number <= 5000; number++){
+            organisation.addEmployee("E", "E", "Employee", new Date(), random.nextInt(4) == 0, number, 1 + random.nextInt(managers), false);
+        }
+
+        final OrganisationAnalytics analytics = OrganisationAnalytics.analyse(organisation, new ForkJoinPool(4));
+
+        final int[] people = new int[5001];
+        final int[] contractors = new int[5001];
+        for(long number = 1; number <= 5000; number++){
+            final boolean contractor = organisation.findPerson(number).isContractor();
+            for(Long above = number; above != null && above != 10000L; above = organisation.getReportsTo(above)){
+                people[above.intValue()]++;
+                contractors[above.intValue()] += contractor ? 1 : 0;
+            }
+        }
+        assertEquals(5001, analytics.size());
+        assertEquals(5001, analytics.getUnitPeople(analytics.rowOf(10000L)));
+        for(int number = 1; number <= 5000; number++){
+            final int row = analytics.rowOf(number);
+            assertEquals(people[number], analytics.getUnitPeople(row));
+            assertEquals(contractors[number], analytics.getUnitContractors(row));
+            assertEquals(analytics.getDepth(analytics.rowOf(analytics.getReportsTo(row))) + 1, analytics.getDepth(row));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrganisationDiffTest
+{
+    @TempDir
+    Path directory;
+
+    private static Organisation today()
+    {
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false));
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        organisation.addManager("John", "Burkins", "Manager", new Date(), false, 8L, 4L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(), false, 1L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 3L, false);
+        organisation.addTeam("teamOne", 3L, Arrays.asList(1L, 12L));
+        organisation.addTeam("teamTwo", 8L, List.of());
+        return organisation;
+    }
+
+    @Test
+    void shouldReportEachKindOfChangeInEmployeeNumberOrder()
+    {
+        final Organisation before = today();
+        final Organisation after = today();
+        after.moveTeam("teamOne", "teamTwo", 1L, false);
+        after.promote(12L, 100L, true, "Manager");
+        after.goOnHoliday(8L);
+        after.addEmployee("Jane", "Doe", "Employee", new Date(), false, 20L, 8L, false);
+
+        final List<String> found = new ArrayList<>();
+        OrganisationDiff.compare(before, after).forEach(difference -> found.add(difference.toString()));
+
+        assertEquals(List.of(
+                "MANAGER_CHANGED 1: 3 -> 8",
+                "TEAMS_CHANGED 1: [teamOne] -> [teamTwo]",
+                "HOLIDAY_CHANGED 8: false -> true",
+                "MANAGER_CHANGED 12: 3 -> 100",
+                "ROLE_CHANGED 12: Employee -> Manager",
+                "ADDED 20: null -> Employee"), found);
+        assertTrue(OrganisationDiff.compare(before, today()).isEmpty());
+    }
+
+    @Test
+    void shouldCompareASnapshotWithTheLiveOrganisation() throws Exception
+    {
+        final Organisation organisation = today();
+        final Path file = directory.resolve("today.snapshot");
+        MappedSnapshot.write(organisation, file);
+        final MappedSnapshot snapshot = MappedSnapshot.open(file);
+        organisation.returnFromHoliday(8L);
+        organisation.goOnHoliday(3L);
+
+        final List<OrganisationDiff.Difference> found = new ArrayList<>();
+        final long count = OrganisationDiff.compare(OrganisationDiff.Source.of(snapshot), OrganisationDiff.Source.of(organisation), found::add);
+
+        assertEquals(1L, count);
+        assertEquals(OrganisationDiff.Type.HOLIDAY_CHANGED, found.get(0).getType());
+        assertEquals(3L, found.get(0).getEmployeeNumber());
+        assertEquals(0L, OrganisationDiff.compare(OrganisationDiff.Source.of(snapshot), OrganisationDiff.Source.of(snapshot.toOrganisation()), difference -> {}));
+    }
+}
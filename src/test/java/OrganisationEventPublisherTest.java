@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrganisationEventPublisherTest
+{
+    // runs on the publishing thread and asks for a fixed number of batches up front
+    private static final class Collector implements Flow.Subscriber<OrganisationEventPublisher.Batch>
+    {
+        final List<OrganisationEventPublisher.Batch> batches = new ArrayList<>();
+        private final long wanted;
+        Flow.Subscription subscription;
+
+        Collector(final long wanted)
+        {
+            this.wanted = wanted;
+        }
+
+        List<OrganisationEvent.Type> types(final int batch)
+        {
+            final List<OrganisationEvent.Type> types = new ArrayList<>();
+            batches.get(batch).getEvents().forEach(event -> types.add(event.getType()));
+            return types;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            subscription.request(wanted);
+        }
+
+        @Override
+        public void onNext(final OrganisationEventPublisher.Batch batch)
+        {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(final Throwable throwable)
+        {
+        }
+
+        @Override
+        public void onComplete()
+        {
+        }
+    }
+
+    private final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false));
+
+    private void addSampleTeam()
+    {
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(10L), false, 1L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(20L), false, 12L, 3L, false);
+        organisation.addTeam("teamOne", 3L, Arrays.asList(1L, 3L, 12L));
+        organisation.addTeam("teamTwo", 4L, Arrays.asList(4L));
+    }
+
+    @Test
+    void shouldBatchEachCallsChangesIncludingDerivedOnes()
+    {
+        addSampleTeam();
+        final OrganisationEventPublisher publisher = new OrganisationEventPublisher(organisation, Runnable::run, 8, 256);
+        final Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+
+        organisation.goOnHoliday(3L);
+        organisation.moveTeam("teamOne", "teamTwo", 3L, true);
+
+        assertEquals(2, collector.batches.size()); // each call is handed over as it finishes, nobody has to flush
+        assertEquals(List.of(OrganisationEvent.Type.CURRENT_MANAGER_CHANGED, OrganisationEvent.Type.MANAGER_NUMBER_CHANGED,
+                OrganisationEvent.Type.MANAGER_NUMBER_CHANGED, OrganisationEvent.Type.WENT_ON_HOLIDAY), collector.types(0));
+        assertEquals(4L, collector.batches.get(0).getEvents().get(1).getManagerNumber());
+        assertTrue(collector.types(1).contains(OrganisationEvent.Type.MOVED_TEAM));
+        final OrganisationEvent successor = collector.batches.get(1).getEvents().get(collector.batches.get(1).getEvents().size() - 1);
+        assertEquals(OrganisationEvent.Type.TEAM_MANAGER_CHANGED, successor.getType());
+        assertEquals(1L, successor.getManagerNumber()); // the earliest starter takes over teamOne
+        assertEquals(collector.batches.get(0).getSequence() + 1, collector.batches.get(1).getSequence());
+    }
+
+    @Test
+    void shouldHandOverAWholeReorganisationAsOneBatch()
+    {
+        addSampleTeam();
+        final OrganisationEventPublisher publisher = new OrganisationEventPublisher(organisation, Runnable::run, 8, 256);
+        final Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+
+        organisation.reorganise(new Reorganisation().goOnHoliday(1L).goOnHoliday(12L));
+
+        assertEquals(1, collector.batches.size());
+        assertEquals(List.of(OrganisationEvent.Type.WENT_ON_HOLIDAY, OrganisationEvent.Type.WENT_ON_HOLIDAY), collector.types(0));
+    }
+
+    @Test
+    void shouldNotAnnounceRolledBackReorganisation()
+    {
+        addSampleTeam();
+        final OrganisationEventPublisher publisher = new OrganisationEventPublisher(organisation, Runnable::run, 8, 256);
+        final Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+
+        organisation.reorganise(new Reorganisation().goOnHoliday(3L).moveTeam("teamOne", "teamNone", 1L, false));
+        assertTrue(collector.batches.isEmpty());
+
+        organisation.reorganise(new Reorganisation().goOnHoliday(1L).promote(12L, 4L, true, "Manager"));
+        assertEquals(List.of(OrganisationEvent.Type.WENT_ON_HOLIDAY, OrganisationEvent.Type.PROMOTED), collector.types(0));
+    }
+
+    @Test
+    void shouldDeliverChangesMadeThroughTheAsyncFacade()
+    {
+        addSampleTeam();
+        final OrganisationEventPublisher publisher = new OrganisationEventPublisher(organisation, Runnable::run, 8, 256);
+        final Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+        final AsyncOrganisation async = new AsyncOrganisation(organisation);
+
+        assertEquals(Organisation.SUCCESS, async.goOnHoliday(1L).join());
+        assertEquals(List.of(Organisation.SUCCESS, Organisation.SUCCESS), async.reorganise(new Reorganisation().goOnHoliday(12L).returnFromHoliday(1L)).join());
+
+        assertEquals(List.of(OrganisationEvent.Type.WENT_ON_HOLIDAY), collector.types(0));
+        assertEquals(List.of(OrganisationEvent.Type.WENT_ON_HOLIDAY, OrganisationEvent.Type.RETURNED_FROM_HOLIDAY), collector.types(1));
+    }
+
+    @Test
+    void shouldDeliverChangesOnceTheJournalHasThem(@TempDir final Path directory) throws IOException
+    {
+        try(JournaledOrganisation journaled = JournaledOrganisation.open(directory, organisation.getCeo())){
+            final OrganisationEventPublisher publisher = new OrganisationEventPublisher(journaled.getOrganisation(), Runnable::run, 8, 256);
+            final Collector collector = new Collector(Long.MAX_VALUE);
+            publisher.subscribe(collector);
+
+            journaled.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false);
+            journaled.goOnHoliday(3L);
+
+            assertEquals(2, collector.batches.size());
+            assertEquals(List.of(OrganisationEvent.Type.MANAGER_ADDED), collector.types(0));
+            assertEquals(List.of(OrganisationEvent.Type.WENT_ON_HOLIDAY), collector.types(1));
+        }
+    }
+
+    @Test
+    void shouldDropBatchesForSubscriberThatIsBehindWithoutBlocking()
+    {
+        addSampleTeam();
+        final OrganisationEventPublisher publisher = new OrganisationEventPublisher(organisation, Runnable::run, 1, 256);
+        final Collector collector = new Collector(1);
+        publisher.subscribe(collector);
+
+        for(long employeeNumber : new long[]{1L, 12L, 3L}){
+            organisation.goOnHoliday(employeeNumber);
+        }
+        collector.subscription.request(10);
+        organisation.returnFromHoliday(1L);
+
+        assertTrue(publisher.getDropped() > 0);
+        final long first = collector.batches.get(0).getSequence();
+        final long last = collector.batches.get(collector.batches.size() - 1).getSequence();
+        assertTrue(last - first + 1 > collector.batches.size()); // the gap tells the subscriber it missed something
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrganisationMetricsTest
+{
+    @Test
+    void shouldCountCallsRejectionsAndScans()
+    {
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false));
+        final OrganisationMetrics metrics = new OrganisationMetrics();
+        organisation.setMetrics(metrics);
+
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), true, 3L, 4L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Engineer", new Date(), false, 13L, 3L, false);
+        organisation.addTeam("teamOne", 3L, List.of(3L, 12L));
+        organisation.goOnHoliday(3L);
+
+        final OrganisationMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.getCalls(OrganisationMetrics.Call.ADD_MANAGER));
+        assertEquals(1L, snapshot.getRejections(OrganisationMetrics.Call.ADD_MANAGER).get("Contractors cannot be managers"));
+        assertEquals(1L, snapshot.getRejections(OrganisationMetrics.Call.ADD_EMPLOYEE).get("Invalid role - enter correct role"));
+        assertTrue(snapshot.getRejections(OrganisationMetrics.Call.ADD_TEAM).isEmpty());
+        assertEquals(1, snapshot.getScans(OrganisationMetrics.Scan.COVERED_REPORTS));
+        assertEquals(1, snapshot.getScanned(OrganisationMetrics.Scan.COVERED_REPORTS));
+        assertTrue(snapshot.getMaxLatency(OrganisationMetrics.Call.ADD_EMPLOYEE) >= snapshot.getLatencyAtPercentile(OrganisationMetrics.Call.ADD_EMPLOYEE, 50.0));
+
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        metrics.exportTo(MetricsExporter.printingTo(new PrintStream(printed, true)));
+        assertTrue(printed.toString().contains("ADD_MANAGER calls=3"));
+
+        organisation.setMetrics(null);
+        organisation.returnFromHoliday(3L);
+        assertEquals(0, metrics.snapshot().getCalls(OrganisationMetrics.Call.RETURN_FROM_HOLIDAY));
+    }
+
+    @Test
+    void shouldReportPercentilesWithinTheBucketPrecision()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for(long value = 1; value <= 100_000; value++){
+            histogram.record(value * 1_000L);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMax());
+        assertEquals(50_000_000.0, histogram.getValueAtPercentile(50.0), 50_000_000 * 0.04);
+        assertEquals(99_000_000.0, histogram.getValueAtPercentile(99.0), 99_000_000 * 0.04);
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100.0));
+        for(long value : new long[]{0L, 31L, 32L, 1L << 40, Long.MAX_VALUE}){
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestIn(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestIn(index - 1) < value);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -13,10 +14,15 @@ class OrganisationTest
     private static final String SUCCESS = "Success";
     private static final String EMPLOYEE_NON_UNIQUE_ID_ERROR = "Employee with that employee number already exists, please enter a unique value";
 
-    private final Organisation organisation = new Organisation(
+    private final Organisation organisation = newOrganisation(
             new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)
     );
 
+    Organisation newOrganisation(final CEO ceo)
+    {
+        return new Organisation(ceo);
+    }
+
     @BeforeEach
     void setUp()
     {
@@ -192,6 +198,36 @@ class OrganisationTest
         assertFalse(organisation.getTeam(2L).isTeamMember(3L));
     }
 
+    @Test
+    void shouldPickMostSeniorTeamMateWithTiesToLowerEmployeeNumber()
+    {
+        organisation.addEmployee("Ann", "Lee", "Employee", new Date(5L), false, 21L, 8L, false);
+        organisation.addEmployee("Bob", "Lee", "Employee", new Date(5L), false, 20L, 8L, false);
+        organisation.addEmployee("Cat", "Lee", "Employee", new Date(9L), false, 22L, 8L, false);
+        organisation.addTeam("teamThree", 8L, List.of(8L, 21L, 20L, 22L));
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+
+        organisation.moveTeam("teamThree", "teamTwo", 8L, true);
+        assertEquals(20L, organisation.getTeam(21L).getManagerEmployeeId());
+        assertEquals("Employee", organisation.getEmployee(20L).get().getRole()); // taking over a team is not a promotion
+
+        organisation.moveTeam("teamThree", "teamTwo", 20L, false);
+        assertEquals(21L, organisation.getTeam(21L).getManagerEmployeeId());
+
+        organisation.moveTeam("teamThree", "teamTwo", 21L, false);
+        assertEquals(22L, organisation.getTeam(22L).getManagerEmployeeId());
+    }
+
+    @Test
+    void shouldLeaveTeamWithoutManagerWhenNobodyCanTakeOver()
+    {
+        organisation.addTeam("teamThree", 8L, List.of(8L));
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+
+        assertEquals(SUCCESS, organisation.moveTeam("teamThree", "teamTwo", 8L, true));
+        assertEquals(ReportingTree.NO_MANAGER, organisation.findTeam("teamThree").getManagerEmployeeId());
+    }
+
     @Test
     void shouldReturnErrorIfEmployeeAlreadyOnHoliday()
     {
@@ -251,6 +287,131 @@ class OrganisationTest
         assertEquals(3L, organisation.getTeam(1L).getCurrentManager());
     }
 
+    @Test
+    void shouldBeCoveredByNearestManagerNotOnHoliday()
+    {
+        organisation.goOnHoliday(4L);
+        organisation.goOnHoliday(3L);
+
+        assertEquals(5L, organisation.getTeam(1L).getCurrentManager());
+        assertEquals(5L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertEquals(5L, organisation.getManager(3L).get().getManagerNumber());
+
+        organisation.returnFromHoliday(4L);
+
+        assertEquals(4L, organisation.getTeam(1L).getCurrentManager());
+        assertEquals(4L, organisation.getEmployee(12L).get().getManagerNumber());
+
+        organisation.returnFromHoliday(3L);
+
+        assertEquals(3L, organisation.getTeam(1L).getCurrentManager());
+        assertEquals(3L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertEquals(4L, organisation.getManager(3L).get().getManagerNumber());
+    }
+
+    @Test
+    void shouldBeCoveredThroughNewManagerAfterMovingTeams()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+        organisation.moveTeam("teamOne", "teamTwo", 12L, false);
+
+        assertEquals(4L, organisation.getReportsTo(12L));
+        assertEquals(4L, organisation.getEmployee(12L).get().getManagerNumber());
+
+        organisation.goOnHoliday(4L);
+
+        assertEquals(5L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertEquals(5L, organisation.getTeam(12L).getCurrentManager());
+    }
+
+    @Test
+    void shouldFollowHolidayCalendarForTheDay()
+    {
+        final LocalDate start = LocalDate.of(2024, 7, 1);
+        final String result = organisation.scheduleHolidays(List.of(
+                new HolidayCalendar.Absence(3L, start, start.plusDays(9)),
+                new HolidayCalendar.Absence(4L, start.plusDays(5), start.plusDays(14)),
+                new HolidayCalendar.Absence(1L, start.plusDays(20), start.plusDays(21))
+        ));
+
+        assertEquals(SUCCESS, result);
+        assertEquals(4L, organisation.getEffectiveManager(12L, start));
+        assertEquals(5L, organisation.getEffectiveManager(12L, start.plusDays(7)));
+        assertEquals(3L, organisation.getEffectiveManager(12L, start.plusDays(12)));
+        assertArrayEquals(new long[]{3L, 4L}, organisation.getPeopleOnHoliday(start.plusDays(7)));
+
+        organisation.applyHolidays(start.plusDays(7));
+
+        assertTrue(organisation.getManager(3L).get().isOnHoliday());
+        assertFalse(organisation.getEmployee(1L).get().isOnHoliday()); // was on holiday, the calendar has them back
+        assertEquals(5L, organisation.getTeam(1L).getCurrentManager());
+        assertEquals(5L, organisation.getEmployee(12L).get().getManagerNumber());
+
+        organisation.applyHolidays(start.plusDays(12));
+
+        assertFalse(organisation.getManager(3L).get().isOnHoliday());
+        assertEquals(3L, organisation.getTeam(1L).getCurrentManager());
+        assertEquals(3L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertEquals(5L, organisation.getManager(3L).get().getManagerNumber());
+    }
+
+    @Test
+    void shouldRejectWholeHolidayBatchWhenOneRangeIsInvalid()
+    {
+        final LocalDate start = LocalDate.of(2024, 7, 1);
+        final String result = organisation.scheduleHolidays(List.of(
+                new HolidayCalendar.Absence(3L, start, start.plusDays(9)),
+                new HolidayCalendar.Absence(12L, start, start.minusDays(1))
+        ));
+
+        assertEquals("Invalid - holiday ends before it starts", result);
+        assertEquals(0, organisation.getPeopleOnHoliday(start).length);
+        assertEquals("Invalid - employee does not exist",
+                organisation.scheduleHolidays(List.of(new HolidayCalendar.Absence(99L, start, start))));
+    }
+
+    @Test
+    void shouldApplyWholeReorganisation()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+        final List<String> results = organisation.reorganise(new Reorganisation()
+                .moveTeam("teamOne", "teamTwo", 12L, false)
+                .goOnHoliday(4L)
+                .promote(2L, 4L, false, "Director"));
+
+        assertEquals(List.of(SUCCESS, SUCCESS, SUCCESS), results);
+        assertEquals("teamTwo", organisation.getTeam(12L).getTeamName());
+        assertEquals(5L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertTrue(organisation.getManager(4L).get().isOnHoliday());
+    }
+
+    @Test
+    void shouldPutEverythingBackWhenAReorganisationStepIsRejected()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+        final int headcount = organisation.getUnitHeadcount(4L);
+        final int managers = organisation.getUnitManagers(4L);
+        final List<String> results = organisation.reorganise(new Reorganisation()
+                .goOnHoliday(3L)
+                .moveTeam("teamOne", "teamTwo", 3L, true)
+                .promote(12L, 4L, true, "Manager")
+                .moveTeam("teamOne", "teamAMillion", 1L, false));
+
+        assertEquals(List.of(Organisation.ROLLED_BACK, Organisation.ROLLED_BACK, Organisation.ROLLED_BACK, "Invalid team - team does not exist"), results);
+        assertFalse(organisation.getManager(3L).get().isOnHoliday());
+        assertEquals(3L, organisation.getTeam(1L).getManagerEmployeeId());
+        assertEquals(3L, organisation.getTeam(1L).getCurrentManager());
+        assertTrue(organisation.getTeam(1L).isTeamMember(3L));
+        assertEquals("teamOne", organisation.getTeam(3L).getTeamName());
+        assertEquals(1, organisation.getTeams(3L).size());
+        assertEquals(1, organisation.getTeam(4L).getTeamSize());
+        assertTrue(organisation.getEmployee(12L).isPresent());
+        assertEquals(3L, organisation.getEmployee(12L).get().getManagerNumber());
+        assertEquals(3L, organisation.getReportsTo(12L));
+        assertEquals(headcount, organisation.getUnitHeadcount(4L));
+        assertEquals(managers, organisation.getUnitManagers(4L));
+    }
+
     @Test
     void shouldBeAbleToPromoteEmployee() // just promoting, we do not care about team etc
     {
@@ -346,4 +507,145 @@ class OrganisationTest
         assertEquals(SUCCESS, response);
         assertEquals("VicePresident", organisation.getManager(13l).get().getRole());
     }
+
+    @Test
+    void shouldLookUpEmployeesAndManagersByEmployeeNumber()
+    {
+        assertTrue(organisation.getEmployee(12L).isPresent());
+        assertFalse(organisation.getManager(12L).isPresent());
+        assertTrue(organisation.getManager(3L).isPresent());
+        assertFalse(organisation.getEmployee(3L).isPresent());
+    }
+
+    @Test
+    void shouldKeepEmployeeWhenPromotionIsRejected()
+    {
+        String result = organisation.promote(12L, 3L, true, "ABC");
+
+        assertEquals("Invalid role - enter correct role", result);
+        assertTrue(organisation.getEmployee(12L).isPresent());
+    }
+
+    @Test
+    void shouldReturnEveryTeamOfAMemberOfSeveralTeams()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L, 12L));
+
+        assertEquals(2, organisation.getTeams(12L).size());
+        assertEquals("teamTwo", organisation.getTeam(12L).getTeamName());
+        assertTrue(organisation.getTeams(99L).isEmpty());
+    }
+
+    @Test
+    void shouldDropOldTeamFromMembershipWhenMovingTeams()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+        organisation.moveTeam("teamOne", "teamTwo", 12L, false);
+
+        assertEquals(1, organisation.getTeams(12L).size());
+        assertEquals("teamTwo", organisation.getTeam(12L).getTeamName());
+    }
+
+    @Test
+    void shouldCountTheWholeUnitWhenPromotingToDirector()
+    {
+        organisation.addManager("John", "Bennett", "Manager", new Date(), false, 13L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 14L, 13L, false);
+        organisation.addManager("Vince", "Marlow", "Manager", new Date(), false, 15L, 14L, false);
+
+        organisation.addTeam("teamThree", 15L, List.of(30L, 31L, 32L, 33L, 34L, 35L, 36L, 37L, 38L, 39L, 40L));
+        organisation.addTeam("teamFour", 14L, List.of(41L, 42L, 43L, 44L, 45L, 46L, 47L, 48L, 49L, 50L));
+
+        assertEquals(21, organisation.getUnitHeadcount(13L));
+        assertEquals(2, organisation.getUnitManagers(13L));
+        assertEquals(SUCCESS, organisation.promote(13L, 100L, false, "Director"));
+        assertEquals(1, organisation.getUnitDirectors(100L));
+    }
+
+    @Test
+    void shouldRejectPromotionUnderSomeoneInTheirOwnUnit()
+    {
+        organisation.addManager("John", "Bennett", "Manager", new Date(), false, 13L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 14L, 13L, false);
+        organisation.addManager("Vince", "Marlow", "Manager", new Date(), false, 15L, 14L, false);
+        organisation.addTeam("teamThree", 15L, List.of(30L, 31L, 32L, 33L, 34L, 35L, 36L, 37L, 38L, 39L, 40L));
+        organisation.addTeam("teamFour", 14L, List.of(41L, 42L, 43L, 44L, 45L, 46L, 47L, 48L, 49L, 50L));
+
+        assertEquals(Organisation.REPORTING_LOOP_ERROR, organisation.promote(13L, 15L, false, "Director"));
+        assertEquals("Manager", organisation.getManager(13L).get().getRole());
+        assertEquals(0, organisation.getUnitDirectors(100L));
+        assertEquals(Long.valueOf(100L), organisation.getManager(13L).get().getManagerNumber());
+        assertEquals(Long.valueOf(100L), organisation.getReportsTo(13L));
+    }
+
+    @Test
+    void shouldMoveUnitTotalsWhenPromotedEmployeeChangesManager()
+    {
+        organisation.addTeam("teamThree", 12L, List.of(30L, 31L, 32L));
+        assertEquals(7, organisation.getUnitHeadcount(3L));
+
+        organisation.promote(12L, 100L, true, "Manager");
+
+        assertEquals(4, organisation.getUnitHeadcount(3L));
+        assertEquals(0, organisation.getUnitManagers(3L));
+        assertEquals(3, organisation.getUnitHeadcount(100L));
+        assertEquals(1, organisation.getUnitManagers(100L));
+    }
+
+    @Test
+    void shouldAnswerReportingChainQuestionsAfterChangesToTheTree()
+    {
+        assertTrue(organisation.isInUnit(1L, 4L));
+        assertTrue(organisation.isInUnit(4L, 4L));
+        assertFalse(organisation.isInUnit(1L, 8L));
+        assertEquals(4L, organisation.getLowestCommonManager(1L, 8L));
+        assertEquals(3L, organisation.getLowestCommonManager(1L, 3L));
+        assertEquals(4L, organisation.getManagerAbove(1L, 2));
+        assertNull(organisation.getManagerAbove(1L, 4));
+        assertArrayEquals(new long[]{3L, 4L, 5L}, organisation.getManagementChain(1L));
+
+        organisation.promote(12L, 100L, true, "Manager");
+        organisation.addEmployee("Jane", "Doe", "Employee", new Date(), false, 20L, 12L, false);
+
+        assertFalse(organisation.isInUnit(20L, 4L));
+        assertTrue(organisation.isInUnit(20L, 100L));
+        assertEquals(3L, organisation.getLowestCommonManager(1L, 3L));
+        assertNull(organisation.getLowestCommonManager(20L, 1L));
+        assertArrayEquals(new long[]{12L, 100L}, organisation.getManagementChain(20L));
+    }
+
+    @Test
+    void shouldKeepSearchResultsUpToDateWithChanges()
+    {
+        final PeopleSearch search = organisation.search();
+        assertArrayEquals(new long[]{8L, 12L}, search.query().nameStartsWith("j").find());
+        assertArrayEquals(new long[]{12L}, search.query().lastNameStartsWith("B").role("Employee").find());
+        assertArrayEquals(new long[]{1L, 8L}, search.query().onHoliday(true).find());
+
+        organisation.goOnHoliday(12L);
+        organisation.addEmployee("Jane", "Doe", "Employee", new Date(0L), true, 20L, 3L, false);
+        organisation.promote(12L, 100L, true, "Manager");
+
+        assertArrayEquals(new long[]{1L, 8L, 12L}, search.query().onHoliday(true).find());
+        assertArrayEquals(new long[]{20L}, search.query().contractor(true).startedBetween(new Date(0L), new Date(1000L)).find());
+        assertArrayEquals(new long[]{3L, 8L, 12L}, search.query().role("Manager").find());
+        assertEquals(2, search.query().nameStartsWith("j").role("Manager").count());
+        assertEquals(0, search.query().firstNameStartsWith("jo").contractor(true).count());
+    }
+
+    @Test
+    void shouldSearchStartDatesToTheMillisecondAcrossDays()
+    {
+        final long day = 24L * 60 * 60 * 1000;
+        organisation.addEmployee("Ann", "Lee", "Employee", new Date(10 * day + 5L), false, 20L, 3L, false);
+        organisation.addEmployee("Bob", "Lee", "Employee", new Date(10 * day + 9L), false, 21L, 3L, false);
+        organisation.addEmployee("Cat", "Lee", "Employee", new Date(11 * day), false, 22L, 3L, false);
+        organisation.addEmployee("Dan", "Lee", "Employee", new Date(12 * day + 1L), false, 23L, 3L, false);
+        final PeopleSearch search = organisation.search();
+
+        assertArrayEquals(new long[]{21L}, search.query().startedBetween(new Date(10 * day + 6L), new Date(10 * day + 9L)).find());
+        assertArrayEquals(new long[]{21L, 22L}, search.query().startedBetween(new Date(10 * day + 6L), new Date(12 * day)).find());
+        assertArrayEquals(new long[]{20L, 21L, 22L}, search.query().lastNameStartsWith("lee").startedBetween(null, new Date(11 * day)).find());
+        assertArrayEquals(new long[]{23L}, search.query().nameStartsWith("d").startedBetween(new Date(12 * day + 1L), null).find());
+    }
 }
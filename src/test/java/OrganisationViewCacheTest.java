@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrganisationViewCacheTest
+{
+    private final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false));
+    private final OrganisationViewCache cache = new OrganisationViewCache(organisation, 1L << 20);
+
+    @BeforeEach
+    void setUp()
+    {
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        organisation.addManager("John", "Burkins", "Manager", new Date(), false, 8L, 4L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(), false, 1L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 3L, false);
+        organisation.addTeam("teamOne", 3L, Arrays.asList(1L, 12L));
+        organisation.addTeam("teamTwo", 8L, List.of());
+    }
+
+    @Test
+    void shouldKeepViewsAcrossHolidaysAndDropThemWhenTheTreeChanges()
+    {
+        assertArrayEquals(new long[]{3L, 4L, 100L}, cache.getManagementChain(1L));
+        assertArrayEquals(new long[]{1L, 12L}, cache.getDirectReports(3L));
+        assertEquals(3L, cache.getEffectiveManager("teamOne"));
+
+        organisation.goOnHoliday(1L);
+        organisation.goOnHoliday(12L);
+        assertArrayEquals(new long[]{3L, 4L, 100L}, cache.getManagementChain(1L));
+        assertArrayEquals(new long[]{1L, 12L}, cache.getDirectReports(3L));
+        assertEquals(2, cache.getHits());
+
+        organisation.goOnHoliday(3L);
+        assertEquals(4L, cache.getEffectiveManager("teamOne"));
+
+        organisation.moveTeam("teamOne", "teamTwo", 1L, false);
+        assertArrayEquals(new long[]{8L, 4L, 100L}, cache.getManagementChain(1L));
+        assertArrayEquals(new long[]{12L}, cache.getDirectReports(3L));
+        assertArrayEquals(new long[]{1L}, cache.getDirectReports(8L));
+
+        organisation.addEmployee("Jane", "Doe", "Employee", new Date(), false, 20L, 8L, false);
+        assertArrayEquals(new long[]{1L, 20L}, cache.getDirectReports(8L));
+    }
+
+    @Test
+    void shouldDropChainsBelowAManagerWhoMovesAndStayWithinTheWeightLimit()
+    {
+        final OrganisationViewCache small = new OrganisationViewCache(organisation, 200L);
+        assertArrayEquals(new long[]{3L, 4L, 100L}, small.getManagementChain(12L));
+        assertArrayEquals(new long[]{3L, 4L, 100L}, cache.getManagementChain(12L));
+
+        organisation.addTeam("teamThree", 4L, List.of(3L));
+        organisation.moveTeam("teamThree", "teamTwo", 3L, true);
+        assertArrayEquals(new long[]{3L, 8L, 4L, 100L}, cache.getManagementChain(12L));
+
+        for(long person : new long[]{1L, 12L, 3L, 8L}){
+            small.getManagementChain(person);
+        }
+        assertTrue(small.size() < 4);
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportingTreeTest
+{
+    @Test
+    void shouldAgreeWithWalkingTheChainAfterManyReLinks()
+    {
+        final Random random = new Random(19L);
+        final int people = 300;
+        final ReportingTree tree = new ReportingTree(people);
+        final long[] managerOf = new long[people];
+        tree.addPerson(0L, null, true, false);
+        managerOf[0] = -1L;
+        for(int i = 1; i < people; i++){
+            managerOf[i] = random.nextInt(i);
+            tree.addPerson(i, managerOf[i], true, false);
+        }
+        tree.isInUnit(1L, 0L); // builds the index so the re-links below keep it up to date
+
+        for(int round = 0; round < 2000; round++){
+            final int person = 1 + random.nextInt(people - 1);
+            final int manager = round % 3 == 0 ? 0 : random.nextInt(people); // repeated moves under the top use up its room
+            if(tree.setManager(person, (long) manager)){
+                managerOf[person] = manager;
+            }
+            final long first = random.nextInt(people);
+            final long second = random.nextInt(people);
+            assertEquals(walkIsInUnit(managerOf, first, second), tree.isInUnit(first, second));
+            assertEquals(walkCommonManager(managerOf, first, second), tree.getLowestCommonManager(first, second));
+            final long[] chain = tree.getManagementChain(first);
+            for(int level = 0; level < chain.length; level++){
+                assertEquals(chain[level], tree.getManagerAbove(first, level + 1));
+            }
+            assertNull(tree.getManagerAbove(first, chain.length + 1));
+        }
+    }
+
+    private static boolean walkIsInUnit(final long[] managerOf, final long person, final long manager)
+    {
+        for(long node = person; node != -1L; node = managerOf[(int) node]){
+            if(node == manager){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long walkCommonManager(final long[] managerOf, final long first, final long second)
+    {
+        for(long node = first; node != -1L; node = managerOf[(int) node]){
+            if(walkIsInUnit(managerOf, second, node)){
+                return node;
+            }
+        }
+        return null;
+    }
+}
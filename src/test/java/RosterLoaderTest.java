@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosterLoaderTest
+{
+
+    private final CEO ceo = new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false);
+    private final RosterLoader loader = new RosterLoader();
+
+    @Test
+    void shouldLoadReportsBeforeTheirManagers()
+    {
+        loader.addEmployee("Manjooth", "Kler", "Employee", new Date(), false, 1L, 3L, false)
+                .addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false)
+                .addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false)
+                .addTeam("teamOne", 3L, List.of(1L, 3L));
+
+        final RosterLoader.Result result = loader.load(ceo);
+
+        assertTrue(result.isClean());
+        final Organisation organisation = result.getOrganisation();
+        assertTrue(organisation.getEmployee(1L).isPresent());
+        assertEquals("teamOne", organisation.getTeam(1L).getTeamName());
+        assertEquals(2, organisation.getUnitHeadcount(4L));
+        assertEquals(1, organisation.getUnitDirectors(100L));
+    }
+
+    @Test
+    void shouldReportEveryInvalidRow()
+    {
+        loader.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 100L, false)
+                .addEmployee("Jay", "Bird", "Employee", new Date(), false, 3L, 3L, false)
+                .addEmployee("Jane", "Doe", "ABC", new Date(), false, 5L, 3L, false)
+                .addManager("John", "Burkins", "Manager", new Date(), true, 6L, 3L, false)
+                .addEmployee("Jack", "Bennett", "Employee", new Date(), false, 7L, 42L, false)
+                .addTeam("teamOne", 3L, List.of(3L))
+                .addTeam("teamOne", 3L, List.of(3L));
+
+        final RosterLoader.Result result = loader.load(ceo);
+
+        assertEquals(5, result.getErrors().size());
+        assertEquals(Organisation.EMPLOYEE_NON_UNIQUE_ID_ERROR, result.getErrors().get(0).getMessage());
+        assertEquals(Organisation.INVALID_ROLE_ERROR, result.getErrors().get(1).getMessage());
+        assertEquals(Organisation.CONTRACTOR_MANAGER_ERROR, result.getErrors().get(2).getMessage());
+        assertEquals(Organisation.INVALID_MANAGER_ERROR, result.getErrors().get(3).getMessage());
+        assertEquals(Organisation.TEAM_NAME_NOT_UNIQUE_ERROR, result.getErrors().get(4).getMessage());
+        assertEquals(6, result.getErrors().get(4).getRow());
+        assertTrue(result.getOrganisation().getManager(3L).isPresent());
+    }
+
+    @Test
+    void shouldRejectReportsOfRejectedManagersAndReportingLoops()
+    {
+        loader.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false)
+                .addManager("Larry", "Clarke", "Manager", new Date(), false, 4L, 3L, false)
+                .addManager("John", "Bennett", "Manager", new Date(), true, 5L, 100L, false)
+                .addEmployee("Jay", "Bird", "Employee", new Date(), false, 6L, 5L, false);
+
+        final RosterLoader.Result result = loader.load(ceo);
+
+        assertEquals(4, result.getErrors().size());
+        assertEquals(RosterLoader.REPORTING_LOOP_ERROR, result.getErrors().get(0).getMessage());
+        assertEquals(RosterLoader.REPORTING_LOOP_ERROR, result.getErrors().get(1).getMessage());
+        assertEquals(Organisation.INVALID_MANAGER_ERROR, result.getErrors().get(3).getMessage());
+        assertFalse(result.getOrganisation().getEmployee(6L).isPresent());
+    }
+
+    @Test
+    void shouldAcceptExactlyTheRowsAddingThemOneAtATimeWould()
+    {
+        loader.addEmployee("Jay", "Bird", "Employee", new Date(), false, 1L, 100L, false)
+                .addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 42L, false)
+                .addEmployee("Jane", "Doe", "Employee", new Date(), false, 2L, 3L, false)
+                .addTeam("teamOne", 42L, List.of(2L));
+        final Organisation oneAtATime = new Organisation(ceo);
+
+        final RosterLoader.Result result = loader.load(ceo);
+
+        assertEquals(Organisation.INVALID_MANAGER_ERROR, oneAtATime.addEmployee("Jay", "Bird", "Employee", new Date(), false, 1L, 100L, false));
+        assertEquals(Organisation.SUCCESS, oneAtATime.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 42L, false));
+        assertEquals(Organisation.SUCCESS, oneAtATime.addEmployee("Jane", "Doe", "Employee", new Date(), false, 2L, 3L, false));
+        assertEquals(Organisation.SUCCESS, oneAtATime.addTeam("teamOne", 42L, List.of(2L)));
+        assertEquals(1, result.getErrors().size());
+        assertEquals(Organisation.INVALID_MANAGER_ERROR, result.getErrors().get(0).getMessage());
+        assertFalse(result.getOrganisation().getEmployee(1L).isPresent());
+        assertTrue(result.getOrganisation().getEmployee(2L).isPresent());
+        assertEquals("teamOne", result.getOrganisation().getTeam(2L).getTeamName());
+    }
+}
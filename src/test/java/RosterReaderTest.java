@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosterReaderTest
+{
+
+    private static Organisation sampleOrganisation()
+    {
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(5L), false, 100L, null, false));
+        organisation.addManager("Larry", "Clarke, Jr", "Director", new Date(10L), false, 4L, 100L, false);
+        organisation.addManager("Mike", "\"Newt\" Newton", "Manager", new Date(20L), false, 3L, 4L, true);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(30L), true, 1L, 3L, false);
+        organisation.addTeam("team, one", 3L, List.of(1L, 3L));
+        return organisation;
+    }
+
+    private static String write(final Organisation organisation, final RosterFormat format) throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        try(RosterWriter writer = new RosterWriter(out, format)){
+            writer.write(organisation);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void shouldRoundTripThroughCsv() throws IOException
+    {
+        assertRoundTrip(RosterFormat.CSV);
+    }
+
+    @Test
+    void shouldRoundTripThroughNdjson() throws IOException
+    {
+        assertRoundTrip(RosterFormat.NDJSON);
+    }
+
+    private void assertRoundTrip(final RosterFormat format) throws IOException
+    {
+        final RosterLoader.Result result = RosterReader.load(new StringReader(write(sampleOrganisation(), format)), format);
+
+        assertTrue(result.isClean());
+        final Organisation loaded = result.getOrganisation();
+        assertEquals(100L, loaded.getCeo().getEmployeeNumber());
+        assertEquals("Clarke, Jr", loaded.getManager(4L).get().getLastName());
+        assertEquals("\"Newt\" Newton", loaded.getManager(3L).get().getLastName());
+        assertTrue(loaded.getManager(3L).get().isOnHoliday());
+        assertTrue(loaded.getEmployee(1L).get().isContractor());
+        assertEquals(30L, loaded.getEmployee(1L).get().getStartDate().getTime());
+        assertEquals("team, one", loaded.getTeam(1L).getTeamName());
+        assertEquals(2, loaded.getUnitHeadcount(4L));
+    }
+
+    @Test
+    void shouldKeepReportingLinesWhenAManagerIsOnHoliday() throws IOException
+    {
+        final Organisation organisation = new Organisation(new CEO("Elf", "Elrond", "CEO", new Date(5L), false, 100L, null, false));
+        organisation.addManager("Larry", "Clarke", "Director", new Date(10L), false, 4L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(20L), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(30L), false, 1L, 3L, false);
+        organisation.addTeam("teamOne", 3L, List.of(1L, 3L));
+        organisation.goOnHoliday(3L);
+        assertEquals(Long.valueOf(4L), organisation.getEmployee(1L).get().getManagerNumber());
+
+        final RosterLoader.Result result = RosterReader.load(new StringReader(write(organisation, RosterFormat.CSV)), RosterFormat.CSV);
+
+        assertTrue(result.isClean());
+        final Organisation loaded = result.getOrganisation();
+        assertEquals(Long.valueOf(3L), loaded.getReportsTo(1L));
+        assertEquals(Long.valueOf(4L), loaded.getEmployee(1L).get().getManagerNumber());
+        assertEquals(Long.valueOf(4L), loaded.findTeam("teamOne").getCurrentManager());
+        assertEquals(2, loaded.getUnitHeadcount(3L));
+        loaded.returnFromHoliday(3L);
+        assertEquals(Long.valueOf(3L), loaded.getEmployee(1L).get().getManagerNumber());
+    }
+
+    @Test
+    void shouldSkipUnknownJsonFields() throws IOException
+    {
+        final String roster = "{\"kind\":\"ceo\",\"firstName\":\"Elf\",\"lastName\":\"Elrond\",\"startDate\":0,\"employeeNumber\":100,\"managerNumber\":null}\n"
+                + "{\"kind\":\"manager\",\"firstName\":\"Mike\",\"lastName\":\"Newton\",\"role\":\"Manager\",\"startDate\":0,\"tags\":[\"a\",1],\"note\":\"x\",\"employeeNumber\":3,\"managerNumber\":100}\n";
+
+        final RosterLoader.Result result = RosterReader.load(new StringReader(roster), RosterFormat.NDJSON);
+
+        assertTrue(result.getOrganisation().getManager(3L).isPresent());
+    }
+
+    @Test
+    void shouldReportTheLineOfAMalformedRecord()
+    {
+        final String roster = RosterWriter.CSV_HEADER + "\n"
+                + "ceo,Elf,Elrond,CEO,0,false,100,,false\n"
+                + "employee,Jay,Bird,Employee,zero,false,1,100,false\n";
+
+        final IOException error = assertThrows(IOException.class, () -> RosterReader.load(new StringReader(roster), RosterFormat.CSV));
+        assertTrue(error.getMessage().contains("line 3"));
+    }
+}
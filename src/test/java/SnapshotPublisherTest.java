@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotPublisherTest
+{
+
+    private final Organisation organisation = new Organisation(
+            new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)
+    );
+    private SnapshotPublisher publisher;
+
+    @BeforeEach
+    void setUp()
+    {
+        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false);
+        organisation.addManager("Mike", "Newton", "Manager", new Date(), false, 3L, 4L, false);
+        organisation.addEmployee("Manjooth", "Kler", "Employee", new Date(), false, 1L, 3L, false);
+        organisation.addEmployee("Jay", "Bird", "Employee", new Date(), false, 12L, 3L, false);
+        organisation.addTeam("teamOne", 3L, List.of(1L, 3L, 12L));
+        publisher = new SnapshotPublisher(organisation);
+    }
+
+    @Test
+    void shouldNotSeeChangesUntilTheyArePublished()
+    {
+        final OrganisationSnapshot before = publisher.current();
+
+        organisation.goOnHoliday(3L);
+
+        assertSame(before, publisher.current());
+        assertFalse(before.getPerson(3L).isOnHoliday());
+
+        final OrganisationSnapshot after = publisher.publish();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertTrue(after.getPerson(3L).isOnHoliday());
+        assertEquals(4L, after.getPerson(1L).getManagerNumber());
+        assertEquals(3L, after.getPerson(1L).getReportsTo());
+        assertEquals(4L, after.getTeam("teamOne").getCurrentManager());
+        assertFalse(before.getPerson(3L).isOnHoliday());
+        assertEquals(3L, before.getTeam("teamOne").getCurrentManager());
+    }
+
+    @Test
+    void shouldFollowTeamMoves()
+    {
+        organisation.addTeam("teamTwo", 4L, List.of(4L));
+        organisation.moveTeam("teamOne", "teamTwo", 12L, false);
+
+        final OrganisationSnapshot snapshot = publisher.publish();
+
+        assertEquals("teamTwo", snapshot.getTeamOf(12L).getTeamName());
+        assertFalse(snapshot.getTeam("teamOne").isTeamMember(12L));
+        assertEquals(2, snapshot.getTeamCount());
+        assertEquals(100L, snapshot.getCeo().getEmployeeNumber());
+    }
+
+    @Test
+    void shouldShareUntouchedPages()
+    {
+        for(long number = 1_000; number < 5_000; number++){
+            organisation.addEmployee("Jane", "Doe", "Employee", new Date(), false, number, 3L, false);
+        }
+        final OrganisationSnapshot before = publisher.publish();
+
+        organisation.goOnHoliday(1_234L);
+        final OrganisationSnapshot after = publisher.publish();
+
+        assertTrue(after.getPerson(1_234L).isOnHoliday());
+        assertEquals(before.getPeopleCount(), after.getPeopleCount());
+        assertFalse(after.people().sharesPageWith(before.people(), 1_234L));
+        int shared = 0;
+        for(long number = 1_000; number < 5_000; number++){
+            if(after.people().sharesPageWith(before.people(), number)){
+                shared++;
+            }
+        }
+        assertTrue(shared > 3_500);
+    }
+
+    @Test
+    void shouldSplitPagesAsTheMapGrows()
+    {
+        PagedMap<Long, Long> map = PagedMap.of(Map.of());
+        assertEquals(16, map.pageCount());
+        for(long batch = 0; batch < 100; batch++){
+            final Map<Long, Long> updates = new HashMap<>();
+            for(long number = batch * 1_000; number < (batch + 1) * 1_000; number++){
+                updates.put(number, number);
+            }
+            map = map.with(updates);
+        }
+
+        assertEquals(100_000, map.size());
+        assertTrue(map.pageCount() >= 100_000 / 1_024);
+        assertEquals(Long.valueOf(54_321L), map.get(54_321L));
+    }
+}
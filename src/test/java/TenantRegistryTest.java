@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantRegistryTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldPageOutLeastRecentlyUsedTenantsAndReadThemBack() throws Exception
+    {
+        final long budget = 2 * (2 * TenantRegistry.PERSON_BYTES); // room for two tenants of a CEO and one manager
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, budget)){
+            for(String tenant : new String[]{"acme", "globex", "initech"}){
+                registry.create(tenant, new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+                assertEquals("Success", registry.submit(tenant, organisation ->
+                        organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false)).join());
+            }
+            assertFalse(registry.isResident("acme"));
+            assertTrue(registry.isResident("initech"));
+
+            final String acmeRole = registry.submit("acme", organisation -> organisation.getManager(4L).get().getRole()).join();
+            final String globexRole = registry.submit("globex", organisation -> organisation.getManager(4L).get().getRole()).join();
+            assertEquals("Director", acmeRole);
+            assertSame(acmeRole, globexRole);
+            assertTrue(registry.isResident("acme"));
+            assertFalse(registry.isResident("initech"));
+        }
+        try(TenantRegistry reopened = new TenantRegistry(directory, 4, Long.MAX_VALUE)){
+            assertEquals(4L, reopened.submit("initech", organisation -> organisation.getManager(4L).get().getEmployeeNumber()).join());
+        }
+    }
+
+    @Test
+    void shouldKeepPlannedHolidaysWhenATenantIsPagedOut() throws Exception
+    {
+        final LocalDate day = LocalDate.of(2026, 8, 3);
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, Long.MAX_VALUE)){
+            registry.create("acme", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            registry.submit("acme", organisation -> organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false)).join();
+        }
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, Long.MAX_VALUE)){ // read back unchanged, then only the calendar changes
+            assertEquals("Success", registry.submit("acme", organisation ->
+                    organisation.scheduleHolidays(List.of(new HolidayCalendar.Absence(4L, day, day.plusDays(4))))).join());
+        }
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, Long.MAX_VALUE)){
+            assertArrayEquals(new long[]{4L}, registry.submit("acme", organisation -> organisation.getPeopleOnHoliday(day.plusDays(2))).join());
+        }
+    }
+
+    @Test
+    void shouldKeepTheCallersResultWhenAnotherTenantCannotBePagedOut() throws Exception
+    {
+        final Path blocked = directory.resolve("acme.tenant.tmp");
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, TenantRegistry.PERSON_BYTES)){ // room for one tenant of a CEO
+            registry.create("acme", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            Files.createDirectory(blocked); // acme's snapshot cannot be written while this is in the way
+
+            registry.create("globex", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            assertEquals("Success", registry.submit("globex", organisation ->
+                    organisation.addManager("Larry", "Clarke", "Director", new Date(), false, 4L, 100L, false)).join());
+            assertTrue(registry.getPageOutFailures() > 0);
+            assertNotNull(registry.getLastPageOutFailure());
+            assertTrue(registry.isResident("acme"));
+
+            Files.delete(blocked);
+            registry.submit("globex", Organisation::getCeo).join();
+            assertFalse(registry.isResident("acme"));
+        }
+    }
+
+    @Test
+    void shouldGoOnEvictingPastATenantThatCannotBePagedOut() throws Exception
+    {
+        try(TenantRegistry registry = new TenantRegistry(directory, 1, TenantRegistry.PERSON_BYTES)){ // room for one tenant of a CEO
+            registry.create("acme", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            Files.createDirectory(directory.resolve("acme.tenant.tmp")); // acme's snapshot cannot be written
+            registry.create("globex", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            registry.create("initech", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+
+            assertTrue(registry.isResident("acme"));
+            assertFalse(registry.isResident("globex")); // acme failing first did not stop globex going
+            assertTrue(registry.isResident("initech"));
+            assertEquals(2, registry.getResidentCount());
+            Files.delete(directory.resolve("acme.tenant.tmp"));
+        }
+    }
+
+    @Test
+    void shouldShareNamesAndRolesBetweenTenantsBeforeTheyArePagedOut() throws Exception
+    {
+        try(TenantRegistry registry = new TenantRegistry(directory, 2, Long.MAX_VALUE)){
+            for(String tenant : new String[]{"acme", "globex"}){
+                registry.create(tenant, new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+                registry.submit(tenant, organisation -> organisation.addManager(new String("Larry"), new String("Clarke"),
+                        new String("Director"), new Date(), false, 4L, 100L, false)).join();
+            }
+            final Employee acme = registry.submit("acme", organisation -> organisation.getManager(4L).get()).join();
+            final Employee globex = registry.submit("globex", organisation -> organisation.getManager(4L).get()).join();
+            assertSame(acme.getFirstName(), globex.getFirstName());
+            assertSame(acme.getLastName(), globex.getLastName());
+            assertSame("Director", globex.getRole());
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownAndDuplicateTenants() throws Exception
+    {
+        try(TenantRegistry registry = new TenantRegistry(directory, 2, Long.MAX_VALUE)){
+            registry.create("acme", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join();
+            final CompletionException duplicate = assertThrows(CompletionException.class,
+                    () -> registry.create("acme", new CEO("Elf", "Elrond", "CEO", new Date(), false, 100L, null, false)).join());
+            assertTrue(duplicate.getCause() instanceof IllegalArgumentException);
+            final CompletionException unknown = assertThrows(CompletionException.class, () -> registry.submit("nobody", Organisation::getCeo).join());
+            assertTrue(unknown.getCause() instanceof IllegalArgumentException);
+            assertThrows(IllegalArgumentException.class, () -> registry.submit("../etc", Organisation::getCeo));
+        }
+    }
+}